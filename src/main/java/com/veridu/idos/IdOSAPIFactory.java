@@ -1,16 +1,28 @@
 package com.veridu.idos;
 
 import com.veridu.idos.endpoints.*;
+import com.veridu.idos.exceptions.InvalidToken;
+import com.veridu.idos.settings.ClientSettings;
 import com.veridu.idos.settings.Config;
+import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.TokenCache;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
 
 /**
  * CredentialFactory Endpoint creates all Endpoints
  *
+ * The factory owns one pooled HTTP client that every endpoint it creates
+ * reuses; close the factory to release its connections.
+ *
  */
-public class IdOSAPIFactory implements Serializable {
+public class IdOSAPIFactory implements Serializable, AutoCloseable {
 
     /**
      * base API URL
@@ -27,74 +39,117 @@ public class IdOSAPIFactory implements Serializable {
      */
     private HashMap<String, String> credentials;
 
+    /**
+     * HTTP client settings
+     */
+    private ClientSettings settings = ClientSettings.createDefault();
+
+    /**
+     * Pooled HTTP client shared by all endpoints
+     */
+    private transient volatile IdOSHttpClient httpClient;
+
     /**
      * ProfileFeaturesTest Endpoint object
      */
-    private ProfileFeatures feature;
+    private volatile ProfileFeatures feature;
 
     /**
      * ProfileGates Endpoint object
      */
-    private ProfileGates gate;
+    private volatile ProfileGates gate;
 
     /**
      * ProfileReferences Endpoint object
      */
-    private ProfileReferences reference;
+    private volatile ProfileReferences reference;
 
     /**
      * ProfileSources Endpoint object
      */
-    private ProfileSources source;
+    private volatile ProfileSources source;
 
     /**
      * ProfileTasks Endpoint object
      */
-    private ProfileTasks task;
+    private volatile ProfileTasks task;
 
     /**
      * ProfileCandidatesTest Endpoint object
      */
-    private ProfileCandidates candidates;
+    private volatile ProfileCandidates candidates;
 
     /**
      * ProfileAttributes Endpoint object
      */
-    private ProfileAttributes attributes;
+    private volatile ProfileAttributes attributes;
 
     /**
      * ProfileScores Endpoint object
      */
-    private ProfileScores score;
+    private volatile ProfileScores score;
     /**
      * ProfileFlagsTest Endpoint object
      */
-    private ProfileFlags flags;
+    private volatile ProfileFlags flags;
 
     /**
      * ProfileRawTest Endpoint object
      */
-    private ProfileRaw raw;
+    private volatile ProfileRaw raw;
 
     /**
      * SSO object
      */
-    private SSO sso;
+    private volatile SSO sso;
 
     /**
      * ProfileProcesses object
      */
-    private ProfileProcesses process;
+    private volatile ProfileProcesses process;
 
     /**
      * ProfileRecommmendation object
      */
-    private ProfileRecommendation recommendation;
+    private volatile ProfileRecommendation recommendation;
 
     /**
      * Profiles object
      */
-    private Profiles profile;
+    private volatile Profiles profile;
+
+    /**
+     * Atomic access to the endpoint fields, so concurrent first calls to a
+     * getter agree on a single endpoint
+     */
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileFeatures> FEATURE =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileFeatures.class, "feature");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileGates> GATE =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileGates.class, "gate");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileReferences> REFERENCE =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileReferences.class, "reference");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileSources> SOURCE =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileSources.class, "source");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileTasks> TASK =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileTasks.class, "task");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileCandidates> CANDIDATES =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileCandidates.class, "candidates");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileAttributes> ATTRIBUTES =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileAttributes.class, "attributes");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileScores> SCORE =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileScores.class, "score");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileFlags> FLAGS =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileFlags.class, "flags");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileRaw> RAW =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileRaw.class, "raw");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, SSO> SSO_ENDPOINT =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, SSO.class, "sso");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileProcesses> PROCESS =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileProcesses.class, "process");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, ProfileRecommendation> RECOMMENDATION =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, ProfileRecommendation.class, "recommendation");
+    private static final AtomicReferenceFieldUpdater<IdOSAPIFactory, Profiles> PROFILE =
+            AtomicReferenceFieldUpdater.newUpdater(IdOSAPIFactory.class, Profiles.class, "profile");
 
     /**
      * Class constructor
@@ -144,6 +199,23 @@ public class IdOSAPIFactory implements Serializable {
         this.doNotCheckSSL = doNotCheckSSLCertificate;
     }
 
+    /**
+     * Class constructor
+     *
+     * @param credentials
+     *            HashMap<String, String>
+     * @param baseURL API URL
+     * @param doNotCheckSSLCertificate whether to disable ssl verification for API requests
+     * @param settings HTTP client settings (connection pool, keep-alive)
+     */
+    public IdOSAPIFactory(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSLCertificate,
+            ClientSettings settings) {
+        this.credentials = credentials;
+        this.baseURL = baseURL;
+        this.doNotCheckSSL = doNotCheckSSLCertificate;
+        this.settings = settings;
+    }
+
     /**
      * Class constructor
      *
@@ -160,6 +232,96 @@ public class IdOSAPIFactory implements Serializable {
         this.credentials = credentials;
     }
 
+    /**
+     * Gets the pooled HTTP client shared by the endpoints, creating it on
+     * first use
+     *
+     * @return IdOSHttpClient
+     */
+    public IdOSHttpClient getHttpClient() {
+        IdOSHttpClient httpClient = this.httpClient;
+        if (httpClient == null) {
+            synchronized (this) {
+                if (this.httpClient == null)
+                    this.httpClient = new IdOSHttpClient(this.settings, this.doNotCheckSSL);
+                httpClient = this.httpClient;
+            }
+        }
+        return httpClient;
+    }
+
+    /**
+     * Creates every endpoint and signs their tokens up front, so the first
+     * requests do not pay for it. Tokens of auth types whose keys are missing
+     * from the credentials are skipped; those endpoints fail on use as usual.
+     *
+     * @return self
+     */
+    public IdOSAPIFactory warmUp() {
+        AbstractEndpoint[] endpoints = { this.getAttribute(), this.getCandidate(), this.getFeature(),
+                this.getFlag(), this.getGate(), this.getProcess(), this.getRaw(), this.getRecommendation(),
+                this.getReference(), this.getProfile(), this.getScore(), this.getSource(), this.getTask(),
+                this.getSSO() };
+
+        TokenCache tokenCache = this.getHttpClient().getTokenCache();
+        EnumSet<IdOSAuthType> authTypes = EnumSet.noneOf(IdOSAuthType.class);
+        for (AbstractEndpoint endpoint : endpoints)
+            if (authTypes.add(endpoint.getAuthType())) {
+                try {
+                    tokenCache.getToken(endpoint.getAuthType(), this.credentials);
+                } catch (InvalidToken e) {
+                    // keys for this auth type were not given
+                }
+            }
+
+        return this;
+    }
+
+    /**
+     * Returns the endpoint held by field, creating it on first use. Racing
+     * first calls may each build an endpoint, but only one is published and
+     * the warm path is a single volatile read.
+     *
+     * @param field
+     *            endpoint field updater
+     * @param constructor
+     *            creates the endpoint for this factory
+     * @return T endpoint
+     */
+    private <T extends AbstractEndpoint> T lazy(AtomicReferenceFieldUpdater<IdOSAPIFactory, T> field,
+            Function<IdOSAPIFactory, T> constructor) {
+        T endpoint;
+        while ((endpoint = field.get(this)) == null)
+            field.compareAndSet(this, null, constructor.apply(this));
+        return endpoint;
+    }
+
+    /**
+     * Releases the pooled connections. Endpoints previously obtained from this
+     * factory must not be used afterwards; new ones are created on demand.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.httpClient != null) {
+            this.httpClient.close();
+            this.httpClient = null;
+        }
+        this.feature = null;
+        this.gate = null;
+        this.reference = null;
+        this.source = null;
+        this.task = null;
+        this.candidates = null;
+        this.attributes = null;
+        this.score = null;
+        this.flags = null;
+        this.raw = null;
+        this.sso = null;
+        this.process = null;
+        this.recommendation = null;
+        this.profile = null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
@@ -183,9 +345,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileCandidate instance
      */
     public ProfileCandidates getCandidate() {
-        if (!(this.candidates instanceof ProfileCandidates))
-            this.candidates = new ProfileCandidates(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.candidates;
+        return this.lazy(CANDIDATES,
+                factory -> new ProfileCandidates(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -194,9 +356,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileAttribute instance
      */
     public ProfileAttributes getAttribute() {
-        if (!(this.attributes instanceof ProfileAttributes))
-            this.attributes = new ProfileAttributes(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.attributes;
+        return this.lazy(ATTRIBUTES,
+                factory -> new ProfileAttributes(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -205,9 +367,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileFeaturesTest instance
      */
     public ProfileFeatures getFeature() {
-        if (!(this.feature instanceof ProfileFeatures))
-            this.feature = new ProfileFeatures(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.feature;
+        return this.lazy(FEATURE,
+                factory -> new ProfileFeatures(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -216,9 +378,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileGates instance
      */
     public ProfileGates getGate() {
-        if (!(this.gate instanceof ProfileGates))
-            this.gate = new ProfileGates(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.gate;
+        return this.lazy(GATE,
+                factory -> new ProfileGates(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -227,9 +389,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileReferences instance
      */
     public ProfileReferences getReference() {
-        if (!(this.reference instanceof ProfileReferences))
-            this.reference = new ProfileReferences(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.reference;
+        return this.lazy(REFERENCE,
+                factory -> new ProfileReferences(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -238,9 +400,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileTasks instance
      */
     public ProfileTasks getTask() {
-        if (!(this.task instanceof ProfileTasks))
-            this.task = new ProfileTasks(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.task;
+        return this.lazy(TASK,
+                factory -> new ProfileTasks(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -249,9 +411,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileScores instance
      */
     public ProfileScores getScore() {
-        if (!(this.score instanceof ProfileScores))
-            this.score = new ProfileScores(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.score;
+        return this.lazy(SCORE,
+                factory -> new ProfileScores(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -260,9 +422,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return ProfileFlagsTest instance
      */
     public ProfileFlags getFlag() {
-        if (!(this.flags instanceof ProfileFlags))
-            this.flags = new ProfileFlags(this.credentials, this.baseURL, this.doNotCheckSSL);
-        return this.flags;
+        return this.lazy(FLAGS,
+                factory -> new ProfileFlags(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -271,10 +433,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return Source instance
      */
     public ProfileSources getSource() {
-        if (!(this.source instanceof ProfileSources)) {
-            this.source = new ProfileSources(this.credentials, this.baseURL, this.doNotCheckSSL);
-        }
-        return this.source;
+        return this.lazy(SOURCE,
+                factory -> new ProfileSources(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -283,10 +444,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return Raw instance
      */
     public ProfileRaw getRaw() {
-        if (!(this.raw instanceof ProfileRaw)) {
-            this.raw = new ProfileRaw(this.credentials, this.baseURL, this.doNotCheckSSL);
-        }
-        return this.raw;
+        return this.lazy(RAW,
+                factory -> new ProfileRaw(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -295,10 +455,8 @@ public class IdOSAPIFactory implements Serializable {
      * @return SSO instance
      */
     public SSO getSSO() {
-        if (!(this.sso instanceof SSO)) {
-            this.sso = new SSO(this.baseURL, this.doNotCheckSSL);
-        }
-        return this.sso;
+        return this.lazy(SSO_ENDPOINT,
+                factory -> new SSO(factory.baseURL, factory.doNotCheckSSL, factory.getHttpClient()));
     }
 
     /**
@@ -307,10 +465,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return Profile Processes instance
      */
     public ProfileProcesses getProcess() {
-        if (!(this.process instanceof ProfileProcesses)) {
-            this.process = new ProfileProcesses(this.credentials, this.baseURL, this.doNotCheckSSL);
-        }
-        return this.process;
+        return this.lazy(PROCESS,
+                factory -> new ProfileProcesses(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -319,11 +476,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return Profile Recommendation instance
      */
     public ProfileRecommendation getRecommendation() {
-        if (!(this.recommendation instanceof ProfileRecommendation)) {
-            this.recommendation = new ProfileRecommendation(this.credentials, this.baseURL, this.doNotCheckSSL);
-        }
-
-        return this.recommendation;
+        return this.lazy(RECOMMENDATION,
+                factory -> new ProfileRecommendation(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
     /**
@@ -332,10 +487,9 @@ public class IdOSAPIFactory implements Serializable {
      * @return Profiles intance
      */
     public Profiles getProfile() {
-        if (!(this.profile instanceof Profiles)) {
-            this.profile = new Profiles(this.credentials, this.baseURL, this.doNotCheckSSL);
-        }
-        return this.profile;
+        return this.lazy(PROFILE,
+                factory -> new Profiles(factory.credentials, factory.baseURL, factory.doNotCheckSSL,
+                        factory.getHttpClient()));
     }
 
 }
@@ -0,0 +1,129 @@
+package com.veridu.idos.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.veridu.idos.utils.Projection;
+
+/**
+ * The default codec, parsing with Gson's streaming JsonReader and writing
+ * like JsonElement.toString()
+ */
+public final class GsonCodec implements JsonCodec, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final GsonCodec INSTANCE = new GsonCodec();
+
+    private static final TypeAdapter<JsonElement> ELEMENT = new Gson().getAdapter(JsonElement.class);
+
+    private GsonCodec() {
+    }
+
+    @Override
+    public JsonObject read(InputStream in, Charset charset, Consumer<JsonObject> itemConsumer) throws IOException {
+        return this.read(in, charset, null, itemConsumer);
+    }
+
+    @Override
+    public JsonObject read(InputStream in, Charset charset, Projection projection, Consumer<JsonObject> itemConsumer)
+            throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, charset));
+        JsonParser parser = new JsonParser();
+        if ((projection == null) && (itemConsumer == null))
+            return parser.parse(reader).getAsJsonObject();
+
+        JsonObject json = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (!name.equals("data")) {
+                json.add(name, parser.parse(reader));
+            } else if ((itemConsumer != null) && (reader.peek() == JsonToken.BEGIN_ARRAY)) {
+                reader.beginArray();
+                while (reader.hasNext())
+                    itemConsumer.accept(readProjected(reader, parser, projection).getAsJsonObject());
+                reader.endArray();
+            } else {
+                json.add(name, readProjected(reader, parser, projection));
+            }
+        }
+        reader.endObject();
+
+        return json;
+    }
+
+    /**
+     * Reads a value, skipping the fields of objects that are not projected
+     *
+     * @param reader
+     * @param parser
+     * @param projection
+     *            null to read the whole value
+     * @return JsonElement value
+     * @throws IOException
+     */
+    private static JsonElement readProjected(JsonReader reader, JsonParser parser, Projection projection)
+            throws IOException {
+        if (projection == null)
+            return parser.parse(reader);
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            JsonArray array = new JsonArray();
+            reader.beginArray();
+            while (reader.hasNext())
+                array.add(readProjected(reader, parser, projection));
+            reader.endArray();
+            return array;
+        }
+        if (token != JsonToken.BEGIN_OBJECT)
+            return parser.parse(reader);
+
+        JsonObject object = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (projection.includes(name))
+                object.add(name, readProjected(reader, parser, projection.nested(name)));
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+
+        return object;
+    }
+
+    @Override
+    public JsonObject parse(String json) {
+        return new JsonParser().parse(json).getAsJsonObject();
+    }
+
+    @Override
+    public void write(JsonElement value, OutputStream out) throws IOException {
+        Utf8Writer utf8 = new Utf8Writer(out);
+        JsonWriter writer = new JsonWriter(utf8);
+        writer.setLenient(true);
+        ELEMENT.write(writer, value);
+        writer.flush();
+        utf8.finish();
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
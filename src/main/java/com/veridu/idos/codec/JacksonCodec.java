@@ -0,0 +1,232 @@
+package com.veridu.idos.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.veridu.idos.utils.Projection;
+
+/**
+ * Codec parsing and writing with jackson-core's streaming parser and
+ * generator, which work on UTF-8 bytes directly instead of decoding to chars
+ * first. Trees are the same Gson trees the default codec builds: numbers are
+ * kept as their literal text, and malformed input raises
+ * JsonSyntaxException. Requires the optional com.fasterxml.jackson.core
+ * jackson-core dependency.
+ */
+public final class JacksonCodec implements JsonCodec, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final JacksonCodec INSTANCE = new JacksonCodec();
+
+    private static final JsonFactory FACTORY = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final JsonPrimitive TRUE = new JsonPrimitive(true);
+
+    private static final JsonPrimitive FALSE = new JsonPrimitive(false);
+
+    private JacksonCodec() {
+    }
+
+    @Override
+    public JsonObject read(InputStream in, Charset charset, Consumer<JsonObject> itemConsumer) throws IOException {
+        return this.read(in, charset, null, itemConsumer);
+    }
+
+    @Override
+    public JsonObject read(InputStream in, Charset charset, Projection projection, Consumer<JsonObject> itemConsumer)
+            throws IOException {
+        JsonParser parser = StandardCharsets.UTF_8.equals(charset) ? FACTORY.createParser(in)
+                : FACTORY.createParser(new InputStreamReader(in, charset));
+        try {
+            return this.read(parser, projection, itemConsumer);
+        } catch (JsonProcessingException e) {
+            throw new JsonSyntaxException(e);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Override
+    public JsonObject parse(String json) {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return this.read(parser, null, null);
+        } catch (JsonProcessingException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Reads the top level response object
+     *
+     * @param parser
+     * @param projection
+     *            fields kept in the data items, null to keep everything
+     * @param itemConsumer
+     *            receives each item of the data array, may be null
+     * @return JsonObject response
+     * @throws IOException
+     */
+    private JsonObject read(JsonParser parser, Projection projection, Consumer<JsonObject> itemConsumer)
+            throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT)
+            throw new JsonSyntaxException("Expected a JSON object but was " + token);
+        if ((projection == null) && (itemConsumer == null))
+            return readObject(parser);
+
+        JsonObject json = new JsonObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            token = parser.nextToken();
+            if (!name.equals("data")) {
+                json.add(name, readValue(parser, token));
+            } else if ((itemConsumer != null) && (token == JsonToken.START_ARRAY)) {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+                    itemConsumer.accept(readProjected(parser, token, projection).getAsJsonObject());
+            } else {
+                json.add(name, readProjected(parser, token, projection));
+            }
+        }
+
+        return json;
+    }
+
+    /**
+     * Reads a value, skipping the fields of objects that are not projected.
+     * Skipped strings and numbers are never decoded.
+     *
+     * @param parser
+     * @param token
+     *            current token
+     * @param projection
+     *            null to read the whole value
+     * @return JsonElement value
+     * @throws IOException
+     */
+    private static JsonElement readProjected(JsonParser parser, JsonToken token, Projection projection)
+            throws IOException {
+        if (projection == null)
+            return readValue(parser, token);
+
+        if (token == JsonToken.START_ARRAY) {
+            JsonArray array = new JsonArray();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+                array.add(readProjected(parser, token, projection));
+            return array;
+        }
+        if (token != JsonToken.START_OBJECT)
+            return readValue(parser, token);
+
+        JsonObject object = new JsonObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            token = parser.nextToken();
+            if (projection.includes(name))
+                object.add(name, readProjected(parser, token, projection.nested(name)));
+            else
+                parser.skipChildren();
+        }
+
+        return object;
+    }
+
+    private static JsonObject readObject(JsonParser parser) throws IOException {
+        JsonObject object = new JsonObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            object.add(name, readValue(parser, parser.nextToken()));
+        }
+
+        return object;
+    }
+
+    private static JsonElement readValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == null)
+            throw new JsonSyntaxException("Unexpected end of input");
+
+        switch (token) {
+        case START_OBJECT:
+            return readObject(parser);
+        case START_ARRAY:
+            JsonArray array = new JsonArray();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+                array.add(readValue(parser, token));
+            return array;
+        case VALUE_STRING:
+            return new JsonPrimitive(parser.getText());
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+            return new JsonPrimitive(new LazilyParsedNumber(parser.getText()));
+        case VALUE_TRUE:
+            return TRUE;
+        case VALUE_FALSE:
+            return FALSE;
+        case VALUE_NULL:
+            return JsonNull.INSTANCE;
+        default:
+            throw new JsonSyntaxException("Unexpected " + token);
+        }
+    }
+
+    @Override
+    public void write(JsonElement value, OutputStream out) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            write(generator, value);
+        }
+    }
+
+    private static void write(JsonGenerator generator, JsonElement value) throws IOException {
+        if ((value == null) || value.isJsonNull()) {
+            generator.writeNull();
+        } else if (value.isJsonObject()) {
+            generator.writeStartObject();
+            for (Map.Entry<String, JsonElement> member : value.getAsJsonObject().entrySet()) {
+                generator.writeFieldName(member.getKey());
+                write(generator, member.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value.isJsonArray()) {
+            generator.writeStartArray();
+            for (JsonElement item : value.getAsJsonArray())
+                write(generator, item);
+            generator.writeEndArray();
+        } else {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isString())
+                generator.writeString(primitive.getAsString());
+            else if (primitive.isBoolean())
+                generator.writeBoolean(primitive.getAsBoolean());
+            else
+                generator.writeNumber(primitive.getAsNumber().toString());
+        }
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,85 @@
+package com.veridu.idos.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.veridu.idos.utils.Projection;
+
+/**
+ * Parses and serializes the JSON exchanged with the API. Endpoints expose
+ * Gson trees, so a codec only replaces the engine reading and writing them.
+ * Implementations must be thread safe, and Serializable when the
+ * ClientSettings holding them are serialized.
+ */
+public interface JsonCodec {
+
+    /**
+     * Parses a response body. When an item consumer is given, the elements
+     * of the top level "data" array are handed to it one by one instead of
+     * being collected into the returned object.
+     *
+     * @param in
+     *            response body, not closed
+     * @param charset
+     *            body charset
+     * @param itemConsumer
+     *            receives each item of the data array, may be null
+     * @return JsonObject response
+     * @throws IOException
+     */
+    JsonObject read(InputStream in, Charset charset, Consumer<JsonObject> itemConsumer) throws IOException;
+
+    /**
+     * Parses a response body, keeping only the projected fields of the data
+     * items. The default implementation parses the whole body and projects
+     * the tree; codecs should override it to skip unwanted values while
+     * parsing.
+     *
+     * @param in
+     *            response body, not closed
+     * @param charset
+     *            body charset
+     * @param projection
+     *            fields kept in the data items, null to keep everything
+     * @param itemConsumer
+     *            receives each item of the data array, may be null
+     * @return JsonObject response
+     * @throws IOException
+     */
+    default JsonObject read(InputStream in, Charset charset, Projection projection, Consumer<JsonObject> itemConsumer)
+            throws IOException {
+        if (projection == null)
+            return this.read(in, charset, itemConsumer);
+        if (itemConsumer != null)
+            return this.read(in, charset, item -> itemConsumer.accept(projection.apply(item).getAsJsonObject()));
+
+        JsonObject json = this.read(in, charset, null);
+        if (json.has("data"))
+            json.add("data", projection.apply(json.get("data")));
+
+        return json;
+    }
+
+    /**
+     * Parses a JSON object
+     *
+     * @param json
+     * @return JsonObject object
+     */
+    JsonObject parse(String json);
+
+    /**
+     * Writes a value as UTF-8 JSON, nulls included
+     *
+     * @param value
+     * @param out
+     *            not closed
+     * @throws IOException
+     */
+    void write(JsonElement value, OutputStream out) throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.veridu.idos.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer encoding UTF-8 into a chunk flushed to the underlying stream,
+ * replacing unpaired surrogates with '?' like String.getBytes()
+ */
+final class Utf8Writer extends Writer {
+
+    private final OutputStream out;
+
+    private final byte[] bytes = new byte[4096];
+
+    private int length;
+
+    /**
+     * High surrogate waiting for its low surrogate, or 0
+     */
+    private char highSurrogate;
+
+    Utf8Writer(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        this.encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int count) throws IOException {
+        for (int i = offset; i < offset + count; i++)
+            this.encode(chars[i]);
+    }
+
+    @Override
+    public void write(String string, int offset, int count) throws IOException {
+        for (int i = offset; i < offset + count; i++)
+            this.encode(string.charAt(i));
+    }
+
+    private void encode(char c) throws IOException {
+        if (this.length + 4 > this.bytes.length)
+            this.flush();
+
+        if (this.highSurrogate != 0) {
+            char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int code = Character.toCodePoint(high, c);
+                this.bytes[this.length++] = (byte) (0xf0 | (code >> 18));
+                this.bytes[this.length++] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                this.bytes[this.length++] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                this.bytes[this.length++] = (byte) (0x80 | (code & 0x3f));
+                return;
+            }
+            this.bytes[this.length++] = '?';
+        }
+
+        if (c < 0x80) {
+            this.bytes[this.length++] = (byte) c;
+        } else if (c < 0x800) {
+            this.bytes[this.length++] = (byte) (0xc0 | (c >> 6));
+            this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            this.bytes[this.length++] = '?';
+        } else {
+            this.bytes[this.length++] = (byte) (0xe0 | (c >> 12));
+            this.bytes[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    /**
+     * Replaces a trailing unpaired high surrogate and flushes the chunk
+     *
+     * @throws IOException
+     */
+    void finish() throws IOException {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            this.encode('?');
+        }
+        this.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.write(this.bytes, 0, this.length);
+        this.length = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.finish();
+    }
+}
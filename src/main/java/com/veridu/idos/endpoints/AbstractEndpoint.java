@@ -3,52 +3,115 @@ package com.veridu.idos.endpoints;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.veridu.idos.codec.JsonCodec;
+import com.veridu.idos.exceptions.DeadlineExceededException;
 import com.veridu.idos.exceptions.InvalidToken;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.TransportException;
+import com.veridu.idos.exceptions.UncheckedSDKException;
+import com.veridu.idos.settings.ClientSettings;
+import com.veridu.idos.settings.HedgePolicy;
+import com.veridu.idos.settings.RetryPolicy;
+import com.veridu.idos.utils.CircuitBreaker;
+import com.veridu.idos.utils.ConcurrencyLimiter;
+import com.veridu.idos.utils.Deadline;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
-import com.veridu.idos.utils.IdOSUtils;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.LatencyTracker;
+import com.veridu.idos.utils.Projection;
+import com.veridu.idos.utils.RateLimiter;
+import com.veridu.idos.utils.RetryBudget;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.nio.entity.NByteArrayEntity;
 
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public abstract class AbstractEndpoint implements Serializable {
+/**
+ * Base class of the API endpoints. Endpoints are safe for concurrent use once
+ * configured: every request reads an immutable AuthContext from the shared
+ * token cache instead of mutating endpoint state, and withAuthType() gives a
+ * view of the same endpoint authorizing with another IdOSAuthType. That view
+ * is the thread-safe way to change the authorization of a call; the deprecated
+ * setters mutate an endpoint every thread shares and must not be called while
+ * it is in use.
+ */
+public abstract class AbstractEndpoint implements Serializable, Cloneable {
+
+    /**
+     * Raises the API error carried by a response
+     */
+    @FunctionalInterface
+    private interface ResponseCheck<T> {
+        T check(T response) throws SDKException;
+    }
+
+    /**
+     * Sends one attempt of a request
+     */
+    @FunctionalInterface
+    private interface Sender<T> {
+        T send(Attempt attempt) throws SDKException;
+    }
 
     private static final boolean DEBUG = false;
 
     /**
      * base API URL
      */
-    private String baseURL;
+    private volatile String baseURL;
 
     /**
      * Flag to disable ssl checking
      */
-    private boolean doNotCheckSSLCertificate = false;
+    private volatile boolean doNotCheckSSLCertificate = false;
 
     /**
      * IdOSAuthType (USER, HANDLER, MANAGEMENT)
      */
-    protected IdOSAuthType authType = null;
+    protected volatile IdOSAuthType authType = null;
 
     /**
      * Company's slug necessary to make most of requests to the API
@@ -59,40 +122,39 @@ public abstract class AbstractEndpoint implements Serializable {
      * Last API response code
      */
     private int lastCode;
-    /**
-     * Token necessary to make requests to the API
-     */
-    private String currentToken = null;
     /**
      * Keys (public and private) necessary to generate UserToken,
-     * CredentialToken, IdentityToken
+     * CredentialToken, IdentityToken. Copied, never modified.
      */
-    private HashMap<String, String> credentials;
+    private volatile Map<String, String> credentials;
 
     /**
-     * trustmanager for disabling ssl checking
+     * Pooled HTTP client shared with the other endpoints of the factory
      */
-    private static final TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
-        public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-            return null;
-        }
-
-        public void checkClientTrusted(X509Certificate[] certs, String authType) {
-        }
-
-        public void checkServerTrusted(X509Certificate[] certs, String authType) {
-        }
-    } };
+    private transient IdOSHttpClient httpClient;
 
     /**
      * Class constructor
      */
     public AbstractEndpoint(HashMap<String, String> credentials, IdOSAuthType authType, String baseURL,
             boolean doNotCheckSSLCertificate) {
-        this.credentials = credentials;
+        this(credentials, authType, baseURL, doNotCheckSSLCertificate, null);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param httpClient
+     *            pooled client shared by the factory, or null to use the
+     *            process wide default client
+     */
+    public AbstractEndpoint(HashMap<String, String> credentials, IdOSAuthType authType, String baseURL,
+            boolean doNotCheckSSLCertificate, IdOSHttpClient httpClient) {
+        this.credentials = copyCredentials(credentials);
         this.authType = authType;
         this.baseURL = baseURL;
         this.doNotCheckSSLCertificate = doNotCheckSSLCertificate;
+        this.httpClient = httpClient;
     }
 
     /**
@@ -144,32 +206,330 @@ public abstract class AbstractEndpoint implements Serializable {
         return response;
     }
 
+    /**
+     * Fetches an API Resource, keeping only the projected fields of the items
+     * of the response data
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @param data
+     *            JsonObject
+     * @param filter
+     *            Filter, may be null
+     * @param projection
+     *            Projection, may be null
+     * @throws SDKException
+     */
+    protected JsonObject fetch(String method, String resource, JsonObject data, Filter filter, Projection projection)
+            throws SDKException {
+        String url = this.transformURL(method, resource, filter);
+
+        return this.request(method, url, data, filter, projection);
+    }
+
+    /**
+     * Fetches a listing API Resource, handing each item of the data array to
+     * the item consumer as soon as it is parsed instead of collecting the
+     * items. Pages are requested one after the other when the filter asks for
+     * all pages.
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @param filter
+     *            Filter, never modified
+     * @param itemConsumer
+     *            receives each item of the data array
+     * @return JsonObject last response, without its data array
+     * @throws SDKException
+     */
+    protected JsonObject fetchEach(String method, String resource, Filter filter, Consumer<JsonObject> itemConsumer)
+            throws SDKException {
+        String url = this.transformURL(method, resource, filter);
+        return Deadline.callWithin(this.getHttpClient().getSettings().getTotalTimeoutMillis(), () -> {
+            JsonObject json = this.sendRequest(method, url, null, itemConsumer);
+            if ((filter != null) && (filter.getAllPagesTrue())) {
+                JsonObject pagination = json.get("pagination").getAsJsonObject();
+                int total = pagination.get("total").getAsInt();
+                for (int page = pagination.get("current_page").getAsInt() + 1; page <= total; page++)
+                    json = this.sendRequest(method, pageURL(url, filter, page), null, itemConsumer);
+            }
+
+            return json;
+        });
+    }
+
+    /**
+     * Fetches a listing API Resource, decoding the items of the data array
+     * straight from the response stream with the model adapter. Pages are
+     * requested one after the other when the filter asks for all pages.
+     *
+     * @param resource
+     *            String
+     * @param filter
+     *            Filter, may be null, never modified
+     * @param adapter
+     *            model TypeAdapter
+     * @return List<T> items of the data array
+     * @throws SDKException
+     */
+    protected <T> List<T> fetchList(String resource, Filter filter, TypeAdapter<T> adapter) throws SDKException {
+        String url = this.transformURL("GET", resource, filter);
+        ModelResponseHandler<T> handler = new ModelResponseHandler<>(adapter);
+        return Deadline.callWithin(this.getHttpClient().getSettings().getTotalTimeoutMillis(), () -> {
+            ModelResponse<T> response = this.send("GET", url, null, handler, this::handleModelResponse, true,
+                    adapter);
+            List<T> items = (response.items == null) ? new ArrayList<>() : new ArrayList<>(response.items);
+            if ((filter != null) && (filter.getAllPagesTrue())) {
+                for (int page = response.currentPage + 1; page <= response.lastPage; page++) {
+                    response = this.send("GET", pageURL(url, filter, page), null, handler,
+                            this::handleModelResponse, true, adapter);
+                    if (response.items != null)
+                        items.addAll(response.items);
+                }
+            }
+
+            return items;
+        });
+    }
+
+    /**
+     * Fetches a single API Resource, decoding the data object straight from
+     * the response stream with the model adapter
+     *
+     * @param resource
+     *            String
+     * @param adapter
+     *            model TypeAdapter
+     * @return T model, null if the response carries no data object
+     * @throws SDKException
+     */
+    protected <T> T fetchModel(String resource, TypeAdapter<T> adapter) throws SDKException {
+        String url = this.transformURL("GET", resource, null);
+        ModelResponse<T> response = this.send("GET", url, null, new ModelResponseHandler<>(adapter),
+                this::handleModelResponse, true, adapter);
+
+        return response.item;
+    }
+
+    /**
+     * Streams the items of a paginated API Resource. Pages are requested on
+     * demand while the stream is consumed, so memory use does not grow with
+     * the size of the result set. An SDKException raised while fetching a page
+     * is rethrown as an UncheckedSDKException.
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @param filter
+     *            Filter, never modified
+     * @return Stream<JsonObject> items of the data array of every page
+     */
+    protected Stream<JsonObject> stream(String method, String resource, Filter filter) {
+        PageIterator iterator = new PageIterator(this, method, this.transformURL(method, resource, null), filter);
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     private String transformURL(String method, String resource, Filter filter) {
-        String url = this.baseURL;
+        String baseURL = this.baseURL;
+        String query = (filter == null) ? "" : filter.toString();
+
+        StringBuilder url = new StringBuilder(baseURL.length() + resource.length() + query.length() + 2);
+        url.append(baseURL);
         if (resource.charAt(0) != '/')
-            url = url.concat("/");
-        url = url.concat(resource);
-        if (filter != null)
-            if (filter.toString().isEmpty() == false)
-                url += "?" + filter.toString();
+            url.append('/');
+        url.append(resource);
+        if (!query.isEmpty())
+            url.append('?').append(query);
+
+        return url.toString();
+    }
+
+    /**
+     * Fetches an API Resource without blocking
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @return CompletableFuture<JsonObject> response
+     */
+    protected CompletableFuture<JsonObject> fetchAsync(String method, String resource) {
+        return this.fetchAsync(method, resource, null, null);
+    }
 
-        return url;
+    /**
+     * Fetches an API Resource without blocking
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @param data
+     *            JsonObject
+     * @return CompletableFuture<JsonObject> response
+     */
+    protected CompletableFuture<JsonObject> fetchAsync(String method, String resource, JsonObject data) {
+        return this.fetchAsync(method, resource, data, null);
     }
 
-    private String transformURL(String url, Filter filter) {
-        if (filter != null)
-            url += "?" + filter.toString();
+    /**
+     * Fetches an API Resource without blocking: the request is sent by the
+     * non-blocking client of the route bulkhead, and the returned future is
+     * completed from its callback, so no thread waits for the response. The
+     * request goes through the rate limiter, the circuit breaker, the
+     * concurrency limiter and the RetryPolicy as a blocking one does, waiting
+     * for them on the client scheduler, within the client total timeout or
+     * the Deadline of the calling thread if sooner. Asynchronous requests are
+     * neither hedged nor coalesced.
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @param data
+     *            JsonObject, may be null
+     * @param filter
+     *            Filter, may be null
+     * @return CompletableFuture<JsonObject> response, completed exceptionally
+     *         with the SDKException the request failed with
+     */
+    protected CompletableFuture<JsonObject> fetchAsync(String method, String resource, JsonObject data,
+            Filter filter) {
+        String url = this.transformURL(method, resource, filter);
+        Deadline deadline = Deadline.within(this.getHttpClient().getSettings().getTotalTimeoutMillis());
+        byte[] body = null;
+        if (data != null) {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                this.getJsonCodec().write(data, out);
+                body = out.toByteArray();
+            } catch (IOException e) {
+                CompletableFuture<JsonObject> failed = new CompletableFuture<>();
+                failed.completeExceptionally(
+                        new SDKException("Could not serialize the request body: " + e.getMessage()));
+                return failed;
+            }
+        }
 
-        return url;
+        CompletableFuture<JsonObject> first = new AsyncExchange(method, url, body, deadline).send();
+        if ((filter == null) || !filter.getAllPagesTrue())
+            return first;
+
+        final byte[] pageBody = body;
+        return first.thenCompose(json -> this.requestAllPagesAsync(method, url, pageBody, filter, deadline, json));
     }
 
     /**
-     * Regenerate the token
+     * Requests the pages after the first one of a listing without blocking,
+     * at most filter.getPageParallelism() at a time, and reassembles them in
+     * order
+     *
+     * @param method
+     * @param url
+     * @param body
+     * @param filter
+     * @param deadline
+     * @param first
+     *            first page response, revealing the page count
+     * @return CompletableFuture<JsonObject> first page response holding the
+     *         data of every page
+     */
+    private CompletableFuture<JsonObject> requestAllPagesAsync(String method, String url, byte[] body,
+            Filter filter, Deadline deadline, JsonObject first) {
+        JsonObject json = copyOf(first);
+        JsonObject pagination = copyOf(json.get("pagination").getAsJsonObject());
+        json.add("pagination", pagination);
+        int currentPage = pagination.get("current_page").getAsInt();
+        int total = pagination.get("total").getAsInt();
+
+        JsonArray[] pages = new JsonArray[Math.max(0, total - currentPage)];
+        AtomicInteger next = new AtomicInteger(currentPage + 1);
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.max(1,
+                Math.min(filter.getPageParallelism(), pages.length))];
+        for (int lane = 0; lane < lanes.length; lane++)
+            lanes[lane] = this.requestPagesAsync(method, url, body, filter, deadline, next, currentPage, pages);
+
+        return CompletableFuture.allOf(lanes).thenApply(done -> {
+            JsonArray array = new JsonArray();
+            array.addAll(first.get("data").getAsJsonArray());
+            for (JsonArray page : pages)
+                array.addAll(page);
+            json.add("data", array);
+            pagination.addProperty("current_page", total);
+            return json;
+        });
+    }
+
+    /**
+     * Requests the next pages of a listing one after the other until there
+     * is none left, or until a page fails
+     *
+     * @param method
+     * @param url
+     * @param body
+     * @param filter
+     * @param deadline
+     * @param next
+     *            next page to request, shared by the lanes
+     * @param currentPage
+     *            page of the first response
+     * @param pages
+     *            data of the pages after the first one
+     * @return CompletableFuture<Void> completed once this lane is done
+     */
+    private CompletableFuture<Void> requestPagesAsync(String method, String url, byte[] body, Filter filter,
+            Deadline deadline, AtomicInteger next, int currentPage, JsonArray[] pages) {
+        int page = next.getAndIncrement();
+        if (page > currentPage + pages.length)
+            return CompletableFuture.completedFuture(null);
+
+        return new AsyncExchange(method, pageURL(url, filter, page), body, deadline).send().thenCompose(json -> {
+            pages[page - currentPage - 1] = json.get("data").getAsJsonArray();
+            return this.requestPagesAsync(method, url, body, filter, deadline, next, currentPage, pages);
+        }).whenComplete((done, e) -> {
+            // the other lanes stop after their current page
+            if (e != null)
+                next.set(currentPage + pages.length + 1);
+        });
+    }
+
+    /**
+     * Regenerate the token, replacing it in the shared token cache
      *
      * @throws InvalidToken
      */
     public void refreshToken() throws InvalidToken {
-        this.generateAuthToken();
+        this.getHttpClient().getTokenCache().refresh(this.authType, this.credentials);
+    }
+
+    /**
+     * Returns a view of this endpoint authorizing its requests with the given
+     * IdOSAuthType. The view shares the credentials, the http client and the
+     * token cache, so it is cheap enough to create per call.
+     *
+     * @param authType
+     *            IdOSAuthType
+     * @return T endpoint of the same class
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractEndpoint> T withAuthType(IdOSAuthType authType) {
+        if (authType == this.authType)
+            return (T) this;
+
+        try {
+            AbstractEndpoint view = (AbstractEndpoint) this.clone();
+            view.authType = authType;
+            return (T) view;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
     }
 
     /**
@@ -187,29 +547,147 @@ public abstract class AbstractEndpoint implements Serializable {
      *             Exception
      */
     public JsonObject request(String method, String url, JsonObject data, Filter filter) throws SDKException {
-        JsonObject json = new JsonObject();
-        JsonArray array = new JsonArray();
-        if (this.currentToken == null)
-            this.generateAuthToken();
-        if ((filter != null) && (filter.getAllPagesTrue())) {
-            String newUrl = "";
+        return this.request(method, url, data, filter, null);
+    }
+
+    /**
+     * Process request to API, keeping only the projected fields of the items
+     * of the response data
+     *
+     * @param method
+     * @param url
+     * @param data
+     * @param filter
+     * @param projection
+     *            may be null
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    private JsonObject request(String method, String url, JsonObject data, Filter filter, Projection projection)
+            throws SDKException {
+        if ((filter == null) || !filter.getAllPagesTrue())
+            return this.sendProjected(method, url, data, projection);
+
+        return Deadline.callWithin(this.getHttpClient().getSettings().getTotalTimeoutMillis(), () -> {
+            if (filter.getPageParallelism() > 1)
+                return this.requestAllPagesInParallel(method, url, data, filter, projection);
+
+            JsonObject json;
+            JsonArray array = new JsonArray();
+            String pageUrl = url;
             do {
-                if (newUrl.length() != 0)
-                    json = this.sendRequest(method, newUrl, data);
-                else
-                    json = this.sendRequest(method, url, data);
+                json = this.sendProjected(method, pageUrl, data, projection);
                 array.addAll(json.get("data").getAsJsonArray());
                 int page = json.get("pagination").getAsJsonObject().get("current_page").getAsInt() + 1;
-                filter.addFilterByKeyName("page", String.valueOf(page));
-                newUrl = this.transformURL(url, filter);
+                pageUrl = pageURL(url, filter, page);
             } while (json.get("pagination").getAsJsonObject().get("current_page").getAsInt() < json.get("pagination")
                     .getAsJsonObject().get("total").getAsInt());
+            json = copyOf(json);
             json.add("data", array);
             return json;
+        });
+    }
+
+    /**
+     * Requests every page of a listing. The first page reveals the page count,
+     * the remaining pages are then requested concurrently (at most
+     * filter.getPageParallelism() at a time) and reassembled in order.
+     *
+     * @param method
+     *            String
+     * @param url
+     *            String
+     * @param data
+     *            JsonObject
+     * @param filter
+     *            Filter
+     * @param projection
+     *            Projection, may be null
+     * @return JsonObject first page response holding the data of every page
+     * @throws SDKException
+     */
+    private JsonObject requestAllPagesInParallel(final String method, String url, final JsonObject data,
+            Filter filter, final Projection projection) throws SDKException {
+        JsonObject json = copyOf(this.sendProjected(method, url, data, projection));
+        JsonArray array = new JsonArray();
+        array.addAll(json.get("data").getAsJsonArray());
+        json.add("data", array);
+        JsonObject pagination = copyOf(json.get("pagination").getAsJsonObject());
+        json.add("pagination", pagination);
+        int currentPage = pagination.get("current_page").getAsInt();
+        int total = pagination.get("total").getAsInt();
+
+        ExecutorService executor = this.getHttpClient().getPageExecutor();
+        final Deadline deadline = Deadline.current();
+        final Semaphore permits = new Semaphore(filter.getPageParallelism());
+        List<CompletableFuture<JsonObject>> pages = new ArrayList<>();
+        try {
+            for (int page = currentPage + 1; page <= total; page++) {
+                permits.acquire();
+                final String pageUrl = pageURL(url, filter, page);
+                pages.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return Deadline.callWith(deadline,
+                                () -> this.sendProjected(method, pageUrl, data, projection));
+                    } catch (SDKException e) {
+                        throw new UncheckedSDKException(e);
+                    } finally {
+                        permits.release();
+                    }
+                }, executor));
+            }
+            for (CompletableFuture<JsonObject> page : pages)
+                array.addAll(page.join().get("data").getAsJsonArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SDKException("Interrupted while requesting pages");
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedSDKException)
+                throw ((UncheckedSDKException) e.getCause()).getCause();
+            throw e;
+        } finally {
+            for (CompletableFuture<JsonObject> page : pages)
+                page.cancel(false);
         }
 
-        return this.sendRequest(method, url, data);
+        pagination.addProperty("current_page", total);
+        return json;
+    }
+
+    /**
+     * Copies the members of a response, so that assembling pages never
+     * modifies a response shared by coalesced requests
+     *
+     * @param json
+     * @return JsonObject shallow copy
+     */
+    private static JsonObject copyOf(JsonObject json) {
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> member : json.entrySet())
+            copy.add(member.getKey(), member.getValue());
+        return copy;
+    }
+
+    /**
+     * Builds the URL of the given page, leaving the caller's filter untouched
+     *
+     * @param url
+     *            resource URL, with or without query string
+     * @param filter
+     *            Filter, may be null
+     * @param page
+     *            page number
+     * @return String page URL
+     */
+    static String pageURL(String url, Filter filter, int page) {
+        int query = url.indexOf('?');
+        if (query != -1)
+            url = url.substring(0, query);
+
+        if (filter == null)
+            return url + "?page=" + page;
 
+        return url + "?" + filter.toPageQueryString(page);
     }
 
     /**
@@ -243,11 +721,35 @@ public abstract class AbstractEndpoint implements Serializable {
     private JsonObject handleAPIresponse(JsonObject apiResponse) throws SDKException {
         if (isAPIResponseStatusTrue(apiResponse))
             return apiResponse;
-        else {
-            JsonObject apiError = getAPIJSONError(apiResponse);
-            throw new SDKException(apiError.get("message").getAsString(), apiError.get("type").getAsString(),
-                    apiError.get("link").getAsString(), apiError.get("code").getAsInt());
-        }
+        else
+            throw this.toSDKException(getAPIJSONError(apiResponse));
+    }
+
+    /**
+     * Returns a model response if status true or throws SDKException
+     *
+     * @param response
+     * @return ModelResponse<T> response
+     * @throws SDKException
+     */
+    private <T> ModelResponse<T> handleModelResponse(ModelResponse<T> response) throws SDKException {
+        if (response.status)
+            return response;
+        if (response.error == null)
+            throw new SDKException("API response status is false");
+
+        throw this.toSDKException(response.error);
+    }
+
+    /**
+     * Builds the SDKException described by an api error
+     *
+     * @param apiError
+     * @return SDKException exception
+     */
+    private SDKException toSDKException(JsonObject apiError) {
+        return new SDKException(apiError.get("message").getAsString(), apiError.get("type").getAsString(),
+                apiError.get("link").getAsString(), apiError.get("code").getAsInt());
     }
 
     /**
@@ -260,83 +762,506 @@ public abstract class AbstractEndpoint implements Serializable {
      * @throws SDKException
      */
     protected JsonObject sendRequest(String method, String url, JsonObject data) throws SDKException {
-        final String authHeader = "Authorization";
-        String credential = null;
-
-        switch (this.authType) {
-        case HANDLER:
-            credential = "CredentialToken " + this.currentToken;
-            break;
-        case USER:
-            credential = "UserToken " + this.currentToken;
-            break;
-        case IDENTITY:
-            credential = "IdentityToken " + this.currentToken;
-            break;
-        case NONE:
-            break;
-        default:
-            throw new SDKException("Invalid credentials.");
+        return this.sendRequest(method, url, data, null);
+    }
+
+    /**
+     * Sends the request, keeping only the projected fields of the items of
+     * the response data
+     *
+     * @param method
+     * @param url
+     * @param data
+     * @param projection
+     *            may be null
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    private JsonObject sendProjected(String method, String url, JsonObject data, Projection projection)
+            throws SDKException {
+        if (projection == null)
+            return this.sendRequest(method, url, data);
+
+        return this.sendRequest(method, url, data, projection, null);
+    }
+
+    /**
+     * Sends the request, parsing the response straight from the HTTP entity
+     * stream. When the API rejects the token, it is re-signed once and the
+     * request is replayed.
+     *
+     * @param method
+     * @param url
+     * @param data
+     * @param itemConsumer
+     *            receives each item of the response data array instead of it
+     *            being kept in the returned object, may be null
+     * @return
+     * @throws SDKException
+     */
+    protected JsonObject sendRequest(String method, String url, JsonObject data, Consumer<JsonObject> itemConsumer)
+            throws SDKException {
+        return this.sendRequest(method, url, data, null, itemConsumer);
+    }
+
+    /**
+     * Sends the request, parsing the response straight from the HTTP entity
+     * stream and skipping the fields of the data items that are not
+     * projected. When the API rejects the token, it is re-signed once and the
+     * request is replayed.
+     *
+     * @param method
+     * @param url
+     * @param data
+     * @param projection
+     *            fields kept in the data items, may be null
+     * @param itemConsumer
+     *            receives each item of the response data array instead of it
+     *            being kept in the returned object, may be null
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    protected JsonObject sendRequest(String method, String url, JsonObject data, Projection projection,
+            Consumer<JsonObject> itemConsumer) throws SDKException {
+        JsonCodec codec = this.getJsonCodec();
+        HttpEntity body = null;
+        if (data != null) {
+            try {
+                body = new JsonEntity(data, codec);
+            } catch (IOException e) {
+                throw new SDKException("Could not serialize the request body: " + e.getMessage());
+            }
         }
 
+        return this.send(method, url, body, new JsonResponseHandler(codec, projection, itemConsumer),
+                this::handleAPIresponse, itemConsumer == null, projection);
+    }
+
+    /**
+     * Sends a request and returns the response body as it was received,
+     * without parsing it. Only an error response is parsed, to raise its
+     * SDKException. A filter asking for all pages is ignored: one page is
+     * returned per call.
+     *
+     * @param method
+     *            String
+     * @param resource
+     *            String
+     * @param filter
+     *            Filter, may be null
+     * @param body
+     *            serialized JSON request body, may be null
+     * @return RawResponse
+     * @throws SDKException
+     */
+    public RawResponse requestRaw(String method, String resource, Filter filter, byte[] body) throws SDKException {
+        HttpEntity entity = (body == null) ? null : new ByteArrayEntity(body, ContentType.APPLICATION_JSON);
+
+        return this.send(method, this.transformURL(method, resource, filter), entity, new RawResponseHandler(),
+                this::handleRawResponse, true, RawResponse.class);
+    }
+
+    /**
+     * Sends the request. When the API rejects the token, it is re-signed once
+     * and the request is replayed. Failures deemed retryable by the client
+     * RetryPolicy are retried after a jittered backoff, as long as the method
+     * is idempotent (or carries an idempotency key), the request is
+     * replayable and the client retry budget allows it. Every attempt waits
+     * for the rate limiter of the credential and goes through the circuit
+     * breaker of the endpoint route. GET requests of the routes of the client
+     * HedgePolicy are hedged. When the client coalesces reads, a GET request
+     * identical to one in flight (same URL, token and decoding) waits for it,
+     * up to its own deadline, and returns the same response. The shared
+     * request is bounded by the client total timeout only, so a caller giving
+     * up early does not fail the others.
+     *
+     * @param method
+     * @param url
+     * @param body
+     *            request body, may be null
+     * @param handler
+     *            reads the HTTP response
+     * @param check
+     *            raises the API error carried by the response
+     * @param replayable
+     *            false if a failed attempt may have had side effects on the
+     *            caller, e.g. items already passed to a consumer
+     * @param decoding
+     *            tells apart responses decoded differently, e.g. the
+     *            projection, when coalescing identical GET requests
+     * @return T response
+     * @throws SDKException
+     */
+    private <T> T send(String method, String url, HttpEntity body, ResponseHandler<T> handler,
+            ResponseCheck<T> check, boolean replayable, Object decoding) throws SDKException {
+        IdOSHttpClient client = this.getHttpClient();
+        ClientSettings settings = client.getSettings();
+        if (replayable && (body == null) && "GET".equals(method) && settings.getCoalesceReads()) {
+            AuthContext auth = this.createAuthContext();
+            List<Object> key = Arrays.asList(url, auth.getAuthType(), auth.getToken(), decoding);
+            return Deadline.callWithin(settings.getTotalTimeoutMillis(),
+                    () -> client.getRequestCoalescer().execute(key, () -> Deadline.callWithin(
+                            settings.getTotalTimeoutMillis(),
+                            () -> this.sendWithRetries(method, url, null, handler, check, true))));
+        }
+
+        return Deadline.callWithin(settings.getTotalTimeoutMillis(),
+                () -> this.sendWithRetries(method, url, body, handler, check, replayable));
+    }
+
+    /**
+     * Sends the request, retrying it as allowed by the client RetryPolicy
+     *
+     * @param method
+     * @param url
+     * @param body
+     * @param handler
+     * @param check
+     * @param replayable
+     * @return T response
+     * @throws SDKException
+     */
+    private <T> T sendWithRetries(String method, String url, HttpEntity body, ResponseHandler<T> handler,
+            ResponseCheck<T> check, boolean replayable) throws SDKException {
+        IdOSHttpClient client = this.getHttpClient();
+        RetryPolicy policy = client.getSettings().getRetryPolicy();
+        RetryBudget budget = client.getRetryBudget();
+        CircuitBreaker breaker = client.getCircuitBreaker(this.getRoute());
+        RateLimiter limiter = client.getRateLimiter(
+                (this.credentials == null) ? null : this.credentials.get("credentialPublicKey"), this.getRoute());
+        ResponseHandler<T> observed = response -> {
+            limiter.observe(response);
+            return handler.handleResponse(response);
+        };
+        budget.deposit();
+
+        boolean retryable = replayable && policy.allowsRetry(method) && ((body == null) || body.isRepeatable());
+        String idempotencyKey = null;
+        if (retryable && policy.requiresIdempotencyKey(method))
+            idempotencyKey = UUID.randomUUID().toString();
+
+        HedgePolicy hedgePolicy = client.getSettings().getHedgePolicy();
+        boolean hedged = replayable && hedgePolicy.appliesTo(method, this.getRoute());
+        final String key = idempotencyKey;
+        Sender<T> sender = attempt -> this.sendGuarded(limiter, breaker, method, url, body, observed, check, attempt);
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                if (hedged)
+                    return this.sendHedged(sender, hedgePolicy);
+                return sender.send(new Attempt(key));
+            } catch (SDKException e) {
+                long backoff = policy.backoffMillis(attempt);
+                // no retry the deadline would cut short
+                if (!retryable || (attempt >= policy.getMaxAttempts()) || !policy.isRetryable(e)
+                        || (Deadline.capMillis(backoff) < backoff) || !budget.tryWithdraw())
+                    throw e;
+                this.backOff(backoff, e);
+            }
+        }
+    }
+
+    /**
+     * Sends the request once the circuit breaker, the rate limiter and the
+     * concurrency limiter of the route bulkhead allow it, in that order, so an
+     * open breaker fails fast without waiting for the limiters, and a request
+     * held back by its rate limiter does not hold a slot the other routes of
+     * the bulkhead need, and records its outcome. Cancelled hedges and errors raised outside the SDK give
+     * their breaker permission back instead of recording an outcome.
+     *
+     * @param limiter
+     * @param breaker
+     * @param method
+     * @param url
+     * @param body
+     * @param handler
+     * @param check
+     * @param attempt
+     * @return T response
+     * @throws SDKException
+     *             CircuitOpenException if the breaker is open,
+     *             ConcurrencyLimitException or RateLimitedException if no
+     *             permit is given in time
+     */
+    private <T> T sendGuarded(RateLimiter limiter, CircuitBreaker breaker, String method, String url,
+            HttpEntity body, ResponseHandler<T> handler, ResponseCheck<T> check, Attempt attempt)
+            throws SDKException {
+        ConcurrencyLimiter concurrency = this.getHttpClient().getBulkhead(this.getRoute()).getConcurrencyLimiter();
+        Deadline.check();
+        breaker.acquire();
         try {
-            HttpResponse httpRes = null;
+            limiter.acquire();
+            concurrency.acquire();
+        } catch (SDKException e) {
+            breaker.release();
+            throw e;
+        }
 
-            SSLContext sc = null;
-            CloseableHttpClient httpClient = null;
+        long start = System.nanoTime();
+        boolean completed = false;
+        SDKException failure = null;
+        try {
+            T response = this.sendAuthorized(method, url, body, handler, check, attempt);
+            completed = true;
+            return response;
+        } catch (SDKException e) {
+            completed = true;
+            failure = e;
+            throw e;
+        } finally {
+            // an aborted hedge says nothing about the health of the API
+            this.recordOutcome(breaker, concurrency, completed && !attempt.isCancelled(), failure,
+                    System.nanoTime() - start);
+        }
+    }
 
-            if (doNotCheckSSLCertificate) {
-                try {
-                    sc = SSLContext.getInstance("SSL");
-                    sc.init(null, trustAllCerts, new SecureRandom());
-                } catch (NoSuchAlgorithmException e) {
-                    e.printStackTrace();
-                } catch (KeyManagementException e) {
-                    e.printStackTrace();
-                }
+    /**
+     * Records the outcome of a request in the circuit breaker and the
+     * concurrency limiter that let it through
+     *
+     * @param breaker
+     * @param concurrency
+     * @param counted
+     *            false if the outcome says nothing about the health of the
+     *            API, e.g. cancelled hedges and errors raised outside the SDK:
+     *            the breaker permission and the slot are only given back
+     * @param failure
+     *            null if the request succeeded
+     * @param latency
+     *            duration of the request, in nanoseconds
+     */
+    private void recordOutcome(CircuitBreaker breaker, ConcurrencyLimiter concurrency, boolean counted,
+            SDKException failure, long latency) {
+        ClientSettings settings = this.getHttpClient().getSettings();
+        if (!counted)
+            breaker.release();
+        else
+            breaker.record((failure != null) && settings.getCircuitBreakerPolicy().isFailure(failure), latency);
+        // only successes measure the latency, and only drops by the API
+        // signal overload; deadline aborts are the caller giving up
+        if (counted && (failure == null))
+            concurrency.release(false, latency);
+        else if (counted && !(failure instanceof DeadlineExceededException)
+                && settings.getConcurrencyLimitPolicy().isDrop(failure))
+            concurrency.release(true, latency);
+        else
+            concurrency.release();
+    }
+
+    /**
+     * Sends a GET request and, if it has not answered within the hedge
+     * delay of its route, a second one, returning the first response. The
+     * other request is aborted. A failed request waits for the other one.
+     *
+     * @param sender
+     *            sends one attempt
+     * @param policy
+     *            HedgePolicy
+     * @return T response
+     * @throws SDKException
+     */
+    private <T> T sendHedged(Sender<T> sender, HedgePolicy policy) throws SDKException {
+        IdOSHttpClient client = this.getHttpClient();
+        LatencyTracker tracker = client.getLatencyTracker(this.getRoute());
+        RetryBudget budget = client.getHedgeBudget();
+        budget.deposit();
+
+        long delay = tracker.percentile(policy.getPercentile());
+        if (delay < 0)
+            return this.sendTimed(sender, new Attempt(null), tracker);
+        delay = Math.max(delay, TimeUnit.MILLISECONDS.toNanos(policy.getMinDelayMillis()));
 
-                httpClient = HttpClients.custom().setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
-                        .setSSLContext(sc).build();
-            } else {
-                httpClient = HttpClients.createDefault(); // create default client
+        ExecutorService executor = client.getHedgeExecutor();
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        Attempt primary = new Attempt(null);
+        Attempt hedge = new Attempt(null);
+        executor.execute(Deadline.propagate(() -> this.race(sender, primary, tracker, first, pending)));
+        try {
+            try {
+                return first.get(delay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (!first.isDone() && budget.tryWithdraw()) {
+                    pending.incrementAndGet();
+                    executor.execute(Deadline.propagate(() -> this.race(sender, hedge, tracker, first, pending)));
+                }
+                return first.get();
             }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SDKException)
+                throw (SDKException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new SDKException(String.valueOf(cause));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SDKException("Interrupted while waiting for a hedged request");
+        } finally {
+            primary.cancel();
+            hedge.cancel();
+        }
+    }
+
+    /**
+     * Runs one of the attempts of a hedged request: the first response
+     * completes the result, the last failure too
+     *
+     * @param sender
+     * @param attempt
+     * @param tracker
+     * @param first
+     *            result of the hedged request
+     * @param pending
+     *            attempts that have not failed yet
+     */
+    private <T> void race(Sender<T> sender, Attempt attempt, LatencyTracker tracker, CompletableFuture<T> first,
+            AtomicInteger pending) {
+        try {
+            first.complete(this.sendTimed(sender, attempt, tracker));
+        } catch (Throwable e) {
+            if (pending.decrementAndGet() == 0)
+                first.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Sends an attempt and records its latency unless it was aborted
+     *
+     * @param sender
+     * @param attempt
+     * @param tracker
+     * @return T response
+     * @throws SDKException
+     */
+    private <T> T sendTimed(Sender<T> sender, Attempt attempt, LatencyTracker tracker) throws SDKException {
+        long start = System.nanoTime();
+        T response = sender.send(attempt);
+        if (!attempt.isCancelled())
+            tracker.record(System.nanoTime() - start);
+        return response;
+    }
+
+    /**
+     * Sends the request with the current token, re-signing it once when the
+     * API rejects it
+     *
+     * @param method
+     * @param url
+     * @param body
+     * @param handler
+     * @param check
+     * @param attempt
+     * @return T response
+     * @throws SDKException
+     */
+    private <T> T sendAuthorized(String method, String url, HttpEntity body, ResponseHandler<T> handler,
+            ResponseCheck<T> check, Attempt attempt) throws SDKException {
+        AuthContext auth = this.createAuthContext();
+        try {
+            return this.execute(auth, method, url, body, handler, check, attempt);
+        } catch (SDKException e) {
+            if (!auth.isAuthenticated() || !e.isAuthFailure())
+                throw e;
+        }
+
+        auth = new AuthContext(auth.getAuthType(), this.getHttpClient().getTokenCache()
+                .refreshStale(auth.getAuthType(), this.credentials, auth.getToken()));
+
+        return this.execute(auth, method, url, body, handler, check, attempt);
+    }
+
+    /**
+     * Waits before a retry
+     *
+     * @param millis
+     * @param failure
+     *            the failure being retried, rethrown if interrupted
+     * @throws SDKException
+     */
+    private void backOff(long millis, SDKException failure) throws SDKException {
+        if (millis <= 0)
+            return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    /**
+     * Executes the request once with the given authorization
+     *
+     * @param auth
+     * @param method
+     * @param url
+     * @param body
+     * @param handler
+     * @param check
+     * @param attempt
+     *            carries the idempotency key, sent in the RetryPolicy header,
+     *            and aborts the request when cancelled
+     * @return
+     * @throws SDKException
+     *             TransportException if no response could be read,
+     *             DeadlineExceededException if the Deadline passed first
+     */
+    private <T> T execute(AuthContext auth, String method, String url, HttpEntity body, ResponseHandler<T> handler,
+            ResponseCheck<T> check, Attempt attempt) throws SDKException {
+        final String authHeader = "Authorization";
+        String credential = auth.toHeader();
+        Deadline deadline = Deadline.current();
+        ScheduledFuture<?> abort = null;
+
+        try {
+            Request request = null;
+
+            CloseableHttpClient httpClient = this.getHttpClient().getBulkhead(this.getRoute()).getHttpClient();
 
             switch (method) {
             case "POST":
-                if (this.authType != this.authType.NONE) {
-                    httpRes = Executor.newInstance(httpClient).execute(
-                            Request.Post(url).setHeader(authHeader, credential)
-                                    .bodyByteArray(data.toString().getBytes(), ContentType.APPLICATION_JSON))
-                            .returnResponse();
-                } else {
-                    httpRes = Executor.newInstance(httpClient).execute(
-                            Request.Post(url).bodyByteArray(data.toString().getBytes(), ContentType.APPLICATION_JSON))
-                            .returnResponse();
-                }
+                request = Request.Post(url);
+                request.body(body);
                 break;
             case "GET":
-                if (this.authType != this.authType.NONE) {
-                    httpRes = Executor.newInstance(httpClient)
-                            .execute(Request.Get(url).setHeader(authHeader, credential)).returnResponse();
-                } else {
-                    httpRes = Executor.newInstance(httpClient).execute(Request.Get(url)).returnResponse();
-                }
+                request = Request.Get(url);
                 break;
             case "DELETE":
-                httpRes = Executor.newInstance(httpClient)
-                        .execute(Request.Delete(url).setHeader(authHeader, credential)).returnResponse();
+                request = Request.Delete(url);
                 break;
             case "PUT":
-                httpRes = Executor.newInstance(httpClient).execute(Request.Put(url).setHeader(authHeader, credential)
-                        .bodyByteArray(data.toString().getBytes(), ContentType.APPLICATION_JSON)).returnResponse();
+                request = Request.Put(url);
+                request.body(body);
                 break;
             case "PATCH":
-                httpRes = Executor.newInstance(httpClient).execute(Request.Patch(url).setHeader(authHeader, credential)
-                        .bodyByteArray(data.toString().getBytes(), ContentType.APPLICATION_JSON)).returnResponse();
+                request = Request.Patch(url);
+                request.body(body);
                 break;
+            default:
+                throw new SDKException("Invalid method " + method);
+            }
+
+            if (credential != null)
+                request.setHeader(authHeader, credential);
+            if (attempt.getIdempotencyKey() != null)
+                request.setHeader(this.getHttpClient().getSettings().getRetryPolicy().getIdempotencyKeyHeader(),
+                        attempt.getIdempotencyKey());
+            if (deadline != null) {
+                // the connect and read timeouts of a single attempt never
+                // outlast the deadline, and a slow body is aborted at it
+                ClientSettings settings = this.getHttpClient().getSettings();
+                int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, deadline.remainingMillis()));
+                request.connectTimeout(Math.min(settings.getConnectTimeoutMillis(), remaining));
+                request.socketTimeout(Math.min(settings.getReadTimeoutMillis(), remaining));
+                abort = this.getHttpClient().getDeadlineScheduler().schedule(request::abort, remaining,
+                        TimeUnit.MILLISECONDS);
             }
+            attempt.start(request);
 
-            String response = EntityUtils.toString(httpRes.getEntity());
+            T response = Executor.newInstance(httpClient).execute(request).handleResponse(handler);
 
             if (DEBUG) {
                 System.out.println("-----------------------------");
@@ -345,17 +1270,437 @@ public abstract class AbstractEndpoint implements Serializable {
                 System.out.println("-----------------------------");
             }
 
-            return handleAPIresponse(this.convertToJson(response));
+            return check.check(response);
 
-        } catch (HttpResponseException e) {
-            e.printStackTrace();
-        } catch (ClientProtocolException e) {
-            e.printStackTrace();
         } catch (IOException e) {
-            e.printStackTrace();
+            if ((deadline != null) && deadline.isExpired())
+                throw new DeadlineExceededException(method + " " + url + " exceeded its deadline");
+            throw new TransportException(method + " " + url + " failed: " + e.getMessage(), e);
+        } finally {
+            if (abort != null)
+                abort.cancel(false);
+        }
+    }
+
+    /**
+     * One request sent without blocking: the steps of sendWithRetries(),
+     * sendGuarded(), sendAuthorized() and execute() chained on futures. Waits
+     * for the limiters and for the retry backoff run on the client scheduler,
+     * the request is sent and awaited by the non-blocking client of the route
+     * bulkhead, and the response is parsed on the client async executor.
+     */
+    private final class AsyncExchange {
+
+        private final String method;
+
+        private final String url;
+
+        private final byte[] body;
+
+        private final Deadline deadline;
+
+        private final IdOSHttpClient client = AbstractEndpoint.this.getHttpClient();
+
+        private final RetryPolicy policy = this.client.getSettings().getRetryPolicy();
+
+        private final CircuitBreaker breaker = this.client.getCircuitBreaker(AbstractEndpoint.this.getRoute());
+
+        private final ConcurrencyLimiter concurrency = this.client.getBulkhead(AbstractEndpoint.this.getRoute())
+                .getConcurrencyLimiter();
+
+        private final RateLimiter limiter;
+
+        private final ResponseHandler<JsonObject> handler = new JsonResponseHandler(
+                AbstractEndpoint.this.getJsonCodec(), null, null);
+
+        private final boolean retryable;
+
+        private final String idempotencyKey;
+
+        private final CompletableFuture<JsonObject> result = new CompletableFuture<>();
+
+        /**
+         * Class constructor
+         *
+         * @param method
+         * @param url
+         * @param body
+         *            serialized JSON request body, may be null
+         * @param deadline
+         *            may be null
+         */
+        AsyncExchange(String method, String url, byte[] body, Deadline deadline) {
+            Map<String, String> credentials = AbstractEndpoint.this.credentials;
+            this.method = method;
+            this.url = url;
+            this.body = body;
+            this.deadline = deadline;
+            this.limiter = this.client.getRateLimiter(
+                    (credentials == null) ? null : credentials.get("credentialPublicKey"),
+                    AbstractEndpoint.this.getRoute());
+            this.retryable = this.policy.allowsRetry(method);
+            this.idempotencyKey = (this.retryable && this.policy.requiresIdempotencyKey(method))
+                    ? UUID.randomUUID().toString() : null;
+        }
+
+        /**
+         * Sends the request
+         *
+         * @return CompletableFuture<JsonObject> response
+         */
+        CompletableFuture<JsonObject> send() {
+            this.client.getRetryBudget().deposit();
+            this.sendAttempt(1);
+            return this.result;
+        }
+
+        /**
+         * Sends an attempt, and retries it after a backoff as allowed by the
+         * RetryPolicy if it fails
+         *
+         * @param attempt
+         *            attempt number, from 1
+         */
+        private void sendAttempt(int attempt) {
+            this.sendGuarded().whenComplete((response, e) -> {
+                Throwable failure = unwrap(e);
+                if (failure == null) {
+                    this.result.complete(response);
+                    return;
+                }
+
+                long backoff = this.policy.backoffMillis(attempt);
+                // no retry the deadline would cut short
+                if (!this.retryable || (attempt >= this.policy.getMaxAttempts())
+                        || !(failure instanceof SDKException) || !this.policy.isRetryable((SDKException) failure)
+                        || ((this.deadline != null) && (this.deadline.remainingMillis() < backoff))
+                        || !this.client.getRetryBudget().tryWithdraw()) {
+                    this.result.completeExceptionally(failure);
+                    return;
+                }
+                this.delay(TimeUnit.MILLISECONDS.toNanos(backoff)).whenComplete((done, rejected) -> {
+                    if (rejected != null)
+                        this.result.completeExceptionally(failure);
+                    else
+                        this.sendAttempt(attempt + 1);
+                });
+            });
+        }
+
+        /**
+         * Sends an attempt once the circuit breaker, the rate limiter and the
+         * concurrency limiter allow it, in that order, and records its
+         * outcome, as sendGuarded() does
+         *
+         * @return CompletableFuture<JsonObject> response
+         */
+        private CompletableFuture<JsonObject> sendGuarded() {
+            CompletableFuture<JsonObject> response = new CompletableFuture<>();
+            long wait;
+            try {
+                wait = Deadline.callWith(this.deadline, () -> {
+                    Deadline.check();
+                    this.breaker.acquire();
+                    try {
+                        return this.limiter.reserve();
+                    } catch (SDKException e) {
+                        this.breaker.release();
+                        throw e;
+                    }
+                });
+            } catch (SDKException e) {
+                response.completeExceptionally(e);
+                return response;
+            }
+
+            this.delay(wait).whenComplete((done, rejected) -> {
+                CompletableFuture<Void> slot;
+                try {
+                    if (rejected != null)
+                        throw rejected;
+                    slot = Deadline.callWith(this.deadline,
+                            () -> this.concurrency.acquireAsync(this.client.getDeadlineScheduler()));
+                } catch (Throwable e) {
+                    this.breaker.release();
+                    response.completeExceptionally(e);
+                    return;
+                }
+
+                slot.whenComplete((acquired, e) -> {
+                    if (e != null) {
+                        this.breaker.release();
+                        response.completeExceptionally(unwrap(e));
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    this.sendAuthorized().whenComplete((json, error) -> {
+                        Throwable failure = unwrap(error);
+                        AbstractEndpoint.this.recordOutcome(this.breaker, this.concurrency,
+                                (failure == null) || (failure instanceof SDKException),
+                                (failure instanceof SDKException) ? (SDKException) failure : null,
+                                System.nanoTime() - start);
+                        complete(response, json, failure);
+                    });
+                });
+            });
+
+            return response;
+        }
+
+        /**
+         * Sends an attempt with the current token, re-signing it once when
+         * the API rejects it
+         *
+         * @return CompletableFuture<JsonObject> response
+         */
+        private CompletableFuture<JsonObject> sendAuthorized() {
+            CompletableFuture<JsonObject> response = new CompletableFuture<>();
+            AuthContext auth;
+            try {
+                auth = AbstractEndpoint.this.createAuthContext();
+            } catch (SDKException e) {
+                response.completeExceptionally(e);
+                return response;
+            }
+
+            this.execute(auth).whenComplete((json, e) -> {
+                Throwable failure = unwrap(e);
+                if (!auth.isAuthenticated() || !(failure instanceof SDKException)
+                        || !((SDKException) failure).isAuthFailure()) {
+                    complete(response, json, failure);
+                    return;
+                }
+                try {
+                    AuthContext fresh = new AuthContext(auth.getAuthType(), this.client.getTokenCache()
+                            .refreshStale(auth.getAuthType(), AbstractEndpoint.this.credentials, auth.getToken()));
+                    this.execute(fresh).whenComplete((replayed, error) -> complete(response, replayed,
+                            unwrap(error)));
+                } catch (SDKException refreshFailure) {
+                    response.completeExceptionally(refreshFailure);
+                }
+            });
+
+            return response;
+        }
+
+        /**
+         * Executes the request once with the given authorization. The
+         * exchange is cancelled at the deadline.
+         *
+         * @param auth
+         * @return CompletableFuture<JsonObject> response, completed
+         *         exceptionally with a TransportException if no response could
+         *         be read, a DeadlineExceededException if the Deadline passed
+         *         first
+         */
+        private CompletableFuture<JsonObject> execute(AuthContext auth) {
+            CompletableFuture<JsonObject> response = new CompletableFuture<>();
+            HttpRequestBase request;
+            try {
+                request = this.createRequest(auth);
+            } catch (SDKException e) {
+                response.completeExceptionally(e);
+                return response;
+            }
+
+            Future<HttpResponse> exchange = this.client.getAsyncHttpClient(AbstractEndpoint.this.getRoute())
+                    .execute(request, new FutureCallback<HttpResponse>() {
+                        @Override
+                        public void completed(HttpResponse httpResponse) {
+                            // parsing and the caller continuations stay off
+                            // the I/O reactor
+                            try {
+                                AsyncExchange.this.client.getAsyncExecutor(AbstractEndpoint.this.getRoute())
+                                        .execute(() -> AsyncExchange.this.handle(httpResponse, response));
+                            } catch (RejectedExecutionException e) {
+                                response.completeExceptionally(e);
+                            }
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            response.completeExceptionally(AsyncExchange.this.toFailure(e));
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            // only the deadline cancels an exchange
+                            response.completeExceptionally(new DeadlineExceededException(
+                                    AsyncExchange.this.method + " " + AsyncExchange.this.url
+                                            + " exceeded its deadline"));
+                        }
+                    });
+
+            if (this.deadline != null) {
+                try {
+                    ScheduledFuture<?> abort = this.client.getDeadlineScheduler().schedule(
+                            () -> exchange.cancel(true), Math.max(1, this.deadline.remainingMillis()),
+                            TimeUnit.MILLISECONDS);
+                    response.whenComplete((json, e) -> abort.cancel(false));
+                } catch (RejectedExecutionException e) {
+                    exchange.cancel(true);
+                }
+            }
+
+            return response;
+        }
+
+        /**
+         * Builds the HTTP request, its connect and read timeouts capped to
+         * the deadline
+         *
+         * @param auth
+         * @return HttpRequestBase
+         * @throws SDKException
+         */
+        private HttpRequestBase createRequest(AuthContext auth) throws SDKException {
+            HttpRequestBase request;
+            HttpEntityEnclosingRequestBase enclosing = null;
+            switch (this.method) {
+            case "POST":
+                request = enclosing = new HttpPost(this.url);
+                break;
+            case "GET":
+                request = new HttpGet(this.url);
+                break;
+            case "DELETE":
+                request = new HttpDelete(this.url);
+                break;
+            case "PUT":
+                request = enclosing = new HttpPut(this.url);
+                break;
+            case "PATCH":
+                request = enclosing = new HttpPatch(this.url);
+                break;
+            default:
+                throw new SDKException("Invalid method " + this.method);
+            }
+
+            if ((enclosing != null) && (this.body != null))
+                enclosing.setEntity(new NByteArrayEntity(this.body, ContentType.APPLICATION_JSON));
+            String credential = auth.toHeader();
+            if (credential != null)
+                request.setHeader("Authorization", credential);
+            if (this.idempotencyKey != null)
+                request.setHeader(this.policy.getIdempotencyKeyHeader(), this.idempotencyKey);
+            if (this.deadline != null) {
+                ClientSettings settings = this.client.getSettings();
+                int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, this.deadline.remainingMillis()));
+                int connectTimeout = Math.min(settings.getConnectTimeoutMillis(), remaining);
+                request.setConfig(RequestConfig.custom().setConnectTimeout(connectTimeout)
+                        .setConnectionRequestTimeout(connectTimeout)
+                        .setSocketTimeout(Math.min(settings.getReadTimeoutMillis(), remaining)).build());
+            }
+
+            return request;
+        }
+
+        /**
+         * Parses a response received by the non-blocking client
+         *
+         * @param httpResponse
+         * @param response
+         *            completed with the parsed response or the API error
+         */
+        private void handle(HttpResponse httpResponse, CompletableFuture<JsonObject> response) {
+            try {
+                this.limiter.observe(httpResponse);
+                response.complete(AbstractEndpoint.this.handleAPIresponse(this.handler.handleResponse(httpResponse)));
+            } catch (SDKException e) {
+                response.completeExceptionally(e);
+            } catch (Exception e) {
+                response.completeExceptionally(this.toFailure(e));
+            } catch (Throwable e) {
+                response.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Maps the failure of an exchange as execute() does
+         *
+         * @param e
+         * @return Throwable DeadlineExceededException if the Deadline passed,
+         *         TransportException for an I/O error, e otherwise
+         */
+        private Throwable toFailure(Exception e) {
+            if ((this.deadline != null) && this.deadline.isExpired())
+                return new DeadlineExceededException(this.method + " " + this.url + " exceeded its deadline");
+            if (e instanceof IOException)
+                return new TransportException(this.method + " " + this.url + " failed: " + e.getMessage(),
+                        (IOException) e);
+            return e;
+        }
+
+        /**
+         * Returns a future completed on the client scheduler after the given
+         * delay, or exceptionally if the client is closed
+         *
+         * @param nanos
+         * @return CompletableFuture<Void>
+         */
+        private CompletableFuture<Void> delay(long nanos) {
+            if (nanos <= 0)
+                return CompletableFuture.completedFuture(null);
+
+            CompletableFuture<Void> delayed = new CompletableFuture<>();
+            try {
+                this.client.getDeadlineScheduler().schedule(() -> delayed.complete(null), nanos,
+                        TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                delayed.completeExceptionally(e);
+            }
+            return delayed;
+        }
+    }
+
+    /**
+     * Unwraps the failure of a dependent stage
+     *
+     * @param e
+     *            may be null
+     * @return Throwable the failure of the stage it depends on
+     */
+    private static Throwable unwrap(Throwable e) {
+        return ((e instanceof CompletionException) && (e.getCause() != null)) ? e.getCause() : e;
+    }
+
+    /**
+     * Completes a future with a value, or exceptionally with a failure
+     *
+     * @param future
+     * @param value
+     * @param failure
+     *            null on success
+     */
+    private static <T> void complete(CompletableFuture<T> future, T value, Throwable failure) {
+        if (failure == null)
+            future.complete(value);
+        else
+            future.completeExceptionally(failure);
+    }
+
+    /**
+     * Returns a raw response if its HTTP status is a success, or throws the
+     * SDKException described by its body
+     *
+     * @param response
+     * @return RawResponse response
+     * @throws SDKException
+     */
+    private RawResponse handleRawResponse(RawResponse response) throws SDKException {
+        if (response.getStatusCode() < 400)
+            return response;
+
+        JsonObject json = null;
+        try {
+            json = this.convertToJson(response.getBodyAsString());
+        } catch (RuntimeException e) {
+            // not a JSON error body
         }
+        if ((json != null) && json.has("status") && json.has("error"))
+            this.handleAPIresponse(json);
 
-        return null;
+        throw new SDKException("HTTP status code " + response.getStatusCode());
     }
 
     /**
@@ -366,52 +1711,44 @@ public abstract class AbstractEndpoint implements Serializable {
      */
 
     protected JsonObject convertToJson(String apiResponse) {
-        JsonParser parser = new JsonParser();
-        JsonElement response = parser.parse(apiResponse);
-        JsonObject json = response.getAsJsonObject();
+        return this.getJsonCodec().parse(apiResponse);
+    }
 
-        return json;
+    /**
+     * Gets the codec configured for the http client
+     *
+     * @return JsonCodec codec
+     */
+    private JsonCodec getJsonCodec() {
+        return this.getHttpClient().getSettings().getJsonCodec();
     }
 
     /**
      * Setter
      *
      * @param authType
+     * @deprecated mutates an endpoint shared by every thread; use
+     *             withAuthType() to authorize calls with another IdOSAuthType
      */
+    @Deprecated
     public void setAuthType(IdOSAuthType authType) throws InvalidToken {
-        if ((this.authType == null) || (this.currentToken == null) || (authType != this.authType)) {
-            this.authType = authType;
-            this.generateAuthToken();
-        }
+        IdOSAuthType previous = this.authType;
+        this.authType = authType;
+        if (authType != previous)
+            this.createAuthContext();
     }
 
     /**
-     * Generates an authorization token
+     * Reads the authorization of a request, taking the token from the shared
+     * token cache, which signs it only when it is missing or expired
      *
+     * @return AuthContext
      * @throws InvalidToken
      */
-    private String generateAuthToken() throws InvalidToken {
-        switch (this.authType) {
-        case USER:
-            this.currentToken = IdOSUtils.generateUserToken(this.credentials.get("credentialPrivateKey"),
-                    this.credentials.get("credentialPublicKey"), this.credentials.get("username"));
-            break;
-        case IDENTITY:
-            this.currentToken = IdOSUtils.generateManagementToken(this.credentials.get("companyPrivateKey"),
-                    this.credentials.get("companyPublicKey"));
-            break;
-        case HANDLER:
-            this.currentToken = IdOSUtils.generateHandlerToken(this.credentials.get("servicePrivateKey"),
-                    this.credentials.get("servicePublicKey"), this.credentials.get("credentialPublicKey"));
-            break;
-        case NONE:
-            this.currentToken = "none";
-            break;
-        default:
-            throw new InvalidToken();
-        }
+    private AuthContext createAuthContext() throws InvalidToken {
+        IdOSAuthType authType = this.authType;
 
-        return this.currentToken;
+        return new AuthContext(authType, this.getHttpClient().getTokenCache().getToken(authType, this.credentials));
     }
 
     /**
@@ -419,9 +1756,23 @@ public abstract class AbstractEndpoint implements Serializable {
      *
      * @param credentials
      *            HashMap<String, String>
+     * @deprecated mutates an endpoint shared by every thread; configure the
+     *             credentials on the IdOSAPIFactory, or create an endpoint
+     *             with them
      */
+    @Deprecated
     public void setCredentials(HashMap<String, String> credentials) {
-        this.credentials = credentials;
+        this.credentials = copyCredentials(credentials);
+    }
+
+    /**
+     * Takes an unmodifiable copy of the credentials
+     *
+     * @param credentials
+     * @return Map<String, String> copy, null when credentials is null
+     */
+    private static Map<String, String> copyCredentials(HashMap<String, String> credentials) {
+        return (credentials == null) ? null : Collections.unmodifiableMap(new HashMap<String, String>(credentials));
     }
 
     /**
@@ -436,7 +1787,10 @@ public abstract class AbstractEndpoint implements Serializable {
     /**
      * Sets the base url
      * @param baseURL
+     * @deprecated mutates an endpoint shared by every thread; configure the
+     *             base url on the IdOSAPIFactory, or create an endpoint with it
      */
+    @Deprecated
     public void setBaseURL(String baseURL) {
         this.baseURL = baseURL;
     }
@@ -450,10 +1804,41 @@ public abstract class AbstractEndpoint implements Serializable {
     }
 
     /**
-     * sets the boolean flag doNotCheckSSLCertificate
+     * sets the boolean flag doNotCheckSSLCertificate. It only picks the
+     * process wide default client of an endpoint created without one: an
+     * endpoint given the pooled client of an IdOSAPIFactory keeps the ssl
+     * checking that client was created with.
+     *
      * @param doNotCheckSSLCertificate
+     * @deprecated mutates an endpoint shared by every thread, and is ignored
+     *             by endpoints created by an IdOSAPIFactory; pass
+     *             doNotCheckSSLCertificate to the IdOSAPIFactory, or create
+     *             an endpoint with it
      */
+    @Deprecated
     public void setDoNotCheckSSLCertificate(boolean doNotCheckSSLCertificate) {
         this.doNotCheckSSLCertificate = doNotCheckSSLCertificate;
     }
+
+    /**
+     * Gets the pooled http client, falling back to the process wide default
+     * client when the endpoint was not created by a factory
+     *
+     * @return IdOSHttpClient
+     */
+    public IdOSHttpClient getHttpClient() {
+        if (this.httpClient == null)
+            return IdOSHttpClient.getDefault(this.doNotCheckSSLCertificate);
+        return this.httpClient;
+    }
+
+    /**
+     * Gets the name of the route of this endpoint, keying its circuit
+     * breaker. Views with another auth type share the route.
+     *
+     * @return String
+     */
+    public String getRoute() {
+        return this.getClass().getSimpleName();
+    }
 }
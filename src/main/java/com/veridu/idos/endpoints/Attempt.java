@@ -0,0 +1,56 @@
+package com.veridu.idos.endpoints;
+
+import org.apache.http.client.fluent.Request;
+
+/**
+ * One attempt at sending a request: its idempotency key and, while it is in
+ * flight, its HTTP request, so that a hedged attempt that lost the race can
+ * be aborted.
+ */
+final class Attempt {
+
+    private final String idempotencyKey;
+
+    private Request request;
+
+    private boolean cancelled;
+
+    /**
+     * Class constructor
+     *
+     * @param idempotencyKey
+     *            may be null
+     */
+    Attempt(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    String getIdempotencyKey() {
+        return this.idempotencyKey;
+    }
+
+    /**
+     * Records the HTTP request about to be executed, aborting it if the
+     * attempt was already cancelled
+     *
+     * @param request
+     */
+    synchronized void start(Request request) {
+        this.request = request;
+        if (this.cancelled)
+            request.abort();
+    }
+
+    /**
+     * Cancels the attempt, aborting its HTTP request if in flight
+     */
+    synchronized void cancel() {
+        this.cancelled = true;
+        if (this.request != null)
+            this.request.abort();
+    }
+
+    synchronized boolean isCancelled() {
+        return this.cancelled;
+    }
+}
@@ -0,0 +1,67 @@
+package com.veridu.idos.endpoints;
+
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.utils.IdOSAuthType;
+
+/**
+ * Immutable authorization of a single request: the auth type and the token
+ * read from the token cache when the request started. Requests never share
+ * mutable auth state, so one endpoint can serve concurrent requests.
+ */
+final class AuthContext {
+
+    private final IdOSAuthType authType;
+
+    private final String token;
+
+    /**
+     * Class constructor
+     *
+     * @param authType
+     *            IdOSAuthType
+     * @param token
+     *            signed token, "none" for IdOSAuthType.NONE
+     */
+    AuthContext(IdOSAuthType authType, String token) {
+        this.authType = authType;
+        this.token = token;
+    }
+
+    IdOSAuthType getAuthType() {
+        return this.authType;
+    }
+
+    String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Whether the request carries a token that can be re-signed
+     *
+     * @return boolean
+     */
+    boolean isAuthenticated() {
+        return this.authType != IdOSAuthType.NONE;
+    }
+
+    /**
+     * Builds the Authorization header value
+     *
+     * @return String header value, null for IdOSAuthType.NONE
+     * @throws SDKException
+     */
+    String toHeader() throws SDKException {
+        switch (this.authType) {
+        case HANDLER:
+            return "CredentialToken " + this.token;
+        case USER:
+            return "UserToken " + this.token;
+        case IDENTITY:
+            return "IdentityToken " + this.token;
+        case NONE:
+            return null;
+        default:
+            throw new SDKException("Invalid credentials.");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.veridu.idos.endpoints;
+
+import com.google.gson.JsonElement;
+import com.veridu.idos.codec.JsonCodec;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Request body holding a JsonElement serialized by the codec straight to
+ * UTF-8 bytes in a per-thread buffer, without building an intermediate
+ * String.
+ *
+ * The buffer is reused by the next JsonEntity created on the same thread, so
+ * an entity must be sent before another one is built there.
+ */
+final class JsonEntity extends AbstractHttpEntity {
+
+    /**
+     * Buffers grown beyond this size are not kept for reuse
+     */
+    private static final int MAX_RETAINED_BYTES = 1 << 20;
+
+    private static final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+        @Override
+        protected Buffer initialValue() {
+            return new Buffer();
+        }
+    };
+
+    private final byte[] content;
+
+    private final int length;
+
+    /**
+     * Class constructor
+     *
+     * @param data
+     *            request body
+     * @param codec
+     *            serializes the body
+     * @throws IOException
+     */
+    JsonEntity(JsonElement data, JsonCodec codec) throws IOException {
+        Buffer buffer = buffers.get();
+        buffer.length = 0;
+        codec.write(data, buffer);
+
+        this.content = buffer.bytes;
+        this.length = buffer.length;
+        if (buffer.bytes.length > MAX_RETAINED_BYTES)
+            buffers.remove();
+
+        this.setContentType(ContentType.APPLICATION_JSON.toString());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return this.length;
+    }
+
+    @Override
+    public InputStream getContent() {
+        return new ByteArrayInputStream(this.content, 0, this.length);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(this.content, 0, this.length);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Growable byte array
+     */
+    private static final class Buffer extends OutputStream {
+        private byte[] bytes = new byte[4096];
+        private int length;
+
+        @Override
+        public void write(int b) {
+            this.ensure(1);
+            this.bytes[this.length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int count) {
+            this.ensure(count);
+            System.arraycopy(b, offset, this.bytes, this.length, count);
+            this.length += count;
+        }
+
+        private void ensure(int count) {
+            if (this.length + count > this.bytes.length)
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + count));
+        }
+    }
+}
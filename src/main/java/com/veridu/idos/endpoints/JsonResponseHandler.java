@@ -0,0 +1,64 @@
+package com.veridu.idos.endpoints;
+
+import com.google.gson.JsonObject;
+import com.veridu.idos.codec.JsonCodec;
+import com.veridu.idos.utils.Projection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Parses the API response incrementally from the entity stream with the
+ * configured codec, without first copying the body into a String. When an
+ * item consumer is given, the elements of the "data" array are handed to it
+ * one by one instead of being collected into the returned object. When a
+ * projection is given, the data items keep only the projected fields.
+ */
+class JsonResponseHandler implements ResponseHandler<JsonObject> {
+
+    private final JsonCodec codec;
+
+    private final Projection projection;
+
+    private final Consumer<JsonObject> itemConsumer;
+
+    /**
+     * Class constructor
+     *
+     * @param codec
+     *            parses the response
+     * @param projection
+     *            fields kept in the data items, or null to keep everything
+     * @param itemConsumer
+     *            receives each item of the data array, or null to keep the
+     *            data array in the returned object
+     */
+    JsonResponseHandler(JsonCodec codec, Projection projection, Consumer<JsonObject> itemConsumer) {
+        this.codec = codec;
+        this.projection = projection;
+        this.itemConsumer = itemConsumer;
+    }
+
+    @Override
+    public JsonObject handleResponse(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null)
+            throw new ClientProtocolException("Response contains no content");
+
+        Charset charset = ContentType.getOrDefault(entity).getCharset();
+        if (charset == null)
+            charset = StandardCharsets.UTF_8;
+
+        try (InputStream in = entity.getContent()) {
+            return this.codec.read(in, charset, this.projection, this.itemConsumer);
+        }
+    }
+}
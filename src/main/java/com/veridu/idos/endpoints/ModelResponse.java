@@ -0,0 +1,38 @@
+package com.veridu.idos.endpoints;
+
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+/**
+ * API response envelope read by a ModelResponseHandler
+ *
+ * @param <T>
+ *            model type
+ */
+final class ModelResponse<T> {
+
+    boolean status;
+
+    /**
+     * Models of a listing data array, null if data was an object
+     */
+    List<T> items;
+
+    /**
+     * Model of a single resource data object, null if data was an array
+     */
+    T item;
+
+    /**
+     * Pagination of a listing, 0 when absent
+     */
+    int currentPage;
+
+    int lastPage;
+
+    /**
+     * Error object of a failed call, null on success
+     */
+    JsonObject error;
+}
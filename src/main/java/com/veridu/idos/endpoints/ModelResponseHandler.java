@@ -0,0 +1,106 @@
+package com.veridu.idos.endpoints;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.ContentType;
+
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads the API response envelope from the entity stream, decoding the data
+ * items with a model TypeAdapter. No JsonElement tree is built, except for
+ * the error object of a failed call.
+ *
+ * @param <T>
+ *            model type
+ */
+class ModelResponseHandler<T> implements ResponseHandler<ModelResponse<T>> {
+
+    private final TypeAdapter<T> adapter;
+
+    /**
+     * Class constructor
+     *
+     * @param adapter
+     *            reads one data item
+     */
+    ModelResponseHandler(TypeAdapter<T> adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public ModelResponse<T> handleResponse(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null)
+            throw new ClientProtocolException("Response contains no content");
+
+        Charset charset = ContentType.getOrDefault(entity).getCharset();
+        if (charset == null)
+            charset = StandardCharsets.UTF_8;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(entity.getContent(), charset))) {
+            return this.parse(reader);
+        }
+    }
+
+    /**
+     * Reads the top level response object
+     *
+     * @param reader
+     * @return ModelResponse<T> response
+     * @throws IOException
+     */
+    private ModelResponse<T> parse(JsonReader reader) throws IOException {
+        ModelResponse<T> response = new ModelResponse<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (name.equals("status") && (token == JsonToken.BOOLEAN)) {
+                response.status = reader.nextBoolean();
+            } else if (name.equals("data") && (token == JsonToken.BEGIN_ARRAY)) {
+                response.items = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext())
+                    response.items.add(this.adapter.read(reader));
+                reader.endArray();
+            } else if (name.equals("data") && (token == JsonToken.BEGIN_OBJECT)) {
+                response.item = this.adapter.read(reader);
+            } else if (name.equals("pagination") && (token == JsonToken.BEGIN_OBJECT)) {
+                this.parsePagination(reader, response);
+            } else if (name.equals("error") && (token == JsonToken.BEGIN_OBJECT)) {
+                response.error = new JsonParser().parse(reader).getAsJsonObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return response;
+    }
+
+    private void parsePagination(JsonReader reader, ModelResponse<T> response) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("current_page") && (reader.peek() == JsonToken.NUMBER))
+                response.currentPage = reader.nextInt();
+            else if (name.equals("total") && (reader.peek() == JsonToken.NUMBER))
+                response.lastPage = reader.nextInt();
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+    }
+}
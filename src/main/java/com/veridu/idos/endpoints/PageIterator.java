@@ -0,0 +1,103 @@
+package com.veridu.idos.endpoints;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.UncheckedSDKException;
+import com.veridu.idos.utils.Filter;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the items of a paginated API Resource, requesting each page
+ * only once the previous one has been consumed. Only the current page is
+ * referenced, so consumed pages can be garbage collected.
+ */
+class PageIterator implements Iterator<JsonObject> {
+
+    private final AbstractEndpoint endpoint;
+
+    private final String method;
+
+    /**
+     * Resource URL without the query string
+     */
+    private final String url;
+
+    /**
+     * Caller's filter, never modified
+     */
+    private final Filter filter;
+
+    /**
+     * Items of the page being iterated
+     */
+    private JsonArray page;
+
+    private int index;
+
+    private int currentPage = 0;
+
+    private int totalPages = 1;
+
+    /**
+     * Class constructor
+     *
+     * @param endpoint
+     * @param method
+     * @param url
+     *            resource URL without the query string
+     * @param filter
+     *            may be null
+     */
+    PageIterator(AbstractEndpoint endpoint, String method, String url, Filter filter) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.url = url;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ((this.page == null) || (this.index >= this.page.size())) {
+            if ((this.page != null) && (this.currentPage >= this.totalPages))
+                return false;
+            this.fetchNextPage();
+        }
+
+        return true;
+    }
+
+    @Override
+    public JsonObject next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+
+        return this.page.get(this.index++).getAsJsonObject();
+    }
+
+    /**
+     * Requests the page following the current one
+     */
+    private void fetchNextPage() {
+        JsonObject response;
+        try {
+            response = this.endpoint.request(this.method,
+                    AbstractEndpoint.pageURL(this.url, this.filter, this.currentPage + 1), null, null);
+        } catch (SDKException e) {
+            throw new UncheckedSDKException(e);
+        }
+
+        this.page = response.get("data").getAsJsonArray();
+        this.index = 0;
+        this.currentPage++;
+
+        JsonElement pagination = response.get("pagination");
+        if ((pagination != null) && pagination.isJsonObject())
+            this.totalPages = pagination.getAsJsonObject().get("total").getAsInt();
+        else
+            this.totalPages = this.currentPage;
+    }
+}
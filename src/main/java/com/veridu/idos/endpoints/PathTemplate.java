@@ -0,0 +1,91 @@
+package com.veridu.idos.endpoints;
+
+import com.veridu.idos.utils.URLEncoding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resource path with named placeholders, e.g.
+ * "profiles/{username}/features/{featureId}", parsed once and expanded per
+ * request. Values are percent-encoded as path segments and rendered into a
+ * per-thread StringBuilder.
+ */
+final class PathTemplate {
+
+    /**
+     * Builders larger than this are not kept for reuse
+     */
+    private static final int MAX_BUILDER_CAPACITY = 1024;
+
+    private static final ThreadLocal<StringBuilder> builders = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(128);
+        }
+    };
+
+    /**
+     * Text around the placeholders; literals[i] precedes the i-th value
+     */
+    private final String[] literals;
+
+    private final String template;
+
+    private PathTemplate(String template, String[] literals) {
+        this.template = template;
+        this.literals = literals;
+    }
+
+    /**
+     * Parses a template
+     *
+     * @param template
+     *            path with {name} placeholders
+     * @return PathTemplate
+     */
+    static PathTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = template.indexOf('{', start)) != -1) {
+            int close = template.indexOf('}', open);
+            if (close == -1)
+                throw new IllegalArgumentException("Unclosed placeholder in " + template);
+            literals.add(template.substring(start, open));
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+
+        return new PathTemplate(template, literals.toArray(new String[literals.size()]));
+    }
+
+    /**
+     * Expands the template, encoding each value as a path segment
+     *
+     * @param values
+     *            one value per placeholder, in order
+     * @return String resource path
+     */
+    String expand(Object... values) {
+        if (values.length != this.literals.length - 1)
+            throw new IllegalArgumentException(
+                    this.template + " expects " + (this.literals.length - 1) + " values, got " + values.length);
+
+        StringBuilder builder = builders.get();
+        builder.setLength(0);
+        for (int i = 0; i < values.length; i++)
+            URLEncoding.appendPathSegment(builder.append(this.literals[i]), String.valueOf(values[i]));
+        String path = builder.append(this.literals[values.length]).toString();
+
+        if (builder.capacity() > MAX_BUILDER_CAPACITY)
+            builders.remove();
+
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return this.template;
+    }
+}
@@ -2,10 +2,17 @@ package com.veridu.idos.endpoints;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Attribute;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Profile Candidates Endpoint Class
@@ -14,6 +21,13 @@ import java.util.HashMap;
  *
  */
 public class ProfileAttributes extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate ATTRIBUTES = PathTemplate.compile("profiles/{username}/attributes");
+    private static final PathTemplate ATTRIBUTE =
+            PathTemplate.compile("profiles/{username}/attributes/{attributeName}");
+
     /**
      * Class Constructor
      *
@@ -25,6 +39,19 @@ public class ProfileAttributes extends AbstractEndpoint {
         super(credentials, IdOSAuthType.USER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileAttributes(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.USER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all profiles attributes
      *
@@ -33,7 +60,19 @@ public class ProfileAttributes extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/attributes");
+        return this.fetch("GET", ATTRIBUTES.expand(username));
+    }
+
+    /**
+     * Lists all profiles attributes, decoding each item straight from the
+     * response stream
+     *
+     * @param username
+     * @return List<Attribute> attributes
+     * @throws SDKException
+     */
+    public List<Attribute> listAllTyped(String username) throws SDKException {
+        return this.fetchList(ATTRIBUTES.expand(username), null, Attribute.ADAPTER);
     }
 
     /**
@@ -45,7 +84,72 @@ public class ProfileAttributes extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/attributes", null, filter);
+        return this.fetch("GET", ATTRIBUTES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all profiles attributes, keeping only the projected fields of each
+     * item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", ATTRIBUTES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all profiles attributes, decoding each item straight from the
+     * response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Attribute> attributes
+     * @throws SDKException
+     */
+    public List<Attribute> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(ATTRIBUTES.expand(username), filter, Attribute.ADAPTER);
+    }
+
+    /**
+     * Streams all attributes related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> attributes
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all attributes related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> attributes
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", ATTRIBUTES.expand(username), filter);
+    }
+
+    /**
+     * Lists all attributes related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", ATTRIBUTES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -57,6 +161,66 @@ public class ProfileAttributes extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, String attributeName) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/attributes/" + attributeName);
+        return this.fetch("GET", ATTRIBUTE.expand(username, attributeName));
+    }
+
+    /**
+     * Retrieves attributes information related to the given attributeName,
+     * keeping only the projected fields
+     *
+     * @param username
+     * @param attributeName
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, String attributeName, Projection projection) throws SDKException {
+        return this.fetch("GET", ATTRIBUTE.expand(username, attributeName), null, null, projection);
+    }
+
+    /**
+     * Retrieves attributes information related to the given attributeName,
+     * decoded straight from the response stream
+     *
+     * @param username
+     * @param attributeName
+     * @return Attribute attribute
+     * @throws SDKException
+     */
+    public Attribute getOneTyped(String username, String attributeName) throws SDKException {
+        return this.fetchModel(ATTRIBUTE.expand(username, attributeName), Attribute.ADAPTER);
+    }
+
+    /**
+     * Lists all profiles attributes, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", ATTRIBUTES.expand(username));
+    }
+
+    /**
+     * Lists all profiles attributes, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", ATTRIBUTES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves attributes information related to the given attributeName, asynchronously
+     *
+     * @param username
+     * @param attributeName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, String attributeName) {
+        return this.fetchAsync("GET", ATTRIBUTE.expand(username, attributeName));
     }
 }
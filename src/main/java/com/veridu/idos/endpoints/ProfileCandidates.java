@@ -2,11 +2,18 @@ package com.veridu.idos.endpoints;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Candidate;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Profile Candidates Endpoint Class
@@ -15,6 +22,11 @@ import java.util.HashMap;
  *
  */
 public class ProfileCandidates extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate CANDIDATES = PathTemplate.compile("profiles/{username}/candidates");
+
     /**
      * Class Constructor
      *
@@ -26,6 +38,19 @@ public class ProfileCandidates extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileCandidates(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all profiles candidates
      *
@@ -34,7 +59,19 @@ public class ProfileCandidates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/candidates");
+        return this.fetch("GET", CANDIDATES.expand(username));
+    }
+
+    /**
+     * Lists all profiles candidates, decoding each item straight from the
+     * response stream
+     *
+     * @param username
+     * @return List<Candidate> candidates
+     * @throws SDKException
+     */
+    public List<Candidate> listAllTyped(String username) throws SDKException {
+        return this.fetchList(CANDIDATES.expand(username), null, Candidate.ADAPTER);
     }
 
     /**
@@ -46,7 +83,72 @@ public class ProfileCandidates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/candidates", null, filter);
+        return this.fetch("GET", CANDIDATES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all profiles candidates with filtering, keeping only the projected
+     * fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", CANDIDATES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all profiles candidates with filtering, decoding each item straight
+     * from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Candidate> candidates
+     * @throws SDKException
+     */
+    public List<Candidate> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(CANDIDATES.expand(username), filter, Candidate.ADAPTER);
+    }
+
+    /**
+     * Streams all candidates related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> candidates
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all candidates related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> candidates
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", CANDIDATES.expand(username), filter);
+    }
+
+    /**
+     * Lists all candidates related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", CANDIDATES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -62,11 +164,8 @@ public class ProfileCandidates extends AbstractEndpoint {
      */
     public JsonObject create(String username, String attributeName, String attributeValue, double attributeSupport)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("attribute", attributeName);
-        data.addProperty("value", attributeValue);
-        data.addProperty("support", attributeSupport);
-        return this.fetch("POST", "profiles/" + username + "/candidates", data);
+        return this.fetch("POST", CANDIDATES.expand(username),
+                candidateBody(attributeName, attributeValue, attributeSupport));
     }
 
     /**
@@ -77,7 +176,7 @@ public class ProfileCandidates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/candidates");
+        return this.fetch("DELETE", CANDIDATES.expand(username));
     }
 
     /**
@@ -89,7 +188,79 @@ public class ProfileCandidates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username, Filter filter) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/candidates", null, filter);
+        return this.fetch("DELETE", CANDIDATES.expand(username), null, filter);
     }
 
+    /**
+     * Lists all profiles candidates, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", CANDIDATES.expand(username));
+    }
+
+    /**
+     * Lists all profiles candidates with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", CANDIDATES.expand(username), null, filter);
+    }
+
+    /**
+     * Creates a new candidate passing the name of the attribute, asynchronously
+     *
+     * @param username
+     * @param attributeName
+     * @param attributeValue
+     * @param attributeSupport
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String attributeName, String attributeValue,
+            double attributeSupport) {
+        return this.fetchAsync("POST", CANDIDATES.expand(username),
+                candidateBody(attributeName, attributeValue, attributeSupport));
+    }
+
+    /**
+     * Deletes all candidates related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", CANDIDATES.expand(username));
+    }
+
+    /**
+     * Deletes all candidates related to the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username, Filter filter) {
+        return this.fetchAsync("DELETE", CANDIDATES.expand(username), null, filter);
+    }
+
+    /**
+     * Builds the body creating a candidate
+     *
+     * @param attributeName
+     * @param attributeValue
+     * @param attributeSupport
+     * @return JsonObject
+     */
+    private static JsonObject candidateBody(String attributeName, String attributeValue, double attributeSupport) {
+        JsonObject data = new JsonObject();
+        data.addProperty("attribute", attributeName);
+        data.addProperty("value", attributeValue);
+        data.addProperty("support", attributeSupport);
+        return data;
+    }
 }
@@ -2,13 +2,27 @@ package com.veridu.idos.endpoints;
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Feature;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 public class ProfileFeatures extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate FEATURES = PathTemplate.compile("profiles/{username}/features");
+    private static final PathTemplate FEATURE = PathTemplate.compile("profiles/{username}/features/{featureId}");
+
     /**
      * Class Constructor
      *
@@ -20,6 +34,19 @@ public class ProfileFeatures extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileFeatures(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Retrieve a complete list of all features for the given user.
      *
@@ -28,7 +55,19 @@ public class ProfileFeatures extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/features");
+        return this.fetch("GET", FEATURES.expand(username));
+    }
+
+    /**
+     * Retrieve a complete list of all features for the given user, decoding
+     * each item straight from the response stream
+     *
+     * @param username
+     * @return List<Feature> features
+     * @throws SDKException
+     */
+    public List<Feature> listAllTyped(String username) throws SDKException {
+        return this.fetchList(FEATURES.expand(username), null, Feature.ADAPTER);
     }
 
     /**
@@ -41,7 +80,72 @@ public class ProfileFeatures extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/features", null, filter);
+        return this.fetch("GET", FEATURES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieve a complete list of all features that belong to the given user
+     * with filtering, keeping only the projected fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", FEATURES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Retrieve a complete list of all features that belong to the given user
+     * with filtering, decoding each item straight from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Feature> features
+     * @throws SDKException
+     */
+    public List<Feature> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(FEATURES.expand(username), filter, Feature.ADAPTER);
+    }
+
+    /**
+     * Streams all features related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> features
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all features related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> features
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", FEATURES.expand(username), filter);
+    }
+
+    /**
+     * Lists all features related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", FEATURES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -53,7 +157,35 @@ public class ProfileFeatures extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, int featureId) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/features/" + featureId);
+        return this.fetch("GET", FEATURE.expand(username, featureId));
+    }
+
+    /**
+     * Retrieves all public information from a Feature for the given user,
+     * keeping only the projected fields
+     *
+     * @param username
+     * @param featureId
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, int featureId, Projection projection) throws SDKException {
+        return this.fetch("GET", FEATURE.expand(username, featureId), null, null, projection);
+    }
+
+    /**
+     * Retrieves all public information from a Feature for the given user,
+     * decoded straight from the response stream
+     *
+     * @param username
+     * @param featureId
+     * @return Feature feature
+     * @throws SDKException
+     */
+    public Feature getOneTyped(String username, int featureId) throws SDKException {
+        return this.fetchModel(FEATURE.expand(username, featureId), Feature.ADAPTER);
     }
 
     /**
@@ -83,13 +215,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String name, int sourceId, int value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "integer");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("PUT", "profiles/" + username + "/features", data);
+        return this.fetch("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "integer"));
     }
 
     /**
@@ -119,13 +246,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String name, int sourceId, double value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "double");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("PUT", "profiles/" + username + "/features", data);
+        return this.fetch("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "double"));
     }
 
     /**
@@ -156,13 +278,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String name, int sourceId, String value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "string");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("PUT", "profiles/" + username + "/features", data);
+        return this.fetch("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "string"));
     }
 
     /**
@@ -193,13 +310,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String name, int sourceId, boolean value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "boolean");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("PUT", "profiles/" + username + "/features", data);
+        return this.fetch("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "boolean"));
     }
 
     /**
@@ -230,13 +342,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject create(String username, String name, int sourceId, int value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "integer");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("POST", "profiles/" + username + "/features", data);
+        return this.fetch("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "integer"));
     }
 
     /**
@@ -252,13 +359,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject create(String username, String name, int sourceId, double value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "double");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("POST", "profiles/" + username + "/features", data);
+        return this.fetch("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "double"));
     }
 
     /**
@@ -289,13 +391,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject create(String username, String name, int sourceId, boolean value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        data.addProperty("type", "boolean");
-        return this.fetch("POST", "profiles/" + username + "/features", data);
+        return this.fetch("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "boolean"));
     }
 
     /**
@@ -326,13 +423,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject create(String username, String name, int sourceId, String value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("value", value);
-        data.addProperty("type", "string");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        return this.fetch("POST", "profiles/" + username + "/features", data);
+        return this.fetch("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "string"));
     }
 
     /**
@@ -363,13 +455,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject update(String username, int featureId, int sourceId, String value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("value", value);
-        data.addProperty("type", "string");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-
-        return this.fetch("PATCH", "profiles/" + username + "/features/" + featureId, data);
+        return this.fetch("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "string"));
     }
 
     /**
@@ -385,13 +472,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject update(String username, int featureId, int sourceId, double value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("value", value);
-        data.addProperty("type", "double");
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-
-        return this.fetch("PATCH", "profiles/" + username + "/features/" + featureId, data);
+        return this.fetch("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "double"));
     }
 
     /**
@@ -407,13 +489,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject update(String username, int featureId, int sourceId, int value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        data.addProperty("value", value);
-        data.addProperty("type", "integer");
-
-        return this.fetch("PATCH", "profiles/" + username + "/features/" + featureId, data);
+        return this.fetch("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "integer"));
     }
 
     /**
@@ -429,13 +506,8 @@ public class ProfileFeatures extends AbstractEndpoint {
      */
     public JsonObject update(String username, int featureId, int sourceId, boolean value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        if (sourceId != 0)
-            data.addProperty("sourceId", sourceId);
-        data.addProperty("value", value);
-        data.addProperty("type", "boolean");
-
-        return this.fetch("PATCH", "profiles/" + username + "/features/" + featureId, data);
+        return this.fetch("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "boolean"));
     }
 
     /**
@@ -447,7 +519,7 @@ public class ProfileFeatures extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject delete(String username, int featureId) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/features/" + featureId);
+        return this.fetch("DELETE", FEATURE.expand(username, featureId));
     }
 
     /**
@@ -458,7 +530,7 @@ public class ProfileFeatures extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/features");
+        return this.fetch("DELETE", FEATURES.expand(username));
     }
 
     /**
@@ -470,7 +542,369 @@ public class ProfileFeatures extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username, Filter filter) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/features", null, filter);
+        return this.fetch("DELETE", FEATURES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieve a complete list of all features for the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", FEATURES.expand(username));
+    }
+
+    /**
+     * Retrieve a complete list of all features that belong to the given user, asynchronously
+     * with filtering.
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", FEATURES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves all public information from a Feature for the given user, asynchronously
+     *
+     * @param username
+     * @param featureId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, int featureId) {
+        return this.fetchAsync("GET", FEATURE.expand(username, featureId));
+    }
+
+    /**
+     * Updates or creates a new profile feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, int value) {
+        return this.upsertAsync(username, name, 0, value);
+    }
+
+    /**
+     * Updates or creates a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, int sourceId, int value) {
+        return this.fetchAsync("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "integer"));
+    }
+
+    /**
+     * Update or insert a new profile feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, double value) {
+        return this.upsertAsync(username, name, 0, value);
+    }
+
+    /**
+     * Update or insert a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, int sourceId, double value) {
+        return this.fetchAsync("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "double"));
     }
 
+    /**
+     * Update or insert a new profile feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, String value) {
+        return this.upsertAsync(username, name, 0, value);
+    }
+
+    /**
+     * Update or insert a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, int sourceId, String value) {
+        return this.fetchAsync("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "string"));
+    }
+
+    /**
+     * Update or insert a new profile feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, boolean value) {
+        return this.upsertAsync(username, name, 0, value);
+    }
+
+    /**
+     * Update or insert a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String name, int sourceId, boolean value) {
+        return this.fetchAsync("PUT", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "boolean"));
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, int value) {
+        return this.createAsync(username, name, 0, value);
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, int sourceId, int value) {
+        return this.fetchAsync("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "integer"));
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, int sourceId, double value) {
+        return this.fetchAsync("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "double"));
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, double value) {
+        return this.createAsync(username, name, 0, value);
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, int sourceId, boolean value) {
+        return this.fetchAsync("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "boolean"));
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, boolean value) {
+        return this.createAsync(username, name, 0, value);
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, int sourceId, String value) {
+        return this.fetchAsync("POST", FEATURES.expand(username),
+                featureBody(name, sourceId, new JsonPrimitive(value), "string"));
+    }
+
+    /**
+     * Create a new feature for the given user, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, String value) {
+        return this.createAsync(username, name, 0, value);
+    }
+
+    /**
+     * Updates Feature's specific information, asynchronously
+     *
+     * @param username
+     * @param featureId
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int featureId, int sourceId, String value) {
+        return this.fetchAsync("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "string"));
+    }
+
+    /**
+     * Updates Feature's specific information, asynchronously
+     *
+     * @param username
+     * @param featureId
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int featureId, int sourceId, double value) {
+        return this.fetchAsync("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "double"));
+    }
+
+    /**
+     * Updates Feature's specific information, asynchronously
+     *
+     * @param username
+     * @param featureId
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int featureId, int sourceId, int value) {
+        return this.fetchAsync("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "integer"));
+    }
+
+    /**
+     * Updates Feature's specific information, asynchronously
+     *
+     * @param username
+     * @param featureId
+     * @param sourceId
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int featureId, int sourceId, boolean value) {
+        return this.fetchAsync("PATCH", FEATURE.expand(username, featureId),
+                featureBody(sourceId, new JsonPrimitive(value), "boolean"));
+    }
+
+    /**
+     * Deletes a single Feature that belongs to the given user, asynchronously
+     *
+     * @param username
+     * @param featureId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAsync(String username, int featureId) {
+        return this.fetchAsync("DELETE", FEATURE.expand(username, featureId));
+    }
+
+    /**
+     * Deletes all features that belongs to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", FEATURES.expand(username));
+    }
+
+    /**
+     * Deletes all features that belongs to the given user, with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username, Filter filter) {
+        return this.fetchAsync("DELETE", FEATURES.expand(username), null, filter);
+    }
+
+    /**
+     * Builds the body creating or upserting a feature
+     *
+     * @param name
+     * @param sourceId
+     *            0 for none
+     * @param value
+     * @param type
+     *            "integer", "double", "string" or "boolean"
+     * @return JsonObject
+     */
+    private static JsonObject featureBody(String name, int sourceId, JsonPrimitive value, String type) {
+        JsonObject data = featureBody(sourceId, value, type);
+        data.addProperty("name", name);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a feature
+     *
+     * @param sourceId
+     *            0 for none
+     * @param value
+     * @param type
+     *            "integer", "double", "string" or "boolean"
+     * @return JsonObject
+     */
+    private static JsonObject featureBody(int sourceId, JsonPrimitive value, String type) {
+        JsonObject data = new JsonObject();
+        data.add("value", value);
+        data.addProperty("type", type);
+        if (sourceId != 0)
+            data.addProperty("sourceId", sourceId);
+        return data;
+    }
 }
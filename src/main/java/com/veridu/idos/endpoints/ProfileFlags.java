@@ -1,11 +1,18 @@
 package com.veridu.idos.endpoints;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Flag;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 /**
  * ProfileFlagsTest Endpoint class
@@ -13,6 +20,12 @@ import com.veridu.idos.utils.IdOSAuthType;
  * @version 2.0
  */
 public class ProfileFlags extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate FLAGS = PathTemplate.compile("profiles/{username}/flags");
+    private static final PathTemplate FLAG = PathTemplate.compile("profiles/{username}/flags/{flagSlug}");
+
     /**
      * Class Constructor
      *
@@ -24,6 +37,19 @@ public class ProfileFlags extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileFlags(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all flags for the given user
      *
@@ -32,7 +58,19 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/flags");
+        return this.fetch("GET", FLAGS.expand(username));
+    }
+
+    /**
+     * Lists all flags for the given user, decoding each item straight from the
+     * response stream
+     *
+     * @param username
+     * @return List<Flag> flags
+     * @throws SDKException
+     */
+    public List<Flag> listAllTyped(String username) throws SDKException {
+        return this.fetchList(FLAGS.expand(username), null, Flag.ADAPTER);
     }
 
     /**
@@ -44,7 +82,72 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/flags", null, filter);
+        return this.fetch("GET", FLAGS.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all flags for the given user with filtering, keeping only the
+     * projected fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", FLAGS.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all flags for the given user with filtering, decoding each item
+     * straight from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Flag> flags
+     * @throws SDKException
+     */
+    public List<Flag> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(FLAGS.expand(username), filter, Flag.ADAPTER);
+    }
+
+    /**
+     * Streams all flags related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> flags
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all flags related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> flags
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", FLAGS.expand(username), filter);
+    }
+
+    /**
+     * Lists all flags related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", FLAGS.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -56,7 +159,35 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, String flagSlug) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/flags/" + flagSlug);
+        return this.fetch("GET", FLAG.expand(username, flagSlug));
+    }
+
+    /**
+     * Retrieves flags related to the given flag slug, keeping only the
+     * projected fields
+     *
+     * @param username
+     * @param flagSlug
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, String flagSlug, Projection projection) throws SDKException {
+        return this.fetch("GET", FLAG.expand(username, flagSlug), null, null, projection);
+    }
+
+    /**
+     * Retrieves flags related to the given flag slug, decoded straight from the
+     * response stream
+     *
+     * @param username
+     * @param flagSlug
+     * @return Flag flag
+     * @throws SDKException
+     */
+    public Flag getOneTyped(String username, String flagSlug) throws SDKException {
+        return this.fetchModel(FLAG.expand(username, flagSlug), Flag.ADAPTER);
     }
 
     /**
@@ -70,11 +201,7 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject create(String username, String slug, String attribute) throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("slug", slug);
-        data.addProperty("attribute", attribute);
-
-        return this.fetch("POST", "profiles/" + username + "/flags", data);
+        return this.fetch("POST", FLAGS.expand(username), flagBody(slug, attribute));
     }
 
     /**
@@ -86,7 +213,7 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject delete(String username, String flagSlug) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/flags/" + flagSlug);
+        return this.fetch("DELETE", FLAG.expand(username, flagSlug));
     }
 
     /**
@@ -97,7 +224,7 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/flags");
+        return this.fetch("DELETE", FLAGS.expand(username));
     }
 
     /**
@@ -109,6 +236,97 @@ public class ProfileFlags extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username, Filter filter) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/flags", null, filter);
+        return this.fetch("DELETE", FLAGS.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all flags for the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", FLAGS.expand(username));
+    }
+
+    /**
+     * Lists all flags for the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", FLAGS.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves flags related to the given flag slug, asynchronously
+     *
+     * @param username
+     * @param flagSlug
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, String flagSlug) {
+        return this.fetchAsync("GET", FLAG.expand(username, flagSlug));
+    }
+
+    /**
+     * Creates a new flag for the given user, asynchronously
+     *
+     * @param username
+     * @param slug
+     * @param attribute
+     *            name of the attribute to which the flag refers to
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String slug, String attribute) {
+        return this.fetchAsync("POST", FLAGS.expand(username), flagBody(slug, attribute));
+    }
+
+    /**
+     * Deletes a flag given its flag slug, asynchronously
+     *
+     * @param username
+     * @param flagSlug
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAsync(String username, String flagSlug) {
+        return this.fetchAsync("DELETE", FLAG.expand(username, flagSlug));
+    }
+
+    /**
+     * Deletes all flags related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", FLAGS.expand(username));
+    }
+
+    /**
+     * Deletes all flags related to the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username, Filter filter) {
+        return this.fetchAsync("DELETE", FLAGS.expand(username), null, filter);
+    }
+
+    /**
+     * Builds the body creating a flag
+     *
+     * @param slug
+     * @param attribute
+     * @return JsonObject
+     */
+    private static JsonObject flagBody(String slug, String attribute) {
+        JsonObject data = new JsonObject();
+        data.addProperty("slug", slug);
+        data.addProperty("attribute", attribute);
+        return data;
     }
 }
@@ -2,11 +2,18 @@ package com.veridu.idos.endpoints;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Gate;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Profile Gates Endpoint Class
@@ -15,6 +22,12 @@ import java.util.HashMap;
  *
  */
 public class ProfileGates extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate GATES = PathTemplate.compile("profiles/{username}/gates");
+    private static final PathTemplate GATE = PathTemplate.compile("profiles/{username}/gates/{gateName}");
+
     /**
      * Class Constructor
      *
@@ -26,6 +39,19 @@ public class ProfileGates extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileGates(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all gates related to the given user
      *
@@ -34,7 +60,19 @@ public class ProfileGates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/gates");
+        return this.fetch("GET", GATES.expand(username));
+    }
+
+    /**
+     * Lists all gates related to the given user, decoding each item straight
+     * from the response stream
+     *
+     * @param username
+     * @return List<Gate> gates
+     * @throws SDKException
+     */
+    public List<Gate> listAllTyped(String username) throws SDKException {
+        return this.fetchList(GATES.expand(username), null, Gate.ADAPTER);
     }
 
     /**
@@ -46,7 +84,72 @@ public class ProfileGates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/gates", null, filter);
+        return this.fetch("GET", GATES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all gates related to the given user with filtering, keeping only
+     * the projected fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", GATES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all gates related to the given user with filtering, decoding each
+     * item straight from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Gate> gates
+     * @throws SDKException
+     */
+    public List<Gate> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(GATES.expand(username), filter, Gate.ADAPTER);
+    }
+
+    /**
+     * Streams all gates related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> gates
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all gates related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> gates
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", GATES.expand(username), filter);
+    }
+
+    /**
+     * Lists all gates related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", GATES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -58,7 +161,34 @@ public class ProfileGates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, String gateName) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/gates/" + gateName);
+        return this.fetch("GET", GATE.expand(username, gateName));
+    }
+
+    /**
+     * Retrieves a gate given its gate name, keeping only the projected fields
+     *
+     * @param username
+     * @param gateName
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, String gateName, Projection projection) throws SDKException {
+        return this.fetch("GET", GATE.expand(username, gateName), null, null, projection);
+    }
+
+    /**
+     * Retrieves a gate given its gate name, decoded straight from the response
+     * stream
+     *
+     * @param username
+     * @param gateName
+     * @return Gate gate
+     * @throws SDKException
+     */
+    public Gate getOneTyped(String username, String gateName) throws SDKException {
+        return this.fetchModel(GATE.expand(username, gateName), Gate.ADAPTER);
     }
 
     /**
@@ -73,10 +203,7 @@ public class ProfileGates extends AbstractEndpoint {
      */
     public JsonObject create(String username, String gateName, String confidenceLevel)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", gateName);
-        data.addProperty("confidence_level", confidenceLevel);
-        return this.fetch("POST", "profiles/" + username + "/gates", data);
+        return this.fetch("POST", GATES.expand(username), gateBody(gateName, confidenceLevel));
     }
 
     /**
@@ -91,10 +218,7 @@ public class ProfileGates extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String gateName, String confidenceLevel)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", gateName);
-        data.addProperty("confidence_level", confidenceLevel);
-        return this.fetch("PUT", "profiles/" + username + "/gates", data);
+        return this.fetch("PUT", GATES.expand(username), gateBody(gateName, confidenceLevel));
     }
 
     /**
@@ -109,9 +233,7 @@ public class ProfileGates extends AbstractEndpoint {
      */
     public JsonObject update(String username, String gateName, String confidenceLevel)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("confidence_level", confidenceLevel);
-        return this.fetch("PATCH", "profiles/" + username + "/gates/" + gateName, data);
+        return this.fetch("PATCH", GATE.expand(username, gateName), gateBody(confidenceLevel));
     }
 
     /**
@@ -123,7 +245,7 @@ public class ProfileGates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject delete(String username, String gateName) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/gates/" + gateName);
+        return this.fetch("DELETE", GATE.expand(username, gateName));
     }
 
     /**
@@ -134,7 +256,7 @@ public class ProfileGates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/gates");
+        return this.fetch("DELETE", GATES.expand(username));
     }
 
     /**
@@ -146,6 +268,132 @@ public class ProfileGates extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username, Filter filter) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/gates", null, filter);
+        return this.fetch("DELETE", GATES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all gates related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", GATES.expand(username));
+    }
+
+    /**
+     * Lists all gates related to the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", GATES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves a gate given its gate name, asynchronously
+     *
+     * @param username
+     * @param gateName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, String gateName) {
+        return this.fetchAsync("GET", GATE.expand(username, gateName));
+    }
+
+    /**
+     * Creates a new gate for the given user, asynchronously
+     *
+     * @param username
+     * @param gateName
+     * @param confidenceLevel
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String gateName, String confidenceLevel) {
+        return this.fetchAsync("POST", GATES.expand(username), gateBody(gateName, confidenceLevel));
+    }
+
+    /**
+     * Updates or creates a gate for the given user, asynchronously
+     *
+     * @param username
+     * @param gateName
+     * @param confidenceLevel
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String gateName, String confidenceLevel) {
+        return this.fetchAsync("PUT", GATES.expand(username), gateBody(gateName, confidenceLevel));
+    }
+
+    /**
+     * Updates a gate for the given gate name, asynchronously
+     *
+     * @param username
+     * @param gateName
+     * @param confidenceLevel
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, String gateName, String confidenceLevel) {
+        return this.fetchAsync("PATCH", GATE.expand(username, gateName), gateBody(confidenceLevel));
+    }
+
+    /**
+     * Deletes a gate related to the given gate name, asynchronously
+     *
+     * @param username
+     * @param gateName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAsync(String username, String gateName) {
+        return this.fetchAsync("DELETE", GATE.expand(username, gateName));
+    }
+
+    /**
+     * Deletes all gates related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", GATES.expand(username));
+    }
+
+    /**
+     * Deletes all gates related to the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username, Filter filter) {
+        return this.fetchAsync("DELETE", GATES.expand(username), null, filter);
+    }
+
+    /**
+     * Builds the body creating or upserting a gate
+     *
+     * @param gateName
+     * @param confidenceLevel
+     * @return JsonObject
+     */
+    private static JsonObject gateBody(String gateName, String confidenceLevel) {
+        JsonObject data = new JsonObject();
+        data.addProperty("name", gateName);
+        data.addProperty("confidence_level", confidenceLevel);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a gate
+     *
+     * @param confidenceLevel
+     * @return JsonObject
+     */
+    private static JsonObject gateBody(String confidenceLevel) {
+        JsonObject data = new JsonObject();
+        data.addProperty("confidence_level", confidenceLevel);
+        return data;
     }
 }
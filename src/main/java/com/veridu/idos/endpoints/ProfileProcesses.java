@@ -2,11 +2,22 @@ package com.veridu.idos.endpoints;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Process;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ProfileProcesses extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate PROCESSES = PathTemplate.compile("profiles/{username}/processes");
+    private static final PathTemplate PROCESS = PathTemplate.compile("profiles/{username}/processes/{processId}");
+
     /**
      * Class Constructor
      *
@@ -18,6 +29,19 @@ public class ProfileProcesses extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileProcesses(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all profiles processes related to the given user
      *
@@ -26,7 +50,33 @@ public class ProfileProcesses extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/processes");
+        return this.fetch("GET", PROCESSES.expand(username));
+    }
+
+    /**
+     * Lists all profiles processes related to the given user, keeping only the
+     * projected fields of each item
+     *
+     * @param username
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Projection projection) throws SDKException {
+        return this.fetch("GET", PROCESSES.expand(username), null, null, projection);
+    }
+
+    /**
+     * Lists all profiles processes related to the given user, decoding each
+     * item straight from the response stream
+     *
+     * @param username
+     * @return List<Process> processes
+     * @throws SDKException
+     */
+    public List<Process> listAllTyped(String username) throws SDKException {
+        return this.fetchList(PROCESSES.expand(username), null, Process.ADAPTER);
     }
 
     /**
@@ -38,6 +88,55 @@ public class ProfileProcesses extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, int processId) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/processes/" + processId);
+        return this.fetch("GET", PROCESS.expand(username, processId));
+    }
+
+    /**
+     * Retrieves an process given its process id, keeping only the projected
+     * fields
+     *
+     * @param username
+     * @param processId
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, int processId, Projection projection) throws SDKException {
+        return this.fetch("GET", PROCESS.expand(username, processId), null, null, projection);
+    }
+
+    /**
+     * Retrieves an process given its process id, decoded straight from the
+     * response stream
+     *
+     * @param username
+     * @param processId
+     * @return Process process
+     * @throws SDKException
+     */
+    public Process getOneTyped(String username, int processId) throws SDKException {
+        return this.fetchModel(PROCESS.expand(username, processId), Process.ADAPTER);
+    }
+
+    /**
+     * Lists all profiles processes related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", PROCESSES.expand(username));
+    }
+
+    /**
+     * Retrieves an process given its process id, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, int processId) {
+        return this.fetchAsync("GET", PROCESS.expand(username, processId));
     }
 }
@@ -3,10 +3,17 @@ package com.veridu.idos.endpoints;
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.InvalidToken;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Raw;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Profile Raw Endpoint Class
@@ -15,6 +22,11 @@ import java.util.HashMap;
  *
  */
 public class ProfileRaw extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate RAW = PathTemplate.compile("profiles/{username}/raw");
+
     /**
      * Class Constructor
      *
@@ -26,6 +38,19 @@ public class ProfileRaw extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileRaw(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all raw data related to the given user
      *
@@ -34,7 +59,19 @@ public class ProfileRaw extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/raw");
+        return this.fetch("GET", RAW.expand(username));
+    }
+
+    /**
+     * Lists all raw data related to the given user, decoding each item straight
+     * from the response stream
+     *
+     * @param username
+     * @return List<Raw> raw data
+     * @throws SDKException
+     */
+    public List<Raw> listAllTyped(String username) throws SDKException {
+        return this.fetchList(RAW.expand(username), null, Raw.ADAPTER);
     }
 
     /**
@@ -46,7 +83,72 @@ public class ProfileRaw extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/raw", null, filter);
+        return this.fetch("GET", RAW.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all raw data related to the given user with filtering, keeping only
+     * the projected fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", RAW.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all raw data related to the given user with filtering, decoding
+     * each item straight from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Raw> raw data
+     * @throws SDKException
+     */
+    public List<Raw> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(RAW.expand(username), filter, Raw.ADAPTER);
+    }
+
+    /**
+     * Streams all raw data related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> raw data
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all raw data related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> raw data
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", RAW.expand(username), filter);
+    }
+
+    /**
+     * Lists all raw data related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", RAW.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -61,16 +163,7 @@ public class ProfileRaw extends AbstractEndpoint {
      */
     public JsonObject create(String username, int sourceId, String collection, HashMap<String, String> collectionData)
             throws SDKException {
-        JsonObject array = new JsonObject();
-        for (String key : collectionData.keySet()) {
-            array.addProperty(key, collectionData.get(key));
-        }
-        JsonObject data = new JsonObject();
-        data.addProperty("collection", collection);
-        data.add("data", array);
-        data.addProperty("source_id", sourceId);
-
-        return this.fetch("POST", "profiles/" + username + "/raw", data);
+        return this.fetch("POST", RAW.expand(username), rawBody(sourceId, collection, collectionData));
     }
 
     /**
@@ -85,16 +178,7 @@ public class ProfileRaw extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, int sourceId, String collection, HashMap<String, String> collectionData)
             throws SDKException {
-        JsonObject array = new JsonObject();
-        for (String key : collectionData.keySet()) {
-            array.addProperty(key, collectionData.get(key));
-        }
-        JsonObject data = new JsonObject();
-        data.addProperty("collection", collection);
-        data.add("data", array);
-        data.addProperty("source_id", sourceId);
-
-        return this.fetch("PUT", "profiles/" + username + "/raw", data);
+        return this.fetch("PUT", RAW.expand(username), rawBody(sourceId, collection, collectionData));
     }
 
     /**
@@ -105,6 +189,85 @@ public class ProfileRaw extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/raw");
+        return this.fetch("DELETE", RAW.expand(username));
+    }
+
+    /**
+     * Lists all raw data related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", RAW.expand(username));
+    }
+
+    /**
+     * Lists all raw data related to the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", RAW.expand(username), null, filter);
+    }
+
+    /**
+     * Creates a new raw data for the given user, asynchronously
+     *
+     * @param username
+     * @param sourceId
+     * @param collection
+     * @param collectionData
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, int sourceId, String collection,
+            HashMap<String, String> collectionData) {
+        return this.fetchAsync("POST", RAW.expand(username), rawBody(sourceId, collection, collectionData));
+    }
+
+    /**
+     * Creates or updates a raw data for the given user, asynchronously
+     *
+     * @param username
+     * @param sourceId
+     * @param collection
+     * @param collectionData
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, int sourceId, String collection,
+            HashMap<String, String> collectionData) {
+        return this.fetchAsync("PUT", RAW.expand(username), rawBody(sourceId, collection, collectionData));
+    }
+
+    /**
+     * Deletes all raw data related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", RAW.expand(username));
+    }
+
+    /**
+     * Builds the body creating or upserting raw data
+     *
+     * @param sourceId
+     * @param collection
+     * @param collectionData
+     * @return JsonObject
+     */
+    private static JsonObject rawBody(int sourceId, String collection, HashMap<String, String> collectionData) {
+        JsonObject array = new JsonObject();
+        for (String key : collectionData.keySet()) {
+            array.addProperty(key, collectionData.get(key));
+        }
+        JsonObject data = new JsonObject();
+        data.addProperty("collection", collection);
+        data.add("data", array);
+        data.addProperty("source_id", sourceId);
+        return data;
     }
 }
@@ -3,13 +3,22 @@ package com.veridu.idos.endpoints;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Recommendation;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 import static com.veridu.idos.utils.IdOSAuthType.*;
 
 public class ProfileRecommendation extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate RECOMMENDATION = PathTemplate.compile("profiles/{username}/recommendation");
+
     /**
      * Class constructor
      */
@@ -17,6 +26,19 @@ public class ProfileRecommendation extends AbstractEndpoint {
         super(credentials, HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileRecommendation(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Retrieves the profile Recommendation for the provided username
      *
@@ -25,7 +47,33 @@ public class ProfileRecommendation extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/recommendation");
+        return this.fetch("GET", RECOMMENDATION.expand(username));
+    }
+
+    /**
+     * Retrieves the profile Recommendation for the provided username, keeping
+     * only the projected fields
+     *
+     * @param username
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, Projection projection) throws SDKException {
+        return this.fetch("GET", RECOMMENDATION.expand(username), null, null, projection);
+    }
+
+    /**
+     * Retrieves the profile Recommendation for the provided username, decoded
+     * straight from the response stream
+     *
+     * @param username
+     * @return Recommendation recommendation
+     * @throws SDKException
+     */
+    public Recommendation getOneTyped(String username) throws SDKException {
+        return this.fetchModel(RECOMMENDATION.expand(username), Recommendation.ADAPTER);
     }
 
     /**
@@ -41,10 +89,46 @@ public class ProfileRecommendation extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String result, JsonArray passed, JsonArray failed)
             throws SDKException, UnsupportedEncodingException {
+        return this.fetch("PUT", RECOMMENDATION.expand(username), recommendationBody(result, passed, failed));
+    }
+
+    /**
+     * Retrieves the profile Recommendation for the provided username, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username) {
+        return this.fetchAsync("GET", RECOMMENDATION.expand(username));
+    }
+
+    /**
+     * Updates or creates the profile recommendation for the provided username, asynchronously
+     *
+     * @param username
+     * @param result
+     * @param passed
+     * @param failed
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String result, JsonArray passed,
+            JsonArray failed) {
+        return this.fetchAsync("PUT", RECOMMENDATION.expand(username), recommendationBody(result, passed, failed));
+    }
+
+    /**
+     * Builds the body upserting a recommendation
+     *
+     * @param result
+     * @param passed
+     * @param failed
+     * @return JsonObject
+     */
+    private static JsonObject recommendationBody(String result, JsonArray passed, JsonArray failed) {
         JsonObject data = new JsonObject();
         data.addProperty("result", result);
         data.add("passed", passed);
         data.add("failed", failed);
-        return this.fetch("PUT", "profiles/" + username + "/recommendation", data);
+        return data;
     }
 }
@@ -2,11 +2,18 @@ package com.veridu.idos.endpoints;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Reference;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Profile References Endpoint Class
@@ -15,6 +22,13 @@ import java.util.HashMap;
  *
  */
 public class ProfileReferences extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate REFERENCES = PathTemplate.compile("profiles/{username}/references");
+    private static final PathTemplate REFERENCE =
+            PathTemplate.compile("profiles/{username}/references/{attributeName}");
+
     /**
      * Class Constructor
      *
@@ -26,6 +40,19 @@ public class ProfileReferences extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class Constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileReferences(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all references for the given username
      *
@@ -34,7 +61,19 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/references");
+        return this.fetch("GET", REFERENCES.expand(username));
+    }
+
+    /**
+     * Lists all references for the given username, decoding each item straight
+     * from the response stream
+     *
+     * @param username
+     * @return List<Reference> references
+     * @throws SDKException
+     */
+    public List<Reference> listAllTyped(String username) throws SDKException {
+        return this.fetchList(REFERENCES.expand(username), null, Reference.ADAPTER);
     }
 
     /**
@@ -45,7 +84,70 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/references", null, filter);
+        return this.fetch("GET", REFERENCES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all references for the given user, keeping only the projected
+     * fields of each item
+     *
+     * @param username
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", REFERENCES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all references for the given user, decoding each item straight from
+     * the response stream
+     *
+     * @param username
+     * @return List<Reference> references
+     * @throws SDKException
+     */
+    public List<Reference> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(REFERENCES.expand(username), filter, Reference.ADAPTER);
+    }
+
+    /**
+     * Streams all references related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> references
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all references related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> references
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", REFERENCES.expand(username), filter);
+    }
+
+    /**
+     * Lists all references related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", REFERENCES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -57,7 +159,35 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, String attributeName) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/references/" + attributeName);
+        return this.fetch("GET", REFERENCE.expand(username, attributeName));
+    }
+
+    /**
+     * Retrieves a reference given its attribute name, keeping only the
+     * projected fields
+     *
+     * @param username
+     * @param attributeName
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, String attributeName, Projection projection) throws SDKException {
+        return this.fetch("GET", REFERENCE.expand(username, attributeName), null, null, projection);
+    }
+
+    /**
+     * Retrieves a reference given its attribute name, decoded straight from the
+     * response stream
+     *
+     * @param username
+     * @param attributeName
+     * @return Reference reference
+     * @throws SDKException
+     */
+    public Reference getOneTyped(String username, String attributeName) throws SDKException {
+        return this.fetchModel(REFERENCE.expand(username, attributeName), Reference.ADAPTER);
     }
 
     /**
@@ -72,10 +202,7 @@ public class ProfileReferences extends AbstractEndpoint {
      */
     public JsonObject create(String username, String attributeName, String attributeValue)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", attributeName);
-        data.addProperty("value", attributeValue);
-        return this.fetch("POST", "profiles/" + username + "/references", data);
+        return this.fetch("POST", REFERENCES.expand(username), referenceBody(attributeName, attributeValue));
     }
 
     /**
@@ -88,9 +215,7 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject update(String username, String attributeName, String attributeValue) throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("value", attributeValue);
-        return this.fetch("PATCH", "profiles/" + username + "/references/" + attributeName, data);
+        return this.fetch("PATCH", REFERENCE.expand(username, attributeName), referenceBody(attributeValue));
     }
 
     /**
@@ -102,7 +227,7 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject delete(String username, String attributeName) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/references/" + attributeName);
+        return this.fetch("DELETE", REFERENCE.expand(username, attributeName));
     }
 
     /**
@@ -113,7 +238,7 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/references");
+        return this.fetch("DELETE", REFERENCES.expand(username));
     }
 
     /**
@@ -124,6 +249,118 @@ public class ProfileReferences extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username, Filter filter) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/references", null, filter);
+        return this.fetch("DELETE", REFERENCES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all references for the given username, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", REFERENCES.expand(username));
+    }
+
+    /**
+     * Lists all references for the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", REFERENCES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves a reference given its attribute name, asynchronously
+     *
+     * @param username
+     * @param attributeName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, String attributeName) {
+        return this.fetchAsync("GET", REFERENCE.expand(username, attributeName));
+    }
+
+    /**
+     * Creates a reference for the given user, asynchronously
+     *
+     * @param username
+     * @param attributeName
+     * @param attributeValue
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String attributeName, String attributeValue) {
+        return this.fetchAsync("POST", REFERENCES.expand(username), referenceBody(attributeName, attributeValue));
+    }
+
+    /**
+     * Updates a reference given the attribute name, asynchronously
+     *
+     * @param username
+     * @param attributeName
+     * @param attributeValue
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, String attributeName, String attributeValue) {
+        return this.fetchAsync("PATCH", REFERENCE.expand(username, attributeName), referenceBody(attributeValue));
+    }
+
+    /**
+     * Deletes a reference given the attribute name, asynchronously
+     *
+     * @param username
+     * @param attributeName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAsync(String username, String attributeName) {
+        return this.fetchAsync("DELETE", REFERENCE.expand(username, attributeName));
+    }
+
+    /**
+     * Deletes all references related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", REFERENCES.expand(username));
+    }
+
+    /**
+     * Deletes all references related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username, Filter filter) {
+        return this.fetchAsync("DELETE", REFERENCES.expand(username), null, filter);
+    }
+
+    /**
+     * Builds the body creating a reference
+     *
+     * @param attributeName
+     * @param attributeValue
+     * @return JsonObject
+     */
+    private static JsonObject referenceBody(String attributeName, String attributeValue) {
+        JsonObject data = new JsonObject();
+        data.addProperty("name", attributeName);
+        data.addProperty("value", attributeValue);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a reference
+     *
+     * @param attributeValue
+     * @return JsonObject
+     */
+    private static JsonObject referenceBody(String attributeValue) {
+        JsonObject data = new JsonObject();
+        data.addProperty("value", attributeValue);
+        return data;
     }
 }
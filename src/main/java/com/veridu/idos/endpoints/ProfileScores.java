@@ -2,11 +2,18 @@ package com.veridu.idos.endpoints;
 
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Score;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 /**
  * Profile Scores Endpoint Class
@@ -15,6 +22,12 @@ import com.veridu.idos.utils.IdOSAuthType;
  *
  */
 public class ProfileScores extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate SCORES = PathTemplate.compile("profiles/{username}/scores");
+    private static final PathTemplate SCORE = PathTemplate.compile("profiles/{username}/scores/{scoreName}");
+
     /**
      * Constructor Class
      *
@@ -26,6 +39,19 @@ public class ProfileScores extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Constructor Class
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileScores(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all scores for the given user
      *
@@ -34,7 +60,19 @@ public class ProfileScores extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/scores");
+        return this.fetch("GET", SCORES.expand(username));
+    }
+
+    /**
+     * Lists all scores for the given user, decoding each item straight from the
+     * response stream
+     *
+     * @param username
+     * @return List<Score> scores
+     * @throws SDKException
+     */
+    public List<Score> listAllTyped(String username) throws SDKException {
+        return this.fetchList(SCORES.expand(username), null, Score.ADAPTER);
     }
 
     /**
@@ -46,7 +84,72 @@ public class ProfileScores extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/scores", null, filter);
+        return this.fetch("GET", SCORES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all scores for the given user with filtering, keeping only the
+     * projected fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", SCORES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all scores for the given user with filtering, decoding each item
+     * straight from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Score> scores
+     * @throws SDKException
+     */
+    public List<Score> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(SCORES.expand(username), filter, Score.ADAPTER);
+    }
+
+    /**
+     * Streams all scores related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> scores
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all scores related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> scores
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", SCORES.expand(username), filter);
+    }
+
+    /**
+     * Lists all scores related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", SCORES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -58,7 +161,35 @@ public class ProfileScores extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, String scoreName) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/scores/" + scoreName);
+        return this.fetch("GET", SCORE.expand(username, scoreName));
+    }
+
+    /**
+     * Retrieves the score for the given score name, keeping only the projected
+     * fields
+     *
+     * @param username
+     * @param scoreName
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, String scoreName, Projection projection) throws SDKException {
+        return this.fetch("GET", SCORE.expand(username, scoreName), null, null, projection);
+    }
+
+    /**
+     * Retrieves the score for the given score name, decoded straight from the
+     * response stream
+     *
+     * @param username
+     * @param scoreName
+     * @return Score score
+     * @throws SDKException
+     */
+    public Score getOneTyped(String username, String scoreName) throws SDKException {
+        return this.fetchModel(SCORE.expand(username, scoreName), Score.ADAPTER);
     }
 
     /**
@@ -74,11 +205,7 @@ public class ProfileScores extends AbstractEndpoint {
      */
     public JsonObject create(String username, String scoreName, String attributeName, double value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", scoreName);
-        data.addProperty("value", value);
-        data.addProperty("attribute", attributeName);
-        return this.fetch("POST", "profiles/" + username + "/scores", data);
+        return this.fetch("POST", SCORES.expand(username), scoreBody(scoreName, attributeName, value));
     }
 
     /**
@@ -94,11 +221,7 @@ public class ProfileScores extends AbstractEndpoint {
      */
     public JsonObject upsert(String username, String scoreName, String attributeName, double value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", scoreName);
-        data.addProperty("value", value);
-        data.addProperty("attribute", attributeName);
-        return this.fetch("PUT", "profiles/" + username + "/scores", data);
+        return this.fetch("PUT", SCORES.expand(username), scoreBody(scoreName, attributeName, value));
     }
 
     /**
@@ -114,10 +237,7 @@ public class ProfileScores extends AbstractEndpoint {
      */
     public JsonObject update(String username, String scoreName, String attributeName, double value)
             throws SDKException, UnsupportedEncodingException {
-        JsonObject data = new JsonObject();
-        data.addProperty("value", value);
-        data.addProperty("attribute", attributeName);
-        return this.fetch("PATCH", "profiles/" + username + "/scores/" + scoreName, data);
+        return this.fetch("PATCH", SCORE.expand(username, scoreName), scoreBody(attributeName, value));
     }
 
     /**
@@ -129,7 +249,7 @@ public class ProfileScores extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject delete(String username, String scoreName) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/scores/" + scoreName);
+        return this.fetch("DELETE", SCORE.expand(username, scoreName));
     }
 
     /**
@@ -140,7 +260,7 @@ public class ProfileScores extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/scores");
+        return this.fetch("DELETE", SCORES.expand(username));
     }
 
     /**
@@ -152,6 +272,142 @@ public class ProfileScores extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username, Filter filter) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/scores", null, filter);
+        return this.fetch("DELETE", SCORES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all scores for the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", SCORES.expand(username));
+    }
+
+    /**
+     * Lists all scores for the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", SCORES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves the score for the given score name, asynchronously
+     *
+     * @param username
+     * @param scoreName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, String scoreName) {
+        return this.fetchAsync("GET", SCORE.expand(username, scoreName));
+    }
+
+    /**
+     * Creates a new score for the given user, asynchronously
+     *
+     * @param username
+     * @param scoreName
+     * @param attributeName
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String scoreName, String attributeName,
+            double value) {
+        return this.fetchAsync("POST", SCORES.expand(username), scoreBody(scoreName, attributeName, value));
+    }
+
+    /**
+     * Creates or updates a score for the given user, asynchronously
+     *
+     * @param username
+     * @param scoreName
+     * @param attributeName
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> upsertAsync(String username, String scoreName, String attributeName,
+            double value) {
+        return this.fetchAsync("PUT", SCORES.expand(username), scoreBody(scoreName, attributeName, value));
+    }
+
+    /**
+     * Updates an existing score for the given score name, asynchronously
+     *
+     * @param username
+     * @param scoreName
+     * @param attributeName
+     * @param value
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, String scoreName, String attributeName,
+            double value) {
+        return this.fetchAsync("PATCH", SCORE.expand(username, scoreName), scoreBody(attributeName, value));
+    }
+
+    /**
+     * Deletes a score given its score name, asynchronously
+     *
+     * @param username
+     * @param scoreName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAsync(String username, String scoreName) {
+        return this.fetchAsync("DELETE", SCORE.expand(username, scoreName));
+    }
+
+    /**
+     * Deletes all scores related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", SCORES.expand(username));
+    }
+
+    /**
+     * Deletes all scores related to the given user, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username, Filter filter) {
+        return this.fetchAsync("DELETE", SCORES.expand(username), null, filter);
+    }
+
+    /**
+     * Builds the body creating or upserting a score
+     *
+     * @param scoreName
+     * @param attributeName
+     * @param value
+     * @return JsonObject
+     */
+    private static JsonObject scoreBody(String scoreName, String attributeName, double value) {
+        JsonObject data = new JsonObject();
+        data.addProperty("name", scoreName);
+        data.addProperty("value", value);
+        data.addProperty("attribute", attributeName);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a score
+     *
+     * @param attributeName
+     * @param value
+     * @return JsonObject
+     */
+    private static JsonObject scoreBody(String attributeName, double value) {
+        JsonObject data = new JsonObject();
+        data.addProperty("value", value);
+        data.addProperty("attribute", attributeName);
+        return data;
     }
 }
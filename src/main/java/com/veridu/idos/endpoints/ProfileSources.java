@@ -1,16 +1,29 @@
 package com.veridu.idos.endpoints;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Source;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 /**
  * ProfileSources Endpoint class
  */
 public class ProfileSources extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate SOURCES = PathTemplate.compile("profiles/{username}/sources");
+    private static final PathTemplate SOURCE = PathTemplate.compile("profiles/{username}/sources/{sourceId}");
+
     /**
      * Constructor Class
      *
@@ -22,6 +35,19 @@ public class ProfileSources extends AbstractEndpoint {
         super(credentials, IdOSAuthType.USER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Constructor Class
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileSources(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.USER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all sources related to the given user
      *
@@ -30,7 +56,19 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/sources");
+        return this.fetch("GET", SOURCES.expand(username));
+    }
+
+    /**
+     * Lists all sources related to the given user, decoding each item straight
+     * from the response stream
+     *
+     * @param username
+     * @return List<Source> sources
+     * @throws SDKException
+     */
+    public List<Source> listAllTyped(String username) throws SDKException {
+        return this.fetchList(SOURCES.expand(username), null, Source.ADAPTER);
     }
 
     /**
@@ -42,7 +80,72 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, Filter filter) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/sources", null, filter);
+        return this.fetch("GET", SOURCES.expand(username), null, filter);
+    }
+
+    /**
+     * Lists all sources related to the given user with filtering, keeping only
+     * the projected fields of each item
+     *
+     * @param username
+     * @param filter
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Projection projection) throws SDKException {
+        return this.fetch("GET", SOURCES.expand(username), null, filter, projection);
+    }
+
+    /**
+     * Lists all sources related to the given user with filtering, decoding each
+     * item straight from the response stream
+     *
+     * @param username
+     * @param filter
+     * @return List<Source> sources
+     * @throws SDKException
+     */
+    public List<Source> listAllTyped(String username, Filter filter) throws SDKException {
+        return this.fetchList(SOURCES.expand(username), filter, Source.ADAPTER);
+    }
+
+    /**
+     * Streams all sources related to the given user, requesting pages on demand
+     *
+     * @param username
+     * @return Stream<JsonObject> sources
+     */
+    public Stream<JsonObject> streamAll(String username) {
+        return this.streamAll(username, null);
+    }
+
+    /**
+     * Streams all sources related to the given user with filtering, requesting
+     * pages on demand
+     *
+     * @param username
+     * @param filter
+     * @return Stream<JsonObject> sources
+     */
+    public Stream<JsonObject> streamAll(String username, Filter filter) {
+        return this.stream("GET", SOURCES.expand(username), filter);
+    }
+
+    /**
+     * Lists all sources related to the given user with filtering, handing each
+     * item to the consumer as soon as it is parsed instead of keeping the
+     * whole data array in memory
+     *
+     * @param username
+     * @param filter
+     * @param itemConsumer
+     * @return JsonObject response without the data array
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, Filter filter, Consumer<JsonObject> itemConsumer) throws SDKException {
+        return this.fetchEach("GET", SOURCES.expand(username), filter, itemConsumer);
     }
 
     /**
@@ -54,7 +157,34 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, int sourceId) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/sources/" + sourceId);
+        return this.fetch("GET", SOURCE.expand(username, sourceId));
+    }
+
+    /**
+     * Retrieves a source given its source id, keeping only the projected fields
+     *
+     * @param username
+     * @param sourceId
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, int sourceId, Projection projection) throws SDKException {
+        return this.fetch("GET", SOURCE.expand(username, sourceId), null, null, projection);
+    }
+
+    /**
+     * Retrieves a source given its source id, decoded straight from the
+     * response stream
+     *
+     * @param username
+     * @param sourceId
+     * @return Source source
+     * @throws SDKException
+     */
+    public Source getOneTyped(String username, int sourceId) throws SDKException {
+        return this.fetchModel(SOURCE.expand(username, sourceId), Source.ADAPTER);
     }
 
     /**
@@ -67,13 +197,7 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject create(String username, String name, HashMap<String, String> tags) throws SDKException {
-        JsonObject jsonTags = new JsonObject();
-        for (String key : tags.keySet())
-            jsonTags.addProperty(key, tags.get(key));
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.add("tags", jsonTags);
-        return this.fetch("POST", "profiles/" + username + "/sources", data);
+        return this.fetch("POST", SOURCES.expand(username), sourceBody(name, tags));
     }
 
     /**
@@ -86,12 +210,7 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject update(String username, int sourceId, HashMap<String, String> tags) throws SDKException {
-        JsonObject jsonTags = new JsonObject();
-        for (String key : tags.keySet())
-            jsonTags.addProperty(key, tags.get(key));
-        JsonObject data = new JsonObject();
-        data.add("tags", jsonTags);
-        return this.fetch("PATCH", "profiles/" + username + "/sources/" + sourceId, data);
+        return this.fetch("PATCH", SOURCE.expand(username, sourceId), sourceBody(tags));
     }
 
     /**
@@ -103,7 +222,7 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject delete(String username, int sourceId) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/sources/" + sourceId);
+        return this.fetch("DELETE", SOURCE.expand(username, sourceId));
     }
 
     /**
@@ -114,6 +233,111 @@ public class ProfileSources extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject deleteAll(String username) throws SDKException {
-        return this.fetch("DELETE", "profiles/" + username + "/sources");
+        return this.fetch("DELETE", SOURCES.expand(username));
+    }
+
+    /**
+     * Lists all sources related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username) {
+        return this.fetchAsync("GET", SOURCES.expand(username));
+    }
+
+    /**
+     * Lists all sources related to the given user with filtering, asynchronously
+     *
+     * @param username
+     * @param filter
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, Filter filter) {
+        return this.fetchAsync("GET", SOURCES.expand(username), null, filter);
+    }
+
+    /**
+     * Retrieves a source given its source id, asynchronously
+     *
+     * @param username
+     * @param sourceId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, int sourceId) {
+        return this.fetchAsync("GET", SOURCE.expand(username, sourceId));
+    }
+
+    /**
+     * Creates a source for the given username, asynchronously
+     *
+     * @param username
+     * @param name
+     * @param tags
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, String name, HashMap<String, String> tags) {
+        return this.fetchAsync("POST", SOURCES.expand(username), sourceBody(name, tags));
+    }
+
+    /**
+     * Updates a source giving its sourceId, asynchronously
+     *
+     * @param username
+     * @param tags
+     * @param sourceId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int sourceId, HashMap<String, String> tags) {
+        return this.fetchAsync("PATCH", SOURCE.expand(username, sourceId), sourceBody(tags));
+    }
+
+    /**
+     * Deletes a source given its source id, asynchronously
+     *
+     * @param username
+     * @param sourceId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAsync(String username, int sourceId) {
+        return this.fetchAsync("DELETE", SOURCE.expand(username, sourceId));
+    }
+
+    /**
+     * Deletes all sources related to the given user, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> deleteAllAsync(String username) {
+        return this.fetchAsync("DELETE", SOURCES.expand(username));
+    }
+
+    /**
+     * Builds the body creating a source
+     *
+     * @param name
+     * @param tags
+     * @return JsonObject
+     */
+    private static JsonObject sourceBody(String name, HashMap<String, String> tags) {
+        JsonObject data = sourceBody(tags);
+        data.addProperty("name", name);
+        return data;
+    }
+
+    /**
+     * Builds the body updating the tags of a source
+     *
+     * @param tags
+     * @return JsonObject
+     */
+    private static JsonObject sourceBody(HashMap<String, String> tags) {
+        JsonObject jsonTags = new JsonObject();
+        for (String key : tags.keySet())
+            jsonTags.addProperty(key, tags.get(key));
+        JsonObject data = new JsonObject();
+        data.add("tags", jsonTags);
+        return data;
     }
 }
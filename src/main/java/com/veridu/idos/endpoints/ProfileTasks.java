@@ -2,14 +2,26 @@ package com.veridu.idos.endpoints;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Task;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Profile Tasks Endpoint Class
  */
 public class ProfileTasks extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate TASKS = PathTemplate.compile("profiles/{username}/processes/{processId}/tasks");
+    private static final PathTemplate TASK =
+            PathTemplate.compile("profiles/{username}/processes/{processId}/tasks/{taskId}");
+
     /**
      * Constructor Class
      *
@@ -21,6 +33,19 @@ public class ProfileTasks extends AbstractEndpoint {
         super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Constructor Class
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public ProfileTasks(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.HANDLER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all tasks related to the given user and process id
      *
@@ -30,7 +55,35 @@ public class ProfileTasks extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject listAll(String username, int processId) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/processes/" + processId + "/tasks");
+        return this.fetch("GET", TASKS.expand(username, processId));
+    }
+
+    /**
+     * Lists all tasks related to the given user and process id, keeping only
+     * the projected fields of each item
+     *
+     * @param username
+     * @param processId
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject listAll(String username, int processId, Projection projection) throws SDKException {
+        return this.fetch("GET", TASKS.expand(username, processId), null, null, projection);
+    }
+
+    /**
+     * Lists all tasks related to the given user and process id, decoding each
+     * item straight from the response stream
+     *
+     * @param username
+     * @param processId
+     * @return List<Task> tasks
+     * @throws SDKException
+     */
+    public List<Task> listAllTyped(String username, int processId) throws SDKException {
+        return this.fetchList(TASKS.expand(username, processId), null, Task.ADAPTER);
     }
 
     /**
@@ -43,7 +96,36 @@ public class ProfileTasks extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username, int processId, int taskId) throws SDKException {
-        return this.fetch("GET", "profiles/" + username + "/processes/" + processId + "/tasks/" + taskId);
+        return this.fetch("GET", TASK.expand(username, processId, taskId));
+    }
+
+    /**
+     * Retrieves a task given its task id, keeping only the projected fields
+     *
+     * @param username
+     * @param processId
+     * @param taskId
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, int processId, int taskId, Projection projection) throws SDKException {
+        return this.fetch("GET", TASK.expand(username, processId, taskId), null, null, projection);
+    }
+
+    /**
+     * Retrieves a task given its task id, decoded straight from the response
+     * stream
+     *
+     * @param username
+     * @param processId
+     * @param taskId
+     * @return Task task
+     * @throws SDKException
+     */
+    public Task getOneTyped(String username, int processId, int taskId) throws SDKException {
+        return this.fetchModel(TASK.expand(username, processId, taskId), Task.ADAPTER);
     }
 
     /**
@@ -59,12 +141,7 @@ public class ProfileTasks extends AbstractEndpoint {
      */
     public JsonObject create(String username, int processId, String name, String event, boolean running)
             throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("event", event);
-        data.addProperty("running", running);
-
-        return this.fetch("POST", "profiles/" + username + "/processes/" + processId + "/tasks", data);
+        return this.fetch("POST", TASKS.expand(username, processId), taskBody(name, event, running));
     }
 
     /**
@@ -81,13 +158,7 @@ public class ProfileTasks extends AbstractEndpoint {
      */
     public JsonObject create(String username, int processId, String name, String event, boolean running,
             boolean success) throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("event", event);
-        data.addProperty("running", running);
-        data.addProperty("success", success);
-
-        return this.fetch("POST", "profiles/" + username + "/processes/" + processId + "/tasks", data);
+        return this.fetch("POST", TASKS.expand(username, processId), taskBody(name, event, running, success));
     }
 
     /**
@@ -105,14 +176,7 @@ public class ProfileTasks extends AbstractEndpoint {
      */
     public JsonObject create(String username, int processId, String name, String event, boolean running,
             boolean success, String message) throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("name", name);
-        data.addProperty("event", event);
-        data.addProperty("running", running);
-        data.addProperty("success", success);
-        data.addProperty("message", message);
-
-        return this.fetch("POST", "profiles/" + username + "/processes/" + processId + "/tasks", data);
+        return this.fetch("POST", TASKS.expand(username, processId), taskBody(name, event, running, success, message));
     }
 
     /**
@@ -129,11 +193,7 @@ public class ProfileTasks extends AbstractEndpoint {
      */
     public JsonObject update(String username, int processId, int taskId, boolean running, boolean success,
             String message) throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("running", running);
-        data.addProperty("success", success);
-        data.addProperty("message", message);
-        return this.fetch("PATCH", "profiles/" + username + "/processes/" + processId + "/tasks/" + taskId, data);
+        return this.fetch("PATCH", TASK.expand(username, processId, taskId), taskBody(running, success, message));
     }
 
     /**
@@ -150,10 +210,7 @@ public class ProfileTasks extends AbstractEndpoint {
      */
     public JsonObject update(String username, int processId, int taskId, boolean running, boolean success)
             throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("running", running);
-        data.addProperty("success", success);
-        return this.fetch("PATCH", "profiles/" + username + "/processes/" + processId + "/tasks/" + taskId, data);
+        return this.fetch("PATCH", TASK.expand(username, processId, taskId), taskBody(running, success));
     }
 
     /**
@@ -168,8 +225,209 @@ public class ProfileTasks extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject update(String username, int processId, int taskId, boolean running) throws SDKException {
+        return this.fetch("PATCH", TASK.expand(username, processId, taskId), taskBody(running));
+    }
+
+    /**
+     * Lists all tasks related to the given user and process id, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync(String username, int processId) {
+        return this.fetchAsync("GET", TASKS.expand(username, processId));
+    }
+
+    /**
+     * Retrieves a task given its task id, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param taskId
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username, int processId, int taskId) {
+        return this.fetchAsync("GET", TASK.expand(username, processId, taskId));
+    }
+
+    /**
+     * Creates a new task for the given user, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param name
+     * @param event
+     * @param running
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, int processId, String name, String event,
+            boolean running) {
+        return this.fetchAsync("POST", TASKS.expand(username, processId), taskBody(name, event, running));
+    }
+
+    /**
+     * Creates a new task for the given user, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param name
+     * @param event
+     * @param running
+     * @param success
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, int processId, String name, String event,
+            boolean running, boolean success) {
+        return this.fetchAsync("POST", TASKS.expand(username, processId), taskBody(name, event, running, success));
+    }
+
+    /**
+     * Creates a new task for the given user, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param name
+     * @param event
+     * @param running
+     * @param success
+     * @param message
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String username, int processId, String name, String event,
+            boolean running, boolean success, String message) {
+        return this.fetchAsync("POST", TASKS.expand(username, processId),
+                taskBody(name, event, running, success, message));
+    }
+
+    /**
+     * Updates a task given its taksId and processId, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param taskId
+     * @param running
+     * @param success
+     * @param message
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int processId, int taskId, boolean running,
+            boolean success, String message) {
+        return this.fetchAsync("PATCH", TASK.expand(username, processId, taskId), taskBody(running, success, message));
+    }
+
+    /**
+     * Updates a task given its task id, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param taskId
+     * @param running
+     * @param success
+     *
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int processId, int taskId, boolean running,
+            boolean success) {
+        return this.fetchAsync("PATCH", TASK.expand(username, processId, taskId), taskBody(running, success));
+    }
+
+    /**
+     * Updates a task given its task id, asynchronously
+     *
+     * @param username
+     * @param processId
+     * @param taskId
+     * @param running
+     *
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> updateAsync(String username, int processId, int taskId, boolean running) {
+        return this.fetchAsync("PATCH", TASK.expand(username, processId, taskId), taskBody(running));
+    }
+
+    /**
+     * Builds the body creating a task
+     *
+     * @param name
+     * @param event
+     * @param running
+     * @return JsonObject
+     */
+    private static JsonObject taskBody(String name, String event, boolean running) {
+        JsonObject data = taskBody(running);
+        data.addProperty("name", name);
+        data.addProperty("event", event);
+        return data;
+    }
+
+    /**
+     * Builds the body creating a task
+     *
+     * @param name
+     * @param event
+     * @param running
+     * @param success
+     * @return JsonObject
+     */
+    private static JsonObject taskBody(String name, String event, boolean running, boolean success) {
+        JsonObject data = taskBody(name, event, running);
+        data.addProperty("success", success);
+        return data;
+    }
+
+    /**
+     * Builds the body creating a task
+     *
+     * @param name
+     * @param event
+     * @param running
+     * @param success
+     * @param message
+     * @return JsonObject
+     */
+    private static JsonObject taskBody(String name, String event, boolean running, boolean success, String message) {
+        JsonObject data = taskBody(name, event, running, success);
+        data.addProperty("message", message);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a task
+     *
+     * @param running
+     * @return JsonObject
+     */
+    private static JsonObject taskBody(boolean running) {
         JsonObject data = new JsonObject();
         data.addProperty("running", running);
-        return this.fetch("PATCH", "profiles/" + username + "/processes/" + processId + "/tasks/" + taskId, data);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a task
+     *
+     * @param running
+     * @param success
+     * @return JsonObject
+     */
+    private static JsonObject taskBody(boolean running, boolean success) {
+        JsonObject data = taskBody(running);
+        data.addProperty("success", success);
+        return data;
+    }
+
+    /**
+     * Builds the body updating a task
+     *
+     * @param running
+     * @param success
+     * @param message
+     * @return JsonObject
+     */
+    private static JsonObject taskBody(boolean running, boolean success, String message) {
+        JsonObject data = taskBody(running, success);
+        data.addProperty("message", message);
+        return data;
     }
 }
@@ -1,12 +1,21 @@
 package com.veridu.idos.endpoints;
 
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Profile;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+import com.veridu.idos.utils.Projection;
 
 public class Profiles extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate PROFILE = PathTemplate.compile("profiles/{username}");
+
     /**
      * Class constructor
      */
@@ -14,6 +23,19 @@ public class Profiles extends AbstractEndpoint {
         super(credentials, IdOSAuthType.USER, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Class constructor
+     *
+     * @param credentials
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public Profiles(HashMap<String, String> credentials, String baseURL, boolean doNotCheckSSL,
+            IdOSHttpClient httpClient) {
+        super(credentials, IdOSAuthType.USER, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Retrieve user details given the username
      *
@@ -22,6 +44,42 @@ public class Profiles extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject getOne(String username) throws SDKException {
-        return this.fetch("GET", "profiles/" + username);
+        return this.fetch("GET", PROFILE.expand(username));
+    }
+
+    /**
+     * Retrieve user details given the username, keeping only the projected
+     * fields
+     *
+     * @param username
+     * @param projection
+     *            fields to keep, the others are skipped while parsing
+     * @return JsonObject response
+     * @throws SDKException
+     */
+    public JsonObject getOne(String username, Projection projection) throws SDKException {
+        return this.fetch("GET", PROFILE.expand(username), null, null, projection);
+    }
+
+    /**
+     * Retrieve user details given the username, decoded straight from the
+     * response stream
+     *
+     * @param username
+     * @return Profile profile
+     * @throws SDKException
+     */
+    public Profile getOneTyped(String username) throws SDKException {
+        return this.fetchModel(PROFILE.expand(username), Profile.ADAPTER);
+    }
+
+    /**
+     * Retrieve user details given the username, asynchronously
+     *
+     * @param username
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String username) {
+        return this.fetchAsync("GET", PROFILE.expand(username));
     }
 }
@@ -0,0 +1,96 @@
+package com.veridu.idos.endpoints;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An API response as received: HTTP status, content type and the unparsed
+ * body, for callers forwarding responses without reading them
+ */
+public final class RawResponse {
+
+    private final int statusCode;
+
+    private final String contentType;
+
+    private final Charset charset;
+
+    private final byte[] body;
+
+    private final int length;
+
+    /**
+     * Class constructor
+     *
+     * @param statusCode
+     *            HTTP status code
+     * @param contentType
+     *            Content-Type header value, may be null
+     * @param charset
+     *            body charset, null for UTF-8
+     * @param body
+     *            array holding the body in its first length bytes
+     * @param length
+     *            body length
+     */
+    RawResponse(int statusCode, String contentType, Charset charset, byte[] body, int length) {
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.charset = (charset == null) ? StandardCharsets.UTF_8 : charset;
+        this.body = body;
+        this.length = length;
+    }
+
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * Gets the Content-Type header value
+     *
+     * @return String content type, null if the response had none
+     */
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    /**
+     * Gets a read-only view of the body, without copying it
+     *
+     * @return ByteBuffer body
+     */
+    public ByteBuffer getBody() {
+        return ByteBuffer.wrap(this.body, 0, this.length).asReadOnlyBuffer();
+    }
+
+    public int getBodyLength() {
+        return this.length;
+    }
+
+    /**
+     * Decodes the body with the response charset
+     *
+     * @return String body
+     */
+    public String getBodyAsString() {
+        return new String(this.body, 0, this.length, this.charset);
+    }
+
+    /**
+     * Writes the body to out
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(this.body, 0, this.length);
+    }
+
+    @Override
+    public String toString() {
+        return this.statusCode + " " + this.getBodyAsString();
+    }
+}
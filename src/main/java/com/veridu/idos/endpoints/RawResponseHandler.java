@@ -0,0 +1,58 @@
+package com.veridu.idos.endpoints;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads the response body into a single array sized from Content-Length,
+ * without parsing it
+ */
+class RawResponseHandler implements ResponseHandler<RawResponse> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @Override
+    public RawResponse handleResponse(HttpResponse response) throws IOException {
+        int statusCode = response.getStatusLine().getStatusCode();
+        HttpEntity entity = response.getEntity();
+        if (entity == null)
+            return new RawResponse(statusCode, null, null, EMPTY, 0);
+
+        Header contentType = entity.getContentType();
+        ContentType type = ContentType.get(entity);
+        Charset charset = (type == null) ? null : type.getCharset();
+
+        long contentLength = entity.getContentLength();
+        byte[] body = new byte[(contentLength >= 0) && (contentLength < Integer.MAX_VALUE) ? (int) contentLength
+                : 4096];
+        int length = 0;
+        try (InputStream in = entity.getContent()) {
+            if (in != null) {
+                int read;
+                while (true) {
+                    if (length == body.length) {
+                        int next = in.read();
+                        if (next == -1)
+                            break;
+                        body = Arrays.copyOf(body, Math.max(body.length * 2, 4096));
+                        body[length++] = (byte) next;
+                    }
+                    if ((read = in.read(body, length, body.length - length)) == -1)
+                        break;
+                    length += read;
+                }
+            }
+        }
+
+        return new RawResponse(statusCode, (contentType == null) ? null : contentType.getValue(), charset, body,
+                length);
+    }
+}
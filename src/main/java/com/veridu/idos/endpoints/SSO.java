@@ -4,6 +4,9 @@ import com.google.gson.JsonObject;
 import com.veridu.idos.exceptions.InvalidToken;
 import com.veridu.idos.exceptions.SDKException;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSHttpClient;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * SSO Endpoint Class
@@ -11,6 +14,11 @@ import com.veridu.idos.utils.IdOSAuthType;
  * @version 2.0
  */
 public class SSO extends AbstractEndpoint {
+    /**
+     * Resource paths
+     */
+    private static final PathTemplate PROVIDER = PathTemplate.compile("sso/{providerName}");
+
     /**
      * Constructor Class
      *
@@ -21,6 +29,17 @@ public class SSO extends AbstractEndpoint {
         super(null, IdOSAuthType.NONE, baseURL, doNotCheckSSL);
     }
 
+    /**
+     * Constructor Class
+     *
+     * @param baseURL
+     * @param doNotCheckSSL
+     * @param httpClient
+     */
+    public SSO(String baseURL, boolean doNotCheckSSL, IdOSHttpClient httpClient) {
+        super(null, IdOSAuthType.NONE, baseURL, doNotCheckSSL, httpClient);
+    }
+
     /**
      * Lists all providers
      *
@@ -41,12 +60,7 @@ public class SSO extends AbstractEndpoint {
      * @throws SDKException
      */
     public JsonObject create(String providerName, String credentialPublicKey, String accessToken) throws SDKException {
-        JsonObject data = new JsonObject();
-        data.addProperty("provider", providerName);
-        data.addProperty("credential", credentialPublicKey);
-        data.addProperty("access_token", accessToken);
-
-        return this.fetch("POST", "sso", data);
+        return this.fetch("POST", "sso", ssoBody(providerName, credentialPublicKey, accessToken));
     }
 
     /**
@@ -61,22 +75,95 @@ public class SSO extends AbstractEndpoint {
      */
     public JsonObject create(String providerName, String credentialPublicKey, String accessToken, String tokenSecret)
             throws SDKException {
+        return this.fetch("POST", "sso", ssoBody(providerName, credentialPublicKey, accessToken, tokenSecret));
+    }
+
+    /**
+     * Retrieves the status of a sso provider given its provider name
+     *
+     * @param providerName
+     * @return JsonObject
+     * @throws SDKException
+     */
+    public JsonObject getOne(String providerName) throws SDKException {
+        return this.fetch("GET", PROVIDER.expand(providerName));
+    }
+
+    /**
+     * Lists all providers, asynchronously
+     *
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> listAllAsync() {
+        return this.fetchAsync("GET", "sso");
+    }
+
+    /**
+     * Creates a new SSO provider(OAuth2), asynchronously
+     *
+     * @param providerName
+     * @param credentialPublicKey
+     * @param accessToken
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String providerName, String credentialPublicKey,
+            String accessToken) {
+        return this.fetchAsync("POST", "sso", ssoBody(providerName, credentialPublicKey, accessToken));
+    }
+
+    /**
+     * Creates a new SSO provider(OAuth1), asynchronously
+     *
+     * @param providerName
+     * @param credentialPublicKey
+     * @param accessToken
+     * @param tokenSecret
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> createAsync(String providerName, String credentialPublicKey,
+            String accessToken, String tokenSecret) {
+        return this.fetchAsync("POST", "sso", ssoBody(providerName, credentialPublicKey, accessToken, tokenSecret));
+    }
+
+    /**
+     * Retrieves the status of a sso provider given its provider name, asynchronously
+     *
+     * @param providerName
+     * @return CompletableFuture<JsonObject> response
+     */
+    public CompletableFuture<JsonObject> getOneAsync(String providerName) {
+        return this.fetchAsync("GET", PROVIDER.expand(providerName));
+    }
+
+    /**
+     * Builds the body creating an SSO provider (OAuth2)
+     *
+     * @param providerName
+     * @param credentialPublicKey
+     * @param accessToken
+     * @return JsonObject
+     */
+    private static JsonObject ssoBody(String providerName, String credentialPublicKey, String accessToken) {
         JsonObject data = new JsonObject();
         data.addProperty("provider", providerName);
         data.addProperty("credential", credentialPublicKey);
         data.addProperty("access_token", accessToken);
-        data.addProperty("token_secret", tokenSecret);
-        return this.fetch("POST", "sso", data);
+        return data;
     }
 
     /**
-     * Retrieves the status of a sso provider given its provider name
+     * Builds the body creating an SSO provider (OAuth1)
      *
      * @param providerName
+     * @param credentialPublicKey
+     * @param accessToken
+     * @param tokenSecret
      * @return JsonObject
-     * @throws SDKException
      */
-    public JsonObject getOne(String providerName) throws SDKException {
-        return this.fetch("GET", "sso/" + providerName);
+    private static JsonObject ssoBody(String providerName, String credentialPublicKey, String accessToken,
+            String tokenSecret) {
+        JsonObject data = ssoBody(providerName, credentialPublicKey, accessToken);
+        data.addProperty("token_secret", tokenSecret);
+        return data;
     }
 }
@@ -0,0 +1,27 @@
+package com.veridu.idos.exceptions;
+
+/**
+ * Raised without sending the request while the circuit breaker of its route
+ * is open, i.e. while the API is failing or too slow on that route
+ */
+public class CircuitOpenException extends SDKException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String route;
+
+    /**
+     * Throws CircuitOpenException for the given route
+     *
+     * @param route
+     *            String
+     */
+    public CircuitOpenException(String route) {
+        super("Circuit breaker open for " + route + ", request not sent");
+        this.route = route;
+    }
+
+    public String getRoute() {
+        return this.route;
+    }
+}
@@ -0,0 +1,27 @@
+package com.veridu.idos.exceptions;
+
+/**
+ * Raised without sending the request when the adaptive concurrency limit
+ * stays reached for longer than allowed
+ */
+public class ConcurrencyLimitException extends SDKException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+
+    /**
+     * Throws ConcurrencyLimitException for the given limit
+     *
+     * @param limit
+     *            number of requests in flight allowed when the wait ended
+     */
+    public ConcurrencyLimitException(int limit) {
+        super("Concurrency limit of " + limit + " requests in flight reached, request not sent");
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+}
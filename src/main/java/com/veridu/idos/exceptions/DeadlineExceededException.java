@@ -0,0 +1,19 @@
+package com.veridu.idos.exceptions;
+
+/**
+ * Raised when the deadline of an operation passes before it completes
+ */
+public class DeadlineExceededException extends SDKException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Throws DeadlineExceededException with message
+     *
+     * @param message
+     *            String
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
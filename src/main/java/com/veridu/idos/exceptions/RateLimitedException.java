@@ -0,0 +1,34 @@
+package com.veridu.idos.exceptions;
+
+/**
+ * Raised without sending the request when the client rate limiter would have
+ * to wait longer than allowed for a permit
+ */
+public class RateLimitedException extends SDKException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long waitMillis;
+
+    /**
+     * Throws RateLimitedException for the given limiter
+     *
+     * @param limiter
+     *            name of the rate limiter
+     * @param waitMillis
+     *            time until the next permit
+     */
+    public RateLimitedException(String limiter, long waitMillis) {
+        super("Rate limit of " + limiter + " reached, next request allowed in " + waitMillis + " ms");
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * Gets the time until the next permit, in milliseconds
+     *
+     * @return long
+     */
+    public long getWaitMillis() {
+        return this.waitMillis;
+    }
+}
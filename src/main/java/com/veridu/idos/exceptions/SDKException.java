@@ -63,4 +63,13 @@ public class SDKException extends Exception {
         return link;
     }
 
+    /**
+     * Whether the API rejected the request authorization
+     *
+     * @return boolean
+     */
+    public boolean isAuthFailure() {
+        return code == 401;
+    }
+
 }
\ No newline at end of file
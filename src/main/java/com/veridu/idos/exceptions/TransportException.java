@@ -0,0 +1,25 @@
+package com.veridu.idos.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Raised when a request fails before an API response is read, e.g. when the
+ * connection is refused, reset or times out
+ */
+public class TransportException extends SDKException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Throws TransportException with message and the I/O failure
+     *
+     * @param message
+     *            String
+     * @param cause
+     *            IOException
+     */
+    public TransportException(String message, IOException cause) {
+        super(message);
+        this.initCause(cause);
+    }
+}
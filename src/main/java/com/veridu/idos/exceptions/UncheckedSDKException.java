@@ -0,0 +1,25 @@
+package com.veridu.idos.exceptions;
+
+/**
+ * Wraps an SDKException raised where checked exceptions cannot be thrown,
+ * e.g. while consuming a Stream of API results
+ */
+public class UncheckedSDKException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Throws UncheckedSDKException wrapping the given SDKException
+     *
+     * @param cause
+     *            SDKException
+     */
+    public UncheckedSDKException(SDKException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public SDKException getCause() {
+        return (SDKException) super.getCause();
+    }
+}
@@ -0,0 +1,52 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * An attribute of a profile
+ */
+public final class Attribute extends Model {
+
+    public static final TypeAdapter<Attribute> ADAPTER = new ModelAdapter<Attribute>() {
+        @Override
+        Attribute create() {
+            return new Attribute();
+        }
+
+        @Override
+        boolean readField(Attribute attribute, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "name":
+                attribute.name = nextString(in);
+                return true;
+            case "value":
+                attribute.value = nextString(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Attribute attribute, JsonWriter out) throws IOException {
+            out.name("name").value(attribute.name);
+            out.name("value").value(attribute.value);
+        }
+    };
+
+    private String name;
+
+    private String value;
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+}
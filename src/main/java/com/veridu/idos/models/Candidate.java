@@ -0,0 +1,62 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A candidate value of a profile attribute
+ */
+public final class Candidate extends Model {
+
+    public static final TypeAdapter<Candidate> ADAPTER = new ModelAdapter<Candidate>() {
+        @Override
+        Candidate create() {
+            return new Candidate();
+        }
+
+        @Override
+        boolean readField(Candidate candidate, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "attribute":
+                candidate.attribute = nextString(in);
+                return true;
+            case "value":
+                candidate.value = nextString(in);
+                return true;
+            case "support":
+                candidate.support = in.nextDouble();
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Candidate candidate, JsonWriter out) throws IOException {
+            out.name("attribute").value(candidate.attribute);
+            out.name("value").value(candidate.value);
+            out.name("support").value(candidate.support);
+        }
+    };
+
+    private String attribute;
+
+    private String value;
+
+    private double support;
+
+    public String getAttribute() {
+        return this.attribute;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    public double getSupport() {
+        return this.support;
+    }
+}
@@ -0,0 +1,102 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A feature of a profile, either extracted from a source or self submitted
+ */
+public final class Feature extends Model {
+
+    public static final TypeAdapter<Feature> ADAPTER = new ModelAdapter<Feature>() {
+        @Override
+        Feature create() {
+            return new Feature();
+        }
+
+        @Override
+        boolean readField(Feature feature, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "id":
+                feature.id = in.nextInt();
+                return true;
+            case "source_id":
+                feature.sourceId = in.nextInt();
+                return true;
+            case "name":
+                feature.name = nextString(in);
+                return true;
+            case "creator":
+                feature.creator = nextElement(in);
+                return true;
+            case "type":
+                feature.type = nextString(in);
+                return true;
+            case "value":
+                feature.value = nextElement(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Feature feature, JsonWriter out) throws IOException {
+            out.name("id").value(feature.id);
+            out.name("source_id").value(feature.sourceId);
+            out.name("name").value(feature.name);
+            element(out.name("creator"), feature.creator);
+            out.name("type").value(feature.type);
+            element(out.name("value"), feature.value);
+        }
+    };
+
+    private int id;
+
+    /**
+     * Id of the source the feature was extracted from, 0 if self submitted
+     */
+    private int sourceId;
+
+    private String name;
+
+    /**
+     * Service that created the feature
+     */
+    private JsonElement creator;
+
+    /**
+     * Value type: integer, double, string or boolean
+     */
+    private String type;
+
+    private JsonElement value;
+
+    public int getId() {
+        return this.id;
+    }
+
+    public int getSourceId() {
+        return this.sourceId;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public JsonElement getCreator() {
+        return this.creator;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public JsonElement getValue() {
+        return this.value;
+    }
+}
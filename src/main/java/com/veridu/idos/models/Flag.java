@@ -0,0 +1,52 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A flag raised on a profile attribute
+ */
+public final class Flag extends Model {
+
+    public static final TypeAdapter<Flag> ADAPTER = new ModelAdapter<Flag>() {
+        @Override
+        Flag create() {
+            return new Flag();
+        }
+
+        @Override
+        boolean readField(Flag flag, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "slug":
+                flag.slug = nextString(in);
+                return true;
+            case "attribute":
+                flag.attribute = nextString(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Flag flag, JsonWriter out) throws IOException {
+            out.name("slug").value(flag.slug);
+            out.name("attribute").value(flag.attribute);
+        }
+    };
+
+    private String slug;
+
+    private String attribute;
+
+    public String getSlug() {
+        return this.slug;
+    }
+
+    public String getAttribute() {
+        return this.attribute;
+    }
+}
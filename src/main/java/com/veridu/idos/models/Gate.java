@@ -0,0 +1,72 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A gate the profile passed
+ */
+public final class Gate extends Model {
+
+    public static final TypeAdapter<Gate> ADAPTER = new ModelAdapter<Gate>() {
+        @Override
+        Gate create() {
+            return new Gate();
+        }
+
+        @Override
+        boolean readField(Gate gate, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "id":
+                gate.id = in.nextInt();
+                return true;
+            case "name":
+                gate.name = nextString(in);
+                return true;
+            case "slug":
+                gate.slug = nextString(in);
+                return true;
+            case "confidence_level":
+                gate.confidenceLevel = nextString(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Gate gate, JsonWriter out) throws IOException {
+            out.name("id").value(gate.id);
+            out.name("name").value(gate.name);
+            out.name("slug").value(gate.slug);
+            out.name("confidence_level").value(gate.confidenceLevel);
+        }
+    };
+
+    private int id;
+
+    private String name;
+
+    private String slug;
+
+    private String confidenceLevel;
+
+    public int getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getSlug() {
+        return this.slug;
+    }
+
+    public String getConfidenceLevel() {
+        return this.confidenceLevel;
+    }
+}
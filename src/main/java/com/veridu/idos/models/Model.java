@@ -0,0 +1,26 @@
+package com.veridu.idos.models;
+
+/**
+ * Base class of the typed API models, holding the timestamps every resource
+ * carries
+ */
+public abstract class Model {
+
+    /**
+     * Creation time, in seconds since the epoch
+     */
+    Long createdAt;
+
+    /**
+     * Last update time, in seconds since the epoch, null if never updated
+     */
+    Long updatedAt;
+
+    public Long getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public Long getUpdatedAt() {
+        return this.updatedAt;
+    }
+}
@@ -0,0 +1,133 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Hand written TypeAdapter of a model. Reads the model straight from the
+ * token stream without reflection or an intermediate JsonElement tree:
+ * subclasses only map field names to setters. Unknown fields and null values
+ * are skipped, so models keep working when the API adds fields.
+ *
+ * @param <T>
+ *            model type
+ */
+abstract class ModelAdapter<T extends Model> extends TypeAdapter<T> {
+
+    private static final TypeAdapter<JsonElement> ELEMENT = new Gson().getAdapter(JsonElement.class);
+
+    /**
+     * Creates an empty model
+     *
+     * @return T model
+     */
+    abstract T create();
+
+    /**
+     * Reads the value of the named field into the model
+     *
+     * @param model
+     * @param name
+     *            JSON field name
+     * @param in
+     *            positioned on the field value, never null
+     * @return boolean false if the field is unknown and must be skipped
+     * @throws IOException
+     */
+    abstract boolean readField(T model, String name, JsonReader in) throws IOException;
+
+    /**
+     * Writes the model fields, other than the timestamps
+     *
+     * @param model
+     * @param out
+     * @throws IOException
+     */
+    abstract void writeFields(T model, JsonWriter out) throws IOException;
+
+    @Override
+    public final T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        T model = this.create();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (name.equals("created_at")) {
+                model.createdAt = in.nextLong();
+            } else if (name.equals("updated_at")) {
+                model.updatedAt = in.nextLong();
+            } else if (!this.readField(model, name, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return model;
+    }
+
+    @Override
+    public final void write(JsonWriter out, T model) throws IOException {
+        if (model == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        this.writeFields(model, out);
+        out.name("created_at").value(model.createdAt);
+        out.name("updated_at").value(model.updatedAt);
+        out.endObject();
+    }
+
+    /**
+     * Reads a scalar as a String, whatever its JSON type
+     *
+     * @param in
+     * @return String value
+     * @throws IOException
+     */
+    static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.BOOLEAN)
+            return String.valueOf(in.nextBoolean());
+
+        return in.nextString();
+    }
+
+    /**
+     * Reads a free-form value, such as raw data or tags, as a JsonElement
+     *
+     * @param in
+     * @return JsonElement value
+     * @throws IOException
+     */
+    static JsonElement nextElement(JsonReader in) throws IOException {
+        return ELEMENT.read(in);
+    }
+
+    /**
+     * Writes a free-form value
+     *
+     * @param out
+     * @param value
+     *            may be null
+     * @throws IOException
+     */
+    static void element(JsonWriter out, JsonElement value) throws IOException {
+        if (value == null)
+            out.nullValue();
+        else
+            ELEMENT.write(out, value);
+    }
+}
@@ -0,0 +1,61 @@
+package com.veridu.idos.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Registry of the model TypeAdapters. FACTORY lets a caller's own Gson
+ * instance use them instead of reflection:
+ *
+ * <pre>
+ * Gson gson = new GsonBuilder().registerTypeAdapterFactory(Models.FACTORY).create();
+ * </pre>
+ */
+public final class Models {
+
+    private static final Map<Class<?>, TypeAdapter<?>> adapters = new HashMap<>();
+
+    static {
+        adapters.put(Attribute.class, Attribute.ADAPTER);
+        adapters.put(Candidate.class, Candidate.ADAPTER);
+        adapters.put(Feature.class, Feature.ADAPTER);
+        adapters.put(Flag.class, Flag.ADAPTER);
+        adapters.put(Gate.class, Gate.ADAPTER);
+        adapters.put(Process.class, Process.ADAPTER);
+        adapters.put(Profile.class, Profile.ADAPTER);
+        adapters.put(Raw.class, Raw.ADAPTER);
+        adapters.put(Recommendation.class, Recommendation.ADAPTER);
+        adapters.put(Reference.class, Reference.ADAPTER);
+        adapters.put(Score.class, Score.ADAPTER);
+        adapters.put(Source.class, Source.ADAPTER);
+        adapters.put(Task.class, Task.ADAPTER);
+    }
+
+    public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            return (TypeAdapter<T>) adapters.get(type.getRawType());
+        }
+    };
+
+    private Models() {
+    }
+
+    /**
+     * Returns the adapter of a model class
+     *
+     * @param type
+     *            model class
+     * @return TypeAdapter<T> adapter, null if type is not a model
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypeAdapter<T> adapterFor(Class<T> type) {
+        return (TypeAdapter<T>) adapters.get(type);
+    }
+}
@@ -0,0 +1,62 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A process run on a profile
+ */
+public final class Process extends Model {
+
+    public static final TypeAdapter<Process> ADAPTER = new ModelAdapter<Process>() {
+        @Override
+        Process create() {
+            return new Process();
+        }
+
+        @Override
+        boolean readField(Process process, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "id":
+                process.id = in.nextInt();
+                return true;
+            case "name":
+                process.name = nextString(in);
+                return true;
+            case "event":
+                process.event = nextString(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Process process, JsonWriter out) throws IOException {
+            out.name("id").value(process.id);
+            out.name("name").value(process.name);
+            out.name("event").value(process.event);
+        }
+    };
+
+    private int id;
+
+    private String name;
+
+    private String event;
+
+    public int getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getEvent() {
+        return this.event;
+    }
+}
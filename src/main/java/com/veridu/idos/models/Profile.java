@@ -0,0 +1,53 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A profile
+ */
+public final class Profile extends Model {
+
+    public static final TypeAdapter<Profile> ADAPTER = new ModelAdapter<Profile>() {
+        @Override
+        Profile create() {
+            return new Profile();
+        }
+
+        @Override
+        boolean readField(Profile profile, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "username":
+                profile.username = nextString(in);
+                return true;
+            case "attributes":
+                profile.attributes = nextElement(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Profile profile, JsonWriter out) throws IOException {
+            out.name("username").value(profile.username);
+            element(out.name("attributes"), profile.attributes);
+        }
+    };
+
+    private String username;
+
+    private JsonElement attributes;
+
+    public String getUsername() {
+        return this.username;
+    }
+
+    public JsonElement getAttributes() {
+        return this.attributes;
+    }
+}
@@ -0,0 +1,63 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Raw data of a source collection
+ */
+public final class Raw extends Model {
+
+    public static final TypeAdapter<Raw> ADAPTER = new ModelAdapter<Raw>() {
+        @Override
+        Raw create() {
+            return new Raw();
+        }
+
+        @Override
+        boolean readField(Raw raw, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "source_id":
+                raw.sourceId = in.nextInt();
+                return true;
+            case "collection":
+                raw.collection = nextString(in);
+                return true;
+            case "data":
+                raw.data = nextElement(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Raw raw, JsonWriter out) throws IOException {
+            out.name("source_id").value(raw.sourceId);
+            out.name("collection").value(raw.collection);
+            element(out.name("data"), raw.data);
+        }
+    };
+
+    private int sourceId;
+
+    private String collection;
+
+    private JsonElement data;
+
+    public int getSourceId() {
+        return this.sourceId;
+    }
+
+    public String getCollection() {
+        return this.collection;
+    }
+
+    public JsonElement getData() {
+        return this.data;
+    }
+}
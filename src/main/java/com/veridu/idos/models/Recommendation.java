@@ -0,0 +1,69 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * The recommendation computed for a profile
+ */
+public final class Recommendation extends Model {
+
+    public static final TypeAdapter<Recommendation> ADAPTER = new ModelAdapter<Recommendation>() {
+        @Override
+        Recommendation create() {
+            return new Recommendation();
+        }
+
+        @Override
+        boolean readField(Recommendation recommendation, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "result":
+                recommendation.result = nextString(in);
+                return true;
+            case "passed":
+                recommendation.passed = nextElement(in);
+                return true;
+            case "failed":
+                recommendation.failed = nextElement(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Recommendation recommendation, JsonWriter out) throws IOException {
+            out.name("result").value(recommendation.result);
+            element(out.name("passed"), recommendation.passed);
+            element(out.name("failed"), recommendation.failed);
+        }
+    };
+
+    private String result;
+
+    /**
+     * Rules the profile passed
+     */
+    private JsonElement passed;
+
+    /**
+     * Rules the profile failed
+     */
+    private JsonElement failed;
+
+    public String getResult() {
+        return this.result;
+    }
+
+    public JsonElement getPassed() {
+        return this.passed;
+    }
+
+    public JsonElement getFailed() {
+        return this.failed;
+    }
+}
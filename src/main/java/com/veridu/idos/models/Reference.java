@@ -0,0 +1,52 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A reference value of a profile
+ */
+public final class Reference extends Model {
+
+    public static final TypeAdapter<Reference> ADAPTER = new ModelAdapter<Reference>() {
+        @Override
+        Reference create() {
+            return new Reference();
+        }
+
+        @Override
+        boolean readField(Reference reference, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "name":
+                reference.name = nextString(in);
+                return true;
+            case "value":
+                reference.value = nextString(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Reference reference, JsonWriter out) throws IOException {
+            out.name("name").value(reference.name);
+            out.name("value").value(reference.value);
+        }
+    };
+
+    private String name;
+
+    private String value;
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+}
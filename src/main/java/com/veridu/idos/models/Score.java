@@ -0,0 +1,62 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A score computed for an attribute of a profile
+ */
+public final class Score extends Model {
+
+    public static final TypeAdapter<Score> ADAPTER = new ModelAdapter<Score>() {
+        @Override
+        Score create() {
+            return new Score();
+        }
+
+        @Override
+        boolean readField(Score score, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "attribute":
+                score.attribute = nextString(in);
+                return true;
+            case "name":
+                score.name = nextString(in);
+                return true;
+            case "value":
+                score.value = in.nextDouble();
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Score score, JsonWriter out) throws IOException {
+            out.name("attribute").value(score.attribute);
+            out.name("name").value(score.name);
+            out.name("value").value(score.value);
+        }
+    };
+
+    private String attribute;
+
+    private String name;
+
+    private double value;
+
+    public String getAttribute() {
+        return this.attribute;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public double getValue() {
+        return this.value;
+    }
+}
@@ -0,0 +1,63 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A source a profile was linked to
+ */
+public final class Source extends Model {
+
+    public static final TypeAdapter<Source> ADAPTER = new ModelAdapter<Source>() {
+        @Override
+        Source create() {
+            return new Source();
+        }
+
+        @Override
+        boolean readField(Source source, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "id":
+                source.id = in.nextInt();
+                return true;
+            case "name":
+                source.name = nextString(in);
+                return true;
+            case "tags":
+                source.tags = nextElement(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Source source, JsonWriter out) throws IOException {
+            out.name("id").value(source.id);
+            out.name("name").value(source.name);
+            element(out.name("tags"), source.tags);
+        }
+    };
+
+    private int id;
+
+    private String name;
+
+    private JsonElement tags;
+
+    public int getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public JsonElement getTags() {
+        return this.tags;
+    }
+}
@@ -0,0 +1,92 @@
+package com.veridu.idos.models;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A task of a profile process
+ */
+public final class Task extends Model {
+
+    public static final TypeAdapter<Task> ADAPTER = new ModelAdapter<Task>() {
+        @Override
+        Task create() {
+            return new Task();
+        }
+
+        @Override
+        boolean readField(Task task, String name, JsonReader in) throws IOException {
+            switch (name) {
+            case "id":
+                task.id = in.nextInt();
+                return true;
+            case "name":
+                task.name = nextString(in);
+                return true;
+            case "event":
+                task.event = nextString(in);
+                return true;
+            case "running":
+                task.running = in.nextBoolean();
+                return true;
+            case "success":
+                task.success = in.nextBoolean();
+                return true;
+            case "message":
+                task.message = nextString(in);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        @Override
+        void writeFields(Task task, JsonWriter out) throws IOException {
+            out.name("id").value(task.id);
+            out.name("name").value(task.name);
+            out.name("event").value(task.event);
+            out.name("running").value(task.running);
+            out.name("success").value(task.success);
+            out.name("message").value(task.message);
+        }
+    };
+
+    private int id;
+
+    private String name;
+
+    private String event;
+
+    private boolean running;
+
+    private boolean success;
+
+    private String message;
+
+    public int getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getEvent() {
+        return this.event;
+    }
+
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    public boolean isSuccess() {
+        return this.success;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+}
@@ -0,0 +1,125 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Isolation of groups of routes from each other. Each group gets a connection
+ * pool of its own, sized by its quota, and an adaptive concurrency limit of
+ * its own, capped by the same quota, so a saturated group (e.g. bulk
+ * ProfileRaw uploads) queues on its own resources instead of starving the
+ * others. Routes outside of any group share the client pool and concurrency
+ * limit. The group pools come on top of the client pool. The quota of a
+ * group, as the one of the client pool, covers both its blocking and its
+ * non-blocking clients: once the group sends an asynchronous request, each
+ * client gets half of it.
+ */
+public class BulkheadPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Routes isolated together and their share of connections
+     */
+    public static class Group implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private final int maxConnections;
+
+        private final Set<String> routes;
+
+        private Group(String name, int maxConnections, Set<String> routes) {
+            this.name = name;
+            this.maxConnections = maxConnections;
+            this.routes = routes;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getMaxConnections() {
+            return this.maxConnections;
+        }
+
+        public Set<String> getRoutes() {
+            return Collections.unmodifiableSet(this.routes);
+        }
+    }
+
+    private final List<Group> groups = new ArrayList<>();
+
+    /**
+     * Group of each grouped route
+     */
+    private final Map<String, Group> routeGroups = new HashMap<>();
+
+    /**
+     * Constructor Class
+     */
+    private BulkheadPolicy() {
+    }
+
+    /**
+     * Factory to create a new BulkheadPolicy object without groups, every
+     * route sharing the client pool
+     *
+     * @return BulkheadPolicy
+     */
+    public static BulkheadPolicy createDefault() {
+        return new BulkheadPolicy();
+    }
+
+    /**
+     * Isolates the given routes, i.e. endpoint class names such as
+     * "ProfileRaw", in a group of their own. A route belongs to one group at
+     * most; adding it again moves it.
+     *
+     * @param name
+     *            group name, e.g. "bulk"
+     * @param maxConnections
+     *            connections, and thus requests in flight, of the group,
+     *            split between its blocking and non-blocking clients
+     * @param routes
+     * @return self
+     */
+    public BulkheadPolicy addGroup(String name, int maxConnections, String... routes) {
+        for (Group group : this.groups) {
+            if (group.name.equals(name))
+                throw new IllegalArgumentException("Bulkhead group " + name + " already exists");
+        }
+
+        Group group = new Group(name, Math.max(1, maxConnections), new HashSet<>(Arrays.asList(routes)));
+        for (String route : group.routes) {
+            Group previous = this.routeGroups.put(route, group);
+            if (previous != null)
+                previous.routes.remove(route);
+        }
+        this.groups.add(group);
+        return this;
+    }
+
+    /**
+     * Gets the group isolating a route
+     *
+     * @param route
+     * @return Group, null if the route shares the client pool
+     */
+    public Group groupOf(String route) {
+        return this.routeGroups.get(route);
+    }
+
+    public List<Group> getGroups() {
+        return Collections.unmodifiableList(this.groups);
+    }
+}
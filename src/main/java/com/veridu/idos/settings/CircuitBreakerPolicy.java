@@ -0,0 +1,171 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.TransportException;
+
+/**
+ * When the circuit breaker of a route trips and recovers. The breaker keeps
+ * the outcome of the last windowSize calls; once it holds at least
+ * minimumCalls of them, it opens when the share of failed calls or of calls
+ * slower than slowCallMillis reaches its threshold. While open, requests fail
+ * fast with a CircuitOpenException. After openMillis, halfOpenCalls trial
+ * calls are let through: the breaker closes if they all succeed in time and
+ * opens again otherwise. Failures are transport failures and 5xx API errors;
+ * other API errors are answers from a healthy service.
+ */
+public class CircuitBreakerPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean enabled = true;
+
+    private int windowSize = 20;
+
+    private int minimumCalls = 10;
+
+    private double failureRateThreshold = 0.5;
+
+    private long slowCallMillis = 5000;
+
+    private double slowCallRateThreshold = 0.8;
+
+    private long openMillis = 30000;
+
+    private int halfOpenCalls = 3;
+
+    /**
+     * Constructor Class
+     */
+    private CircuitBreakerPolicy() {
+    }
+
+    /**
+     * Factory to create a new CircuitBreakerPolicy object with the default
+     * values
+     *
+     * @return CircuitBreakerPolicy
+     */
+    public static CircuitBreakerPolicy createDefault() {
+        return new CircuitBreakerPolicy();
+    }
+
+    /**
+     * Factory to create a CircuitBreakerPolicy that never trips
+     *
+     * @return CircuitBreakerPolicy
+     */
+    public static CircuitBreakerPolicy disabled() {
+        CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+        policy.enabled = false;
+        return policy;
+    }
+
+    /**
+     * Sets how many of the last calls are considered, and how many must have
+     * been made before the breaker can trip
+     *
+     * @param windowSize
+     * @param minimumCalls
+     * @return self
+     */
+    public CircuitBreakerPolicy setWindow(int windowSize, int minimumCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        return this;
+    }
+
+    /**
+     * Sets the share of failed calls that trips the breaker
+     *
+     * @param failureRateThreshold
+     *            between 0 and 1
+     * @return self
+     */
+    public CircuitBreakerPolicy setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the duration from which a call is slow, and the share of slow
+     * calls that trips the breaker
+     *
+     * @param slowCallMillis
+     * @param slowCallRateThreshold
+     *            between 0 and 1, above 1 to ignore slow calls
+     * @return self
+     */
+    public CircuitBreakerPolicy setSlowCalls(long slowCallMillis, double slowCallRateThreshold) {
+        this.slowCallMillis = slowCallMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        return this;
+    }
+
+    /**
+     * Sets how long the breaker stays open before trial calls are let
+     * through
+     *
+     * @param openMillis
+     * @return self
+     */
+    public CircuitBreakerPolicy setOpenMillis(long openMillis) {
+        this.openMillis = openMillis;
+        return this;
+    }
+
+    /**
+     * Sets the number of trial calls needed to close the breaker
+     *
+     * @param halfOpenCalls
+     * @return self
+     */
+    public CircuitBreakerPolicy setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        return this;
+    }
+
+    /**
+     * Checks if a failed call counts against the health of the route
+     *
+     * @param e
+     *            SDKException raised by the call
+     * @return boolean
+     */
+    public boolean isFailure(SDKException e) {
+        return (e instanceof TransportException) || (e.getCode() >= 500);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getWindowSize() {
+        return this.windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return this.minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return this.failureRateThreshold;
+    }
+
+    public long getSlowCallMillis() {
+        return this.slowCallMillis;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return this.slowCallRateThreshold;
+    }
+
+    public long getOpenMillis() {
+        return this.openMillis;
+    }
+
+    public int getHalfOpenCalls() {
+        return this.halfOpenCalls;
+    }
+}
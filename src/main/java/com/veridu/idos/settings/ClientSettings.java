@@ -0,0 +1,414 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+
+import com.veridu.idos.codec.GsonCodec;
+import com.veridu.idos.codec.JsonCodec;
+
+/**
+ * HTTP client settings shared by every endpoint created by an IdOSAPIFactory
+ *
+ */
+public class ClientSettings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of pooled connections
+     */
+    private int maxTotalConnections = 50;
+
+    /**
+     * Maximum number of pooled connections per route (host)
+     */
+    private int maxConnectionsPerRoute = 20;
+
+    /**
+     * How long (ms) an idle connection is kept alive when the server does not
+     * send a Keep-Alive header
+     */
+    private long keepAliveMillis = 30000;
+
+    /**
+     * Connections idle for longer than this (ms) are evicted from the pool
+     */
+    private long idleTimeoutMillis = 60000;
+
+    /**
+     * How long (ms) to wait for a connection to be established, and for a
+     * pooled connection to be leased
+     */
+    private int connectTimeoutMillis = 10000;
+
+    /**
+     * How long (ms) to wait for data on an established connection
+     */
+    private int readTimeoutMillis = 30000;
+
+    /**
+     * How long (ms) an operation may take overall, retries and pages
+     * included, 0 for no limit
+     */
+    private long totalTimeoutMillis = 0;
+
+    /**
+     * Number of threads parsing the responses of asynchronous requests; the
+     * requests in flight do not hold a thread
+     */
+    private int asyncPoolSize = 50;
+
+    /**
+     * Lifetime (ms) of signed tokens, 0 for tokens without expiration
+     */
+    private long tokenLifetimeMillis = 0;
+
+    /**
+     * How long (ms) before expiration a token is re-signed in the background
+     */
+    private long tokenRefreshMarginMillis = 30000;
+
+    /**
+     * Codec parsing responses and serializing request bodies
+     */
+    private JsonCodec jsonCodec = GsonCodec.INSTANCE;
+
+    /**
+     * When and how failed requests are retried
+     */
+    private RetryPolicy retryPolicy = RetryPolicy.createDefault();
+
+    /**
+     * When the circuit breaker of a route trips and recovers
+     */
+    private CircuitBreakerPolicy circuitBreakerPolicy = CircuitBreakerPolicy.createDefault();
+
+    /**
+     * Client side rate limits
+     */
+    private RateLimitPolicy rateLimitPolicy = RateLimitPolicy.createDefault();
+
+    /**
+     * Adaptive limit of the requests in flight
+     */
+    private ConcurrencyLimitPolicy concurrencyLimitPolicy = ConcurrencyLimitPolicy.createDefault();
+
+    /**
+     * Hedging of GET requests, off unless set
+     */
+    private HedgePolicy hedgePolicy = HedgePolicy.disabled();
+
+    /**
+     * Groups of routes with connections and concurrency of their own
+     */
+    private BulkheadPolicy bulkheadPolicy = BulkheadPolicy.createDefault();
+
+    /**
+     * Whether identical concurrent GET requests share one HTTP request
+     */
+    private boolean coalesceReads = false;
+
+    /**
+     * Constructor Class
+     */
+    private ClientSettings() {
+    }
+
+    /**
+     * Factory to create a new ClientSettings object with the default values
+     *
+     * @return ClientSettings
+     */
+    public static ClientSettings createDefault() {
+        return new ClientSettings();
+    }
+
+    /**
+     * Sets the maximum number of pooled connections, split between the
+     * blocking and the non-blocking clients once asynchronous requests are
+     * sent
+     *
+     * @param maxTotalConnections
+     * @return self
+     */
+    public ClientSettings setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections per route
+     *
+     * @param maxConnectionsPerRoute
+     * @return self
+     */
+    public ClientSettings setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets the default keep-alive duration in milliseconds
+     *
+     * @param keepAliveMillis
+     * @return self
+     */
+    public ClientSettings setKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+        return this;
+    }
+
+    /**
+     * Sets the idle time in milliseconds after which pooled connections are
+     * evicted
+     *
+     * @param idleTimeoutMillis
+     * @return self
+     */
+    public ClientSettings setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for a connection to be established, and for a
+     * pooled connection to be leased
+     *
+     * @param connectTimeoutMillis
+     * @return self
+     */
+    public ClientSettings setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for data on an established connection
+     *
+     * @param readTimeoutMillis
+     * @return self
+     */
+    public ClientSettings setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets how long an operation may take overall. The timeout covers the
+     * retries of a request and every page of an all-pages listing; a tighter
+     * Deadline set by the caller wins.
+     *
+     * @param totalTimeoutMillis
+     *            0 for no limit
+     * @return self
+     */
+    public ClientSettings setTotalTimeoutMillis(long totalTimeoutMillis) {
+        this.totalTimeoutMillis = totalTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads parsing the responses of asynchronous
+     * requests. It does not bound the requests in flight, the connection
+     * pools and the ConcurrencyLimitPolicy do.
+     *
+     * @param asyncPoolSize
+     * @return self
+     */
+    public ClientSettings setAsyncPoolSize(int asyncPoolSize) {
+        this.asyncPoolSize = asyncPoolSize;
+        return this;
+    }
+
+    /**
+     * Sets the lifetime in milliseconds of signed tokens, 0 for tokens without
+     * expiration
+     *
+     * @param tokenLifetimeMillis
+     * @return self
+     */
+    public ClientSettings setTokenLifetimeMillis(long tokenLifetimeMillis) {
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+        return this;
+    }
+
+    /**
+     * Sets how long in milliseconds before expiration a token is re-signed
+     *
+     * @param tokenRefreshMarginMillis
+     * @return self
+     */
+    public ClientSettings setTokenRefreshMarginMillis(long tokenRefreshMarginMillis) {
+        this.tokenRefreshMarginMillis = tokenRefreshMarginMillis;
+        return this;
+    }
+
+    /**
+     * Sets the codec parsing responses and serializing request bodies, e.g.
+     * JacksonCodec.INSTANCE
+     *
+     * @param jsonCodec
+     * @return self
+     */
+    public ClientSettings setJsonCodec(JsonCodec jsonCodec) {
+        this.jsonCodec = jsonCodec;
+        return this;
+    }
+
+    /**
+     * Sets when and how failed requests are retried, RetryPolicy.disabled()
+     * to never retry
+     *
+     * @param retryPolicy
+     * @return self
+     */
+    public ClientSettings setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Sets when the circuit breaker of a route trips and recovers,
+     * CircuitBreakerPolicy.disabled() to never fail fast
+     *
+     * @param circuitBreakerPolicy
+     * @return self
+     */
+    public ClientSettings setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        this.circuitBreakerPolicy = circuitBreakerPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the client side rate limits, RateLimitPolicy.disabled() to also
+     * ignore the API rate limit signals
+     *
+     * @param rateLimitPolicy
+     * @return self
+     */
+    public ClientSettings setRateLimitPolicy(RateLimitPolicy rateLimitPolicy) {
+        this.rateLimitPolicy = rateLimitPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the adaptive limit of the requests in flight,
+     * ConcurrencyLimitPolicy.disabled() to only be bounded by the connection
+     * pool
+     *
+     * @param concurrencyLimitPolicy
+     * @return self
+     */
+    public ClientSettings setConcurrencyLimitPolicy(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+        this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the hedging of GET requests, e.g.
+     * HedgePolicy.createDefault().setRoutes("Profiles", "ProfileGates")
+     *
+     * @param hedgePolicy
+     * @return self
+     */
+    public ClientSettings setHedgePolicy(HedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+
+    /**
+     * Sets the groups of routes isolated from the others, e.g.
+     * BulkheadPolicy.createDefault().addGroup("bulk", 4, "ProfileRaw")
+     *
+     * @param bulkheadPolicy
+     * @return self
+     */
+    public ClientSettings setBulkheadPolicy(BulkheadPolicy bulkheadPolicy) {
+        this.bulkheadPolicy = bulkheadPolicy;
+        return this;
+    }
+
+    /**
+     * Sets whether identical concurrent GET requests (same URL, auth and
+     * filter) share one HTTP request. Every caller then receives the same
+     * response object, which must be treated as read-only.
+     *
+     * @param coalesceReads
+     * @return self
+     */
+    public ClientSettings setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+        return this;
+    }
+
+    public int getMaxTotalConnections() {
+        return this.maxTotalConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return this.maxConnectionsPerRoute;
+    }
+
+    public long getKeepAliveMillis() {
+        return this.keepAliveMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return this.idleTimeoutMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return this.connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return this.readTimeoutMillis;
+    }
+
+    public long getTotalTimeoutMillis() {
+        return this.totalTimeoutMillis;
+    }
+
+    public int getAsyncPoolSize() {
+        return this.asyncPoolSize;
+    }
+
+    public long getTokenLifetimeMillis() {
+        return this.tokenLifetimeMillis;
+    }
+
+    public long getTokenRefreshMarginMillis() {
+        return this.tokenRefreshMarginMillis;
+    }
+
+    public JsonCodec getJsonCodec() {
+        return this.jsonCodec;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return this.retryPolicy;
+    }
+
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return this.circuitBreakerPolicy;
+    }
+
+    public RateLimitPolicy getRateLimitPolicy() {
+        return this.rateLimitPolicy;
+    }
+
+    public ConcurrencyLimitPolicy getConcurrencyLimitPolicy() {
+        return this.concurrencyLimitPolicy;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return this.hedgePolicy;
+    }
+
+    public BulkheadPolicy getBulkheadPolicy() {
+        return this.bulkheadPolicy;
+    }
+
+    public boolean getCoalesceReads() {
+        return this.coalesceReads;
+    }
+}
@@ -0,0 +1,180 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.TransportException;
+
+/**
+ * Adaptive limit of the requests in flight (AIMD). While latency stays within
+ * latencyTolerance times the lowest recent latency and the limit is in use,
+ * it grows by one request per limit responses, i.e. about one per round trip.
+ * When latency rises past the tolerance or the API drops a request
+ * (transport failure, 429, 503 or 504), the limit is multiplied by
+ * backoffRatio, at most once per round trip. Latency is only sampled from
+ * successful responses. By default the limit starts at the highest limit, so
+ * it only holds requests back once the API shows signs of overload.
+ */
+public class ConcurrencyLimitPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean enabled = true;
+
+    /**
+     * Limit to start from, 0 for the highest limit
+     */
+    private int initialLimit = 0;
+
+    private int minLimit = 1;
+
+    /**
+     * Highest limit, 0 for the maximum number of connections per route
+     */
+    private int maxLimit = 0;
+
+    private double backoffRatio = 0.9;
+
+    private double latencyTolerance = 2;
+
+    /**
+     * Number of responses after which the lowest latency is measured anew,
+     * so the baseline follows lasting changes
+     */
+    private int latencyWindow = 500;
+
+    /**
+     * How long (ms) a request may wait for a slot, 0 to fail fast
+     */
+    private long maxWaitMillis = 30000;
+
+    /**
+     * Constructor Class
+     */
+    private ConcurrencyLimitPolicy() {
+    }
+
+    /**
+     * Factory to create a new ConcurrencyLimitPolicy object with the default
+     * values
+     *
+     * @return ConcurrencyLimitPolicy
+     */
+    public static ConcurrencyLimitPolicy createDefault() {
+        return new ConcurrencyLimitPolicy();
+    }
+
+    /**
+     * Factory to create a ConcurrencyLimitPolicy that never holds requests
+     * back
+     *
+     * @return ConcurrencyLimitPolicy
+     */
+    public static ConcurrencyLimitPolicy disabled() {
+        ConcurrencyLimitPolicy policy = new ConcurrencyLimitPolicy();
+        policy.enabled = false;
+        return policy;
+    }
+
+    /**
+     * Sets the initial, lowest and highest limits
+     *
+     * @param initialLimit
+     *            0 to start at the highest limit
+     * @param minLimit
+     * @param maxLimit
+     *            0 for the maximum number of connections per route
+     * @return self
+     */
+    public ConcurrencyLimitPolicy setLimits(int initialLimit, int minLimit, int maxLimit) {
+        this.initialLimit = initialLimit;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    /**
+     * Sets the factor applied to the limit when latency rises or a request is
+     * dropped
+     *
+     * @param backoffRatio
+     *            between 0 and 1
+     * @return self
+     */
+    public ConcurrencyLimitPolicy setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    /**
+     * Sets how many times the lowest recent latency a response may take
+     * before the limit shrinks, and how many responses the lowest latency is
+     * measured over
+     *
+     * @param latencyTolerance
+     * @param latencyWindow
+     * @return self
+     */
+    public ConcurrencyLimitPolicy setLatencyTolerance(double latencyTolerance, int latencyWindow) {
+        this.latencyTolerance = latencyTolerance;
+        this.latencyWindow = Math.max(1, latencyWindow);
+        return this;
+    }
+
+    /**
+     * Sets how long a request may wait for a slot before failing with a
+     * ConcurrencyLimitException
+     *
+     * @param maxWaitMillis
+     *            0 to fail fast instead of blocking
+     * @return self
+     */
+    public ConcurrencyLimitPolicy setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    /**
+     * Checks if a failed request was dropped by an overloaded API
+     *
+     * @param e
+     *            SDKException raised by the request
+     * @return boolean
+     */
+    public boolean isDrop(SDKException e) {
+        int code = e.getCode();
+        return (e instanceof TransportException) || (code == 429) || (code == 503) || (code == 504);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getInitialLimit() {
+        return this.initialLimit;
+    }
+
+    public int getMinLimit() {
+        return this.minLimit;
+    }
+
+    public int getMaxLimit() {
+        return this.maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return this.backoffRatio;
+    }
+
+    public double getLatencyTolerance() {
+        return this.latencyTolerance;
+    }
+
+    public int getLatencyWindow() {
+        return this.latencyWindow;
+    }
+
+    public long getMaxWaitMillis() {
+        return this.maxWaitMillis;
+    }
+}
@@ -0,0 +1,154 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Opt-in hedging of GET requests. When a GET has not answered within the
+ * given percentile of the recent latencies of its route, a second identical
+ * request is sent and the first response wins; the other request is aborted.
+ * Hedges draw from a budget of maxExtraLoad per request, so they add at most
+ * that share of requests. A route is not hedged until minSamples latencies
+ * were recorded for it.
+ */
+public class HedgePolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean enabled = true;
+
+    /**
+     * Hedged routes, e.g. "Profiles", empty for every route
+     */
+    private Set<String> routes = new HashSet<>();
+
+    private double percentile = 0.95;
+
+    /**
+     * Lowest delay (ms) before a hedge is sent
+     */
+    private long minDelayMillis = 5;
+
+    private double maxExtraLoad = 0.05;
+
+    /**
+     * Number of recent latencies the percentile is computed over
+     */
+    private int latencyWindow = 1000;
+
+    private int minSamples = 20;
+
+    /**
+     * Constructor Class
+     */
+    private HedgePolicy() {
+    }
+
+    /**
+     * Factory to create a new HedgePolicy object with the default values,
+     * hedging the GET requests of every route
+     *
+     * @return HedgePolicy
+     */
+    public static HedgePolicy createDefault() {
+        return new HedgePolicy();
+    }
+
+    /**
+     * Factory to create a HedgePolicy that never hedges, the client default
+     *
+     * @return HedgePolicy
+     */
+    public static HedgePolicy disabled() {
+        HedgePolicy policy = new HedgePolicy();
+        policy.enabled = false;
+        return policy;
+    }
+
+    /**
+     * Restricts hedging to the given routes, i.e. endpoint class names such
+     * as "Profiles" or "ProfileGates"
+     *
+     * @param routes
+     * @return self
+     */
+    public HedgePolicy setRoutes(String... routes) {
+        this.routes = new HashSet<>(Arrays.asList(routes));
+        return this;
+    }
+
+    /**
+     * Sets the latency percentile after which a hedge is sent, and the
+     * lowest delay
+     *
+     * @param percentile
+     *            between 0 and 1, e.g. 0.95
+     * @param minDelayMillis
+     * @return self
+     */
+    public HedgePolicy setDelay(double percentile, long minDelayMillis) {
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        return this;
+    }
+
+    /**
+     * Sets the share of extra requests hedges may add
+     *
+     * @param maxExtraLoad
+     *            e.g. 0.05 for 5%
+     * @return self
+     */
+    public HedgePolicy setMaxExtraLoad(double maxExtraLoad) {
+        this.maxExtraLoad = maxExtraLoad;
+        return this;
+    }
+
+    /**
+     * Sets how many recent latencies the percentile is computed over, and
+     * how many are needed before a route is hedged
+     *
+     * @param latencyWindow
+     * @param minSamples
+     * @return self
+     */
+    public HedgePolicy setLatencyWindow(int latencyWindow, int minSamples) {
+        this.latencyWindow = Math.max(1, latencyWindow);
+        this.minSamples = Math.max(1, Math.min(minSamples, this.latencyWindow));
+        return this;
+    }
+
+    /**
+     * Checks if requests of the given method to the given route are hedged
+     *
+     * @param method
+     *            HTTP method
+     * @param route
+     * @return boolean
+     */
+    public boolean appliesTo(String method, String route) {
+        return this.enabled && "GET".equals(method) && (this.routes.isEmpty() || this.routes.contains(route));
+    }
+
+    public double getPercentile() {
+        return this.percentile;
+    }
+
+    public long getMinDelayMillis() {
+        return this.minDelayMillis;
+    }
+
+    public double getMaxExtraLoad() {
+        return this.maxExtraLoad;
+    }
+
+    public int getLatencyWindow() {
+        return this.latencyWindow;
+    }
+
+    public int getMinSamples() {
+        return this.minSamples;
+    }
+}
@@ -0,0 +1,230 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client side rate limits. Requests take a permit from a token bucket per
+ * credential, or per credential and route, filled at the configured rate and
+ * holding up to burst permits. On a 429 response the rate is halved and
+ * requests are held back until Retry-After; the rate then grows back to the
+ * configured one as requests succeed. A response reporting that no request is
+ * left (X-RateLimit-Remaining: 0) holds requests back until
+ * X-RateLimit-Reset. Without a configured rate, only the API signals are
+ * honored.
+ */
+public class RateLimitPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean enabled = true;
+
+    /**
+     * Default permits per second, 0 for no client side limit
+     */
+    private double requestsPerSecond = 0;
+
+    /**
+     * Default bucket size, 0 for one second of permits
+     */
+    private int burst = 0;
+
+    /**
+     * Whether each route of a credential has its own bucket
+     */
+    private boolean perRoute = false;
+
+    private Map<String, Double> routeRates = new HashMap<>();
+
+    private Map<String, Double> credentialRates = new HashMap<>();
+
+    /**
+     * How long (ms) a request may wait for a permit, 0 to fail fast
+     */
+    private long maxWaitMillis = 30000;
+
+    /**
+     * Wait (ms) after a 429 response without Retry-After
+     */
+    private long defaultRetryAfterMillis = 1000;
+
+    /**
+     * Lowest share of the configured rate the limiter slows down to
+     */
+    private double minRateFactor = 0.1;
+
+    /**
+     * Constructor Class
+     */
+    private RateLimitPolicy() {
+    }
+
+    /**
+     * Factory to create a new RateLimitPolicy object with the default values:
+     * no client side limit, honoring 429 responses and rate limit headers
+     *
+     * @return RateLimitPolicy
+     */
+    public static RateLimitPolicy createDefault() {
+        return new RateLimitPolicy();
+    }
+
+    /**
+     * Factory to create a RateLimitPolicy that never holds requests back
+     *
+     * @return RateLimitPolicy
+     */
+    public static RateLimitPolicy disabled() {
+        RateLimitPolicy policy = new RateLimitPolicy();
+        policy.enabled = false;
+        return policy;
+    }
+
+    /**
+     * Sets the default rate and bucket size
+     *
+     * @param requestsPerSecond
+     *            0 for no client side limit
+     * @param burst
+     *            permits that can be taken at once, 0 for one second of
+     *            permits
+     * @return self
+     */
+    public RateLimitPolicy setRate(double requestsPerSecond, int burst) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        return this;
+    }
+
+    /**
+     * Sets the rate of the requests of a credential, overriding the default
+     *
+     * @param credentialPublicKey
+     * @param requestsPerSecond
+     * @return self
+     */
+    public RateLimitPolicy setCredentialRate(String credentialPublicKey, double requestsPerSecond) {
+        this.credentialRates.put(credentialPublicKey, requestsPerSecond);
+        return this;
+    }
+
+    /**
+     * Sets the rate of a route, e.g. "ProfileRaw", giving it a bucket of its
+     * own for each credential
+     *
+     * @param route
+     * @param requestsPerSecond
+     * @return self
+     */
+    public RateLimitPolicy setRouteRate(String route, double requestsPerSecond) {
+        this.routeRates.put(route, requestsPerSecond);
+        return this;
+    }
+
+    /**
+     * Sets whether each route of a credential has its own bucket
+     *
+     * @param perRoute
+     * @return self
+     */
+    public RateLimitPolicy setPerRoute(boolean perRoute) {
+        this.perRoute = perRoute;
+        return this;
+    }
+
+    /**
+     * Sets how long a request may wait for a permit before failing with a
+     * RateLimitedException
+     *
+     * @param maxWaitMillis
+     *            0 to fail fast instead of blocking
+     * @return self
+     */
+    public RateLimitPolicy setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    /**
+     * Sets the wait after a 429 response without Retry-After header
+     *
+     * @param defaultRetryAfterMillis
+     * @return self
+     */
+    public RateLimitPolicy setDefaultRetryAfterMillis(long defaultRetryAfterMillis) {
+        this.defaultRetryAfterMillis = defaultRetryAfterMillis;
+        return this;
+    }
+
+    /**
+     * Sets the lowest share of the configured rate the limiter slows down to
+     * after 429 responses
+     *
+     * @param minRateFactor
+     *            between 0 and 1
+     * @return self
+     */
+    public RateLimitPolicy setMinRateFactor(double minRateFactor) {
+        this.minRateFactor = minRateFactor;
+        return this;
+    }
+
+    /**
+     * Gets the name of the bucket of a request
+     *
+     * @param credentialPublicKey
+     *            may be null
+     * @param route
+     * @return String
+     */
+    public String bucketName(String credentialPublicKey, String route) {
+        String credential = (credentialPublicKey == null) ? "" : credentialPublicKey;
+        if (this.perRoute || this.routeRates.containsKey(route))
+            return credential + "/" + route;
+
+        return credential;
+    }
+
+    /**
+     * Gets the rate of the bucket of a request
+     *
+     * @param credentialPublicKey
+     *            may be null
+     * @param route
+     * @return double permits per second, 0 for no client side limit
+     */
+    public double rateOf(String credentialPublicKey, String route) {
+        Double rate = this.routeRates.get(route);
+        if ((rate == null) && (credentialPublicKey != null))
+            rate = this.credentialRates.get(credentialPublicKey);
+
+        return (rate == null) ? this.requestsPerSecond : rate;
+    }
+
+    /**
+     * Gets the bucket size for a rate
+     *
+     * @param requestsPerSecond
+     * @return int
+     */
+    public int burstOf(double requestsPerSecond) {
+        return (this.burst > 0) ? this.burst : (int) Math.max(1, Math.ceil(requestsPerSecond));
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public long getMaxWaitMillis() {
+        return this.maxWaitMillis;
+    }
+
+    public long getDefaultRetryAfterMillis() {
+        return this.defaultRetryAfterMillis;
+    }
+
+    public double getMinRateFactor() {
+        return this.minRateFactor;
+    }
+}
@@ -0,0 +1,239 @@
+package com.veridu.idos.settings;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.TransportException;
+
+/**
+ * When and how failed requests are retried. Only idempotent methods (GET,
+ * PUT, DELETE) are retried, unless an idempotency key header is set: POST and
+ * PATCH requests then carry a random key, the same on every attempt, so the
+ * API can discard duplicates. Retries wait an exponential backoff with full
+ * jitter and draw from a retry budget shared by every endpoint of the
+ * factory, so retries cannot amplify an outage.
+ */
+public class RetryPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "PUT", "DELETE"));
+
+    /**
+     * Maximum number of attempts of a request, the first one included
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Backoff (ms) before the first retry
+     */
+    private long initialBackoffMillis = 100;
+
+    /**
+     * Maximum backoff (ms) before a retry
+     */
+    private long maxBackoffMillis = 2000;
+
+    /**
+     * Backoff growth factor between retries
+     */
+    private double backoffMultiplier = 2;
+
+    /**
+     * HTTP status codes of API errors worth retrying
+     */
+    private Set<Integer> retryableStatusCodes = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+
+    /**
+     * Header carrying the idempotency key of POST and PATCH requests, null to
+     * never retry them
+     */
+    private String idempotencyKeyHeader = null;
+
+    /**
+     * Retries allowed per request sent, on top of the minimum rate
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * Retries per second always allowed, so that clients sending few
+     * requests can still retry
+     */
+    private int budgetMinRetriesPerSecond = 10;
+
+    /**
+     * Constructor Class
+     */
+    private RetryPolicy() {
+    }
+
+    /**
+     * Factory to create a new RetryPolicy object with the default values
+     *
+     * @return RetryPolicy
+     */
+    public static RetryPolicy createDefault() {
+        return new RetryPolicy();
+    }
+
+    /**
+     * Factory to create a RetryPolicy that never retries
+     *
+     * @return RetryPolicy
+     */
+    public static RetryPolicy disabled() {
+        return new RetryPolicy().setMaxAttempts(1);
+    }
+
+    /**
+     * Sets the maximum number of attempts of a request, the first one
+     * included
+     *
+     * @param maxAttempts
+     * @return self
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    /**
+     * Sets the backoff, in milliseconds, before the first retry and its
+     * maximum
+     *
+     * @param initialBackoffMillis
+     * @param maxBackoffMillis
+     * @return self
+     */
+    public RetryPolicy setBackoffMillis(long initialBackoffMillis, long maxBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        return this;
+    }
+
+    /**
+     * Sets the backoff growth factor between retries
+     *
+     * @param backoffMultiplier
+     * @return self
+     */
+    public RetryPolicy setBackoffMultiplier(double backoffMultiplier) {
+        this.backoffMultiplier = backoffMultiplier;
+        return this;
+    }
+
+    /**
+     * Sets the HTTP status codes of API errors worth retrying
+     *
+     * @param statusCodes
+     * @return self
+     */
+    public RetryPolicy setRetryableStatusCodes(Integer... statusCodes) {
+        this.retryableStatusCodes = new HashSet<>(Arrays.asList(statusCodes));
+        return this;
+    }
+
+    /**
+     * Sets the header carrying the idempotency key of POST and PATCH
+     * requests, making them retryable. Only set it if the API honors the
+     * header.
+     *
+     * @param idempotencyKeyHeader
+     *            e.g. "Idempotency-Key", null to never retry POST and PATCH
+     * @return self
+     */
+    public RetryPolicy setIdempotencyKeyHeader(String idempotencyKeyHeader) {
+        this.idempotencyKeyHeader = idempotencyKeyHeader;
+        return this;
+    }
+
+    /**
+     * Sets the retry budget
+     *
+     * @param ratio
+     *            retries allowed per request sent, e.g. 0.1 for 10%
+     * @param minRetriesPerSecond
+     *            retries per second always allowed
+     * @return self
+     */
+    public RetryPolicy setBudget(double ratio, int minRetriesPerSecond) {
+        this.budgetRatio = ratio;
+        this.budgetMinRetriesPerSecond = minRetriesPerSecond;
+        return this;
+    }
+
+    /**
+     * Checks if requests of the given method may be retried
+     *
+     * @param method
+     *            HTTP method
+     * @return boolean
+     */
+    public boolean allowsRetry(String method) {
+        if (this.maxAttempts <= 1)
+            return false;
+
+        return IDEMPOTENT_METHODS.contains(method) || (this.idempotencyKeyHeader != null);
+    }
+
+    /**
+     * Checks if retried requests of the given method must carry an
+     * idempotency key
+     *
+     * @param method
+     *            HTTP method
+     * @return boolean
+     */
+    public boolean requiresIdempotencyKey(String method) {
+        return (this.idempotencyKeyHeader != null) && !IDEMPOTENT_METHODS.contains(method);
+    }
+
+    /**
+     * Checks if a failure is worth retrying: the request failed before a
+     * response was read, or the API answered with a retryable status code
+     *
+     * @param e
+     *            SDKException raised by the attempt
+     * @return boolean
+     */
+    public boolean isRetryable(SDKException e) {
+        return (e instanceof TransportException) || this.retryableStatusCodes.contains(e.getCode());
+    }
+
+    /**
+     * Computes the backoff before a retry: a random delay between 0 and the
+     * exponential backoff of the attempt ("full jitter")
+     *
+     * @param attempt
+     *            number of the failed attempt, starting at 1
+     * @return long backoff in milliseconds
+     */
+    public long backoffMillis(int attempt) {
+        double backoff = this.initialBackoffMillis * Math.pow(this.backoffMultiplier, attempt - 1);
+        long bound = (long) Math.min(backoff, this.maxBackoffMillis);
+        if (bound <= 0)
+            return 0;
+
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    public int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+
+    public String getIdempotencyKeyHeader() {
+        return this.idempotencyKeyHeader;
+    }
+
+    public double getBudgetRatio() {
+        return this.budgetRatio;
+    }
+
+    public int getBudgetMinRetriesPerSecond() {
+        return this.budgetMinRetriesPerSecond;
+    }
+}
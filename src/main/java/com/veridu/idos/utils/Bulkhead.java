@@ -0,0 +1,93 @@
+package com.veridu.idos.utils;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * Connection pool and concurrency limit used by a group of routes, see
+ * BulkheadPolicy. Routes outside of any group use the shared bulkhead of the
+ * client. The quota of the bulkhead is the size of its pool when it is built;
+ * once the non-blocking client of the bulkhead is created, it takes half of
+ * the quota out of the pool, see shareWithAsyncClient().
+ */
+public final class Bulkhead {
+
+    private final String name;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final int maxConnections;
+
+    private final int maxConnectionsPerRoute;
+
+    /**
+     * Class constructor
+     *
+     * @param name
+     *            group name
+     * @param connectionManager
+     * @param httpClient
+     *            client leasing connections from connectionManager
+     * @param concurrencyLimiter
+     */
+    public Bulkhead(String name, PoolingHttpClientConnectionManager connectionManager,
+            CloseableHttpClient httpClient, ConcurrencyLimiter concurrencyLimiter) {
+        this.name = name;
+        this.connectionManager = connectionManager;
+        this.httpClient = httpClient;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxConnections = connectionManager.getMaxTotal();
+        this.maxConnectionsPerRoute = connectionManager.getDefaultMaxPerRoute();
+    }
+
+    /**
+     * Shrinks the pool to the part of the quota left to the blocking client,
+     * so that the blocking and the non-blocking clients together never open
+     * more connections than the quota. A quota of a single connection keeps
+     * one in each client; the concurrency limiter still lets a single request
+     * in flight.
+     */
+    public void shareWithAsyncClient() {
+        int maxTotal = Math.max(1, this.maxConnections - this.getAsyncMaxConnections());
+        this.connectionManager.setMaxTotal(maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(Math.min(this.maxConnectionsPerRoute, maxTotal));
+    }
+
+    /**
+     * Gets the connections of the non-blocking client: half of the quota, at
+     * least one
+     *
+     * @return int
+     */
+    public int getAsyncMaxConnections() {
+        return Math.max(1, this.maxConnections / 2);
+    }
+
+    public int getAsyncMaxConnectionsPerRoute() {
+        return Math.min(this.maxConnectionsPerRoute, this.getAsyncMaxConnections());
+    }
+
+    public int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return this.connectionManager;
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+}
@@ -0,0 +1,223 @@
+package com.veridu.idos.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import com.veridu.idos.exceptions.CircuitOpenException;
+import com.veridu.idos.settings.CircuitBreakerPolicy;
+
+/**
+ * Circuit breaker of one route, tripping on the failure or slow call rate of
+ * its last calls as described by CircuitBreakerPolicy. Callers acquire a
+ * permission before each call and record its outcome afterwards.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * States of a circuit breaker
+     */
+    public enum State {
+        /**
+         * Calls go through and are recorded
+         */
+        CLOSED,
+        /**
+         * Calls fail fast
+         */
+        OPEN,
+        /**
+         * A few trial calls go through to probe the route
+         */
+        HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+
+    private static final byte SLOW = 2;
+
+    private final String route;
+
+    private final CircuitBreakerPolicy policy;
+
+    private final long slowCallNanos;
+
+    /**
+     * Outcomes of the last calls, as FAILED and SLOW flags, in a ring
+     */
+    private final byte[] outcomes;
+
+    private int next;
+
+    private int calls;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    /**
+     * Trial calls left to let through, and trial calls that succeeded
+     */
+    private int trialPermits;
+
+    private int trialSuccesses;
+
+    /**
+     * Class constructor
+     *
+     * @param route
+     *            name of the route, for monitoring
+     * @param policy
+     *            CircuitBreakerPolicy
+     */
+    public CircuitBreaker(String route, CircuitBreakerPolicy policy) {
+        this.route = route;
+        this.policy = policy;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallMillis());
+        this.outcomes = new byte[policy.getWindowSize()];
+    }
+
+    /**
+     * Acquires the permission to make a call
+     *
+     * @throws CircuitOpenException
+     *             if the breaker is open, or half open with every trial call
+     *             already in flight
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        if (!this.policy.isEnabled())
+            return;
+
+        if ((this.state == State.OPEN)
+                && (System.nanoTime() - this.openedAt >= TimeUnit.MILLISECONDS.toNanos(this.policy.getOpenMillis()))) {
+            this.state = State.HALF_OPEN;
+            this.trialPermits = this.policy.getHalfOpenCalls();
+            this.trialSuccesses = 0;
+        }
+
+        if (this.state == State.OPEN)
+            throw new CircuitOpenException(this.route);
+        if (this.state == State.HALF_OPEN) {
+            if (this.trialPermits == 0)
+                throw new CircuitOpenException(this.route);
+            this.trialPermits--;
+        }
+    }
+
+    /**
+     * Gives back a permission whose call never ran or was abandoned, so its
+     * outcome says nothing about the health of the route
+     */
+    public synchronized void release() {
+        if (this.policy.isEnabled() && (this.state == State.HALF_OPEN)
+                && (this.trialPermits < this.policy.getHalfOpenCalls()))
+            this.trialPermits++;
+    }
+
+    /**
+     * Records the outcome of a call made with a permission
+     *
+     * @param failed
+     *            whether the call failed
+     * @param durationNanos
+     *            duration of the call
+     */
+    public synchronized void record(boolean failed, long durationNanos) {
+        if (!this.policy.isEnabled())
+            return;
+
+        boolean slow = durationNanos >= this.slowCallNanos;
+        switch (this.state) {
+        case HALF_OPEN:
+            if (failed || slow)
+                this.open();
+            else if (++this.trialSuccesses >= this.policy.getHalfOpenCalls())
+                this.close();
+            break;
+        case CLOSED:
+            this.add((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+            if ((this.calls >= this.policy.getMinimumCalls())
+                    && ((this.getFailureRate() >= this.policy.getFailureRateThreshold())
+                            || (this.getSlowCallRate() >= this.policy.getSlowCallRateThreshold())))
+                this.open();
+            break;
+        default:
+            // outcome of a call started before the breaker opened
+        }
+    }
+
+    private void add(byte outcome) {
+        if (this.calls == this.outcomes.length) {
+            byte evicted = this.outcomes[this.next];
+            if ((evicted & FAILED) != 0)
+                this.failures--;
+            if ((evicted & SLOW) != 0)
+                this.slowCalls--;
+        } else {
+            this.calls++;
+        }
+
+        this.outcomes[this.next] = outcome;
+        this.next = (this.next + 1) % this.outcomes.length;
+        if ((outcome & FAILED) != 0)
+            this.failures++;
+        if ((outcome & SLOW) != 0)
+            this.slowCalls++;
+    }
+
+    private void open() {
+        this.state = State.OPEN;
+        this.openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        this.state = State.CLOSED;
+        this.next = 0;
+        this.calls = 0;
+        this.failures = 0;
+        this.slowCalls = 0;
+    }
+
+    public String getRoute() {
+        return this.route;
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns the share of failed calls in the window, 0 if empty
+     *
+     * @return double
+     */
+    public synchronized double getFailureRate() {
+        return (this.calls == 0) ? 0 : (double) this.failures / this.calls;
+    }
+
+    /**
+     * Returns the share of slow calls in the window, 0 if empty
+     *
+     * @return double
+     */
+    public synchronized double getSlowCallRate() {
+        return (this.calls == 0) ? 0 : (double) this.slowCalls / this.calls;
+    }
+
+    /**
+     * Returns the number of calls in the window
+     *
+     * @return int
+     */
+    public synchronized int getBufferedCalls() {
+        return this.calls;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.route + " " + this.state + " (" + this.calls + " calls, " + this.failures + " failed, "
+                + this.slowCalls + " slow)";
+    }
+}
@@ -0,0 +1,253 @@
+package com.veridu.idos.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.veridu.idos.exceptions.ConcurrencyLimitException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.settings.ConcurrencyLimitPolicy;
+
+/**
+ * Adaptive limit of the requests in flight, as described by
+ * ConcurrencyLimitPolicy. Callers acquire a slot before each request and
+ * release it with the request latency afterwards. Asynchronous callers queue
+ * for a slot without blocking a thread, and are handed the released slots
+ * first, in order.
+ */
+public final class ConcurrencyLimiter {
+
+    private final ConcurrencyLimitPolicy policy;
+
+    private final int maxLimit;
+
+    private double limit;
+
+    private int inFlight;
+
+    /**
+     * Asynchronous callers waiting for a slot
+     */
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    /**
+     * Lowest latency of the current and of the previous window
+     */
+    private long minLatency = Long.MAX_VALUE;
+
+    private long windowMinLatency = Long.MAX_VALUE;
+
+    private int windowSamples;
+
+    private long decreasedAt;
+
+    /**
+     * Class constructor
+     *
+     * @param policy
+     *            ConcurrencyLimitPolicy
+     * @param maxLimit
+     *            highest limit, used when the policy does not set one
+     */
+    public ConcurrencyLimiter(ConcurrencyLimitPolicy policy, int maxLimit) {
+        this.policy = policy;
+        this.maxLimit = Math.max(policy.getMinLimit(), (policy.getMaxLimit() > 0) ? policy.getMaxLimit() : maxLimit);
+        this.limit = (policy.getInitialLimit() > 0)
+                ? Math.max(policy.getMinLimit(), Math.min(this.maxLimit, policy.getInitialLimit())) : this.maxLimit;
+        this.decreasedAt = System.nanoTime();
+    }
+
+    /**
+     * Takes a slot, waiting for one up to the policy maximum wait, or up to
+     * the running Deadline if sooner
+     *
+     * @throws SDKException
+     *             ConcurrencyLimitException if no slot frees up in time
+     */
+    public synchronized void acquire() throws SDKException {
+        if (!this.policy.isEnabled())
+            return;
+
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(Deadline.capMillis(this.policy.getMaxWaitMillis()));
+        while ((this.inFlight >= (int) this.limit) || !this.waiters.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                throw new ConcurrencyLimitException((int) this.limit);
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SDKException("Interrupted while waiting for the concurrency limit");
+            }
+        }
+        this.inFlight++;
+    }
+
+    /**
+     * Takes a slot without blocking: the returned future completes once a
+     * slot is handed over, or exceptionally with a ConcurrencyLimitException
+     * if none frees up within the policy maximum wait, or within the running
+     * Deadline if sooner. It completes on the thread releasing the slot or on
+     * the scheduler.
+     *
+     * @param scheduler
+     *            ends the wait at its timeout
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> acquireAsync(ScheduledExecutorService scheduler) {
+        if (!this.policy.isEnabled())
+            return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<Void> slot = new CompletableFuture<>();
+        int limit;
+        synchronized (this) {
+            if ((this.inFlight < (int) this.limit) && this.waiters.isEmpty()) {
+                this.inFlight++;
+                slot.complete(null);
+                return slot;
+            }
+            limit = (int) this.limit;
+            long maxWait = Deadline.capMillis(this.policy.getMaxWaitMillis());
+            if (maxWait > 0) {
+                this.waiters.add(slot);
+                scheduler.schedule(() -> this.expire(slot), maxWait, TimeUnit.MILLISECONDS);
+                return slot;
+            }
+        }
+        slot.completeExceptionally(new ConcurrencyLimitException(limit));
+        return slot;
+    }
+
+    /**
+     * Fails an asynchronous caller still waiting at its timeout
+     *
+     * @param slot
+     */
+    private void expire(CompletableFuture<Void> slot) {
+        int limit;
+        synchronized (this) {
+            if (!this.waiters.remove(slot))
+                return;
+            limit = (int) this.limit;
+            // blocked callers may have been waiting behind it
+            this.notifyAll();
+        }
+        slot.completeExceptionally(new ConcurrencyLimitException(limit));
+    }
+
+    /**
+     * Hands the free slots to the asynchronous callers waiting for one, to be
+     * completed outside of the lock
+     *
+     * @return List<CompletableFuture<Void>> slots handed over
+     */
+    private List<CompletableFuture<Void>> handOver() {
+        List<CompletableFuture<Void>> slots = new ArrayList<>();
+        while ((this.inFlight < (int) this.limit) && !this.waiters.isEmpty()) {
+            this.inFlight++;
+            slots.add(this.waiters.poll());
+        }
+        this.notifyAll();
+        return slots;
+    }
+
+    private static void complete(List<CompletableFuture<Void>> slots) {
+        for (CompletableFuture<Void> slot : slots)
+            slot.complete(null);
+    }
+
+    /**
+     * Releases a slot without adapting the limit, for requests that were not
+     * sent or whose outcome says nothing about the load of the API: client
+     * errors, requests aborted at their deadline and cancelled hedges
+     */
+    public void release() {
+        List<CompletableFuture<Void>> slots;
+        synchronized (this) {
+            if (!this.policy.isEnabled())
+                return;
+
+            this.inFlight--;
+            slots = this.handOver();
+        }
+        complete(slots);
+    }
+
+    /**
+     * Releases the slot of a request that succeeded or that the API dropped,
+     * and adapts the limit to its outcome. Only successful requests are taken
+     * as latency samples.
+     *
+     * @param dropped
+     *            whether the API dropped the request
+     * @param latencyNanos
+     *            duration of the request
+     */
+    public void release(boolean dropped, long latencyNanos) {
+        List<CompletableFuture<Void>> slots;
+        synchronized (this) {
+            if (!this.policy.isEnabled())
+                return;
+
+            this.adapt(dropped, latencyNanos);
+            slots = this.handOver();
+        }
+        complete(slots);
+    }
+
+    /**
+     * Frees the slot of a request and adapts the limit to its outcome
+     *
+     * @param dropped
+     * @param latencyNanos
+     */
+    private void adapt(boolean dropped, long latencyNanos) {
+        int used = this.inFlight--;
+        if (!dropped) {
+            this.windowMinLatency = Math.min(this.windowMinLatency, latencyNanos);
+            this.minLatency = Math.min(this.minLatency, latencyNanos);
+            if (++this.windowSamples >= this.policy.getLatencyWindow()) {
+                this.minLatency = this.windowMinLatency;
+                this.windowMinLatency = Long.MAX_VALUE;
+                this.windowSamples = 0;
+            }
+        }
+
+        if (dropped || (latencyNanos > this.minLatency * this.policy.getLatencyTolerance())) {
+            long now = System.nanoTime();
+            if (now - this.decreasedAt >= Math.min(latencyNanos, this.minLatency)) {
+                this.limit = Math.max(this.policy.getMinLimit(), this.limit * this.policy.getBackoffRatio());
+                this.decreasedAt = now;
+            }
+        } else if (used * 2 >= this.limit) {
+            this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+        }
+    }
+
+    /**
+     * Gets the number of requests in flight allowed
+     *
+     * @return int
+     */
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * Gets the number of requests in flight
+     *
+     * @return int
+     */
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.inFlight + "/" + this.getLimit() + " requests in flight";
+    }
+}
@@ -0,0 +1,190 @@
+package com.veridu.idos.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import com.veridu.idos.exceptions.DeadlineExceededException;
+import com.veridu.idos.exceptions.SDKException;
+
+/**
+ * Point in time by which an operation must complete, shared by every request
+ * of the operation: its retries, its pages and its hedges. The deadline of
+ * the running operation is kept per thread and handed over by the SDK to the
+ * threads it uses, so callers only have to run the operation within it:
+ *
+ * <pre>
+ * {@code JsonObject gates = Deadline.after(2000).call(() -> profileGates.listAll(userName));}
+ * </pre>
+ *
+ * A nested deadline never extends the one already running.
+ */
+public final class Deadline {
+
+    /**
+     * Runs an operation
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws SDKException;
+    }
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    /**
+     * Expiration time (System.nanoTime)
+     */
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Creates a deadline the given time from now
+     *
+     * @param millis
+     * @return Deadline
+     */
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Gets the deadline of an operation started now within the given timeout:
+     * the running deadline if it is sooner, for operations that complete on
+     * other threads
+     *
+     * @param timeoutMillis
+     *            0 for no timeout
+     * @return Deadline, null if none
+     */
+    public static Deadline within(long timeoutMillis) {
+        Deadline running = current.get();
+        if (timeoutMillis <= 0)
+            return running;
+
+        Deadline deadline = after(timeoutMillis);
+        return ((running != null) && (running.expiresAt - deadline.expiresAt <= 0)) ? running : deadline;
+    }
+
+    /**
+     * Gets the deadline of the operation running on this thread
+     *
+     * @return Deadline, null if none
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Runs an operation within this deadline, or within the running one if
+     * it is sooner
+     *
+     * @param call
+     * @return T result of the operation
+     * @throws SDKException
+     */
+    public <T> T call(Call<T> call) throws SDKException {
+        Deadline previous = current.get();
+        if ((previous != null) && (previous.expiresAt - this.expiresAt <= 0))
+            return call.call();
+
+        current.set(this);
+        try {
+            return call.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs an operation within the given timeout
+     *
+     * @param timeoutMillis
+     *            0 for no timeout
+     * @param call
+     * @return T result of the operation
+     * @throws SDKException
+     */
+    public static <T> T callWithin(long timeoutMillis, Call<T> call) throws SDKException {
+        return (timeoutMillis > 0) ? after(timeoutMillis).call(call) : call.call();
+    }
+
+    /**
+     * Runs an operation within the given deadline, typically one captured on
+     * another thread
+     *
+     * @param deadline
+     *            may be null
+     * @param call
+     * @return T result of the operation
+     * @throws SDKException
+     */
+    public static <T> T callWith(Deadline deadline, Call<T> call) throws SDKException {
+        return (deadline != null) ? deadline.call(call) : call.call();
+    }
+
+    /**
+     * Wraps a task so that it runs within the deadline of the calling thread,
+     * for tasks handed over to an executor
+     *
+     * @param task
+     * @return Runnable task itself if no deadline is running
+     */
+    public static Runnable propagate(Runnable task) {
+        Deadline deadline = current.get();
+        if (deadline == null)
+            return task;
+
+        return () -> {
+            Deadline previous = current.get();
+            current.set(deadline);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Deadline previous) {
+        if (previous == null)
+            current.remove();
+        else
+            current.set(previous);
+    }
+
+    /**
+     * Caps a wait to the time left to the running deadline
+     *
+     * @param millis
+     * @return long milliseconds
+     */
+    public static long capMillis(long millis) {
+        Deadline deadline = current.get();
+        return (deadline == null) ? millis : Math.min(millis, deadline.remainingMillis());
+    }
+
+    /**
+     * Checks that the running deadline, if any, has not passed
+     *
+     * @throws DeadlineExceededException
+     */
+    public static void check() throws DeadlineExceededException {
+        Deadline deadline = current.get();
+        if ((deadline != null) && deadline.isExpired())
+            throw new DeadlineExceededException("Deadline exceeded before the request was sent");
+    }
+
+    /**
+     * Gets the time left
+     *
+     * @return long milliseconds, 0 once expired
+     */
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.expiresAt - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return this.expiresAt - System.nanoTime() <= 0;
+    }
+}
@@ -1,29 +1,78 @@
 package com.veridu.idos.utils;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
-public class Filter {
+/**
+ * Query parameters of a listing request. Filters are immutable: every add and
+ * set method returns a new filter and leaves the one it is called on
+ * untouched, so a filter can be built once and shared between threads.
+ * Parameters are kept sorted by key, so equal filters render the same
+ * URL-encoded query string, which is built when the filter is created.
+ */
+public final class Filter {
 
-    protected HashMap<String, String> params = new HashMap<>();
+    /**
+     * Name of the parameter selecting the page
+     */
+    private static final String PAGE = "page";
+
+    /**
+     * Filter without parameters
+     */
+    private static final Filter EMPTY = new Filter(new TreeMap<>(), false, 1);
+
+    private final SortedMap<String, String> params;
+
+    /**
+     * Encoded query string
+     */
+    private final String query;
+
+    /**
+     * Encoded parameters sorted before and after the page parameter
+     */
+    private final String queryBeforePage;
+
+    private final String queryAfterPage;
 
     /**
      * Boolean value to get all pages
      */
-    private boolean getAllPages = false;
+    private final boolean getAllPages;
+
+    /**
+     * Number of pages requested concurrently when getting all pages
+     */
+    private final int pageParallelism;
 
     /**
      * Constructor Class
+     *
+     * @param params
+     *            parameters, owned by the new filter
+     * @param getAllPages
+     * @param pageParallelism
      */
-    private Filter() {
+    private Filter(TreeMap<String, String> params, boolean getAllPages, int pageParallelism) {
+        this.params = Collections.unmodifiableSortedMap(params);
+        this.query = encode(params);
+        this.queryBeforePage = encode(params.headMap(PAGE));
+        this.queryAfterPage = encode(params.tailMap(PAGE, false));
+        this.getAllPages = getAllPages;
+        this.pageParallelism = pageParallelism;
     }
 
     /**
-     * Return all parameters added in the HashMap<String, String>
+     * Return a copy of all parameters added
      *
      * @return
      */
     public HashMap<String, String> getParams() {
-        return params;
+        return new HashMap<>(this.params);
     }
 
     /**
@@ -150,8 +199,7 @@ public class Filter {
      * @return
      */
     public Filter addCreatorFilter(String filter) {
-        this.addFilterByKeyName("creator", filter);
-        return this;
+        return this.addFilterByKeyName("creator", filter);
     }
 
     /**
@@ -172,11 +220,12 @@ public class Filter {
      * @param filter
      *            actual filter value
      *
-     * @return self
+     * @return a new filter with the parameter added
      */
     public Filter addFilterByKeyName(String name, String value) {
-        this.params.put(name, value);
-        return this;
+        TreeMap<String, String> params = new TreeMap<>(this.params);
+        params.put(name, value);
+        return new Filter(params, this.getAllPages, this.pageParallelism);
     }
 
     /**
@@ -186,7 +235,7 @@ public class Filter {
      * @return
      */
     public Filter addPageNumber(int page) {
-        return this.addFilterByKeyName("page", String.valueOf(page));
+        return this.addFilterByKeyName(PAGE, String.valueOf(page));
     }
 
     /**
@@ -205,30 +254,98 @@ public class Filter {
      * @return
      */
     public static Filter createFilter() {
-        return new Filter();
+        return EMPTY;
     }
 
     /**
-     * Overrides the toString() method
+     * Returns the URL-encoded query string, with parameters sorted by key
      */
     @Override
     public String toString() {
-        int size = this.params.keySet().size();
+        return this.query;
+    }
+
+    /**
+     * Returns the URL-encoded query string selecting the given page
+     *
+     * @param page
+     *            page number
+     * @return String query string
+     */
+    public String toPageQueryString(int page) {
+        String before = this.queryBeforePage;
+        String after = this.queryAfterPage;
+        StringBuilder query = new StringBuilder(before.length() + after.length() + 16);
+        if (!before.isEmpty())
+            query.append(before).append('&');
+        query.append(PAGE).append('=').append(page);
+        if (!after.isEmpty())
+            query.append('&').append(after);
+
+        return query.toString();
+    }
+
+    /**
+     * Joins the encoded parameters
+     *
+     * @param params
+     * @return String query string
+     */
+    private static String encode(Map<String, String> params) {
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (query.length() > 0)
+                query.append('&');
+            query.append(URLEncoding.encodeQueryComponent(param.getKey())).append('=')
+                    .append(URLEncoding.encodeQueryComponent(String.valueOf(param.getValue())));
+        }
 
-        String[] queryElements = new String[size];
+        return query.toString();
+    }
 
-        int i = size - 1;
-        for (String key : this.params.keySet())
-            queryElements[i--] = key + "=" + this.params.get(key);
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Filter))
+            return false;
+        Filter other = (Filter) obj;
+        return this.params.equals(other.params) && (this.getAllPages == other.getAllPages)
+                && (this.pageParallelism == other.pageParallelism);
+    }
 
-        return String.join("&", queryElements);
+    @Override
+    public int hashCode() {
+        return this.params.hashCode();
     }
 
     /**
-     * Sets the getAllPages property to true
+     * Returns a copy of this filter with the getAllPages property set to true
+     *
+     * @return a new filter getting all pages
+     */
+    public Filter setAllPagesTrue() {
+        return new Filter(new TreeMap<>(this.params), true, this.pageParallelism);
+    }
+
+    /**
+     * Returns a copy of this filter with the getAllPages property set to
+     * true, requesting up to parallelism pages concurrently once the first
+     * page reveals the page count
+     *
+     * @param parallelism
+     *            maximum number of pages requested at the same time
+     * @return a new filter getting all pages
+     */
+    public Filter setAllPagesTrue(int parallelism) {
+        return new Filter(new TreeMap<>(this.params), true, Math.max(1, parallelism));
+    }
+
+    /**
+     * Return the number of pages requested concurrently when getting all pages
+     *
+     * @return
      */
-    public void setAllPagesTrue() {
-        this.getAllPages = true;
+    public int getPageParallelism() {
+        return this.pageParallelism;
     }
 
     /**
@@ -0,0 +1,768 @@
+package com.veridu.idos.utils;
+
+import com.veridu.idos.settings.BulkheadPolicy;
+import com.veridu.idos.settings.ClientSettings;
+import com.veridu.idos.settings.RateLimitPolicy;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived pooled HTTP client shared by all endpoints of an IdOSAPIFactory
+ *
+ */
+public class IdOSHttpClient implements Closeable {
+
+    /**
+     * trustmanager for disabling ssl checking
+     */
+    private static final TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
+        public java.security.cert.X509Certificate[] getAcceptedIssuers() {
+            return null;
+        }
+
+        public void checkClientTrusted(X509Certificate[] certs, String authType) {
+        }
+
+        public void checkServerTrusted(X509Certificate[] certs, String authType) {
+        }
+    } };
+
+    /**
+     * Fallback clients for endpoints created outside of an IdOSAPIFactory
+     */
+    private static volatile IdOSHttpClient defaultClient;
+
+    private static volatile IdOSHttpClient defaultUncheckedClient;
+
+    /**
+     * Settings used to build this client
+     */
+    private final ClientSettings settings;
+
+    private final boolean doNotCheckSSLCertificate;
+
+    /**
+     * Pooled connection manager
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * Underlying Apache HTTP client
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Threads parsing the responses of asynchronous requests, by bulkhead
+     * name, created on first use
+     */
+    private final ConcurrentHashMap<String, ExecutorService> asyncExecutors = new ConcurrentHashMap<>();
+
+    /**
+     * Non-blocking HTTP clients sending asynchronous requests, by bulkhead
+     * name, created on first use
+     */
+    private final ConcurrentHashMap<String, CloseableHttpAsyncClient> asyncHttpClients = new ConcurrentHashMap<>();
+
+    /**
+     * Connection pools of the non-blocking clients, by bulkhead name
+     */
+    private final ConcurrentHashMap<String, PoolingNHttpClientConnectionManager> asyncConnectionManagers =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Threads prefetching pages of all-pages listings, created on first use.
+     * Concurrency is bounded per listing by Filter.setAllPagesTrue(int).
+     */
+    private volatile ExecutorService pageExecutor;
+
+    /**
+     * Threads running hedged requests, created on first use
+     */
+    private volatile ExecutorService hedgeExecutor;
+
+    /**
+     * Thread aborting requests whose deadline passed, created on first use
+     */
+    private volatile ScheduledExecutorService deadlineScheduler;
+
+    /**
+     * Tokens shared by the endpoints using this client, created on first use
+     */
+    private volatile TokenCache tokenCache;
+
+    /**
+     * Retries allowed to the endpoints using this client, created on first
+     * use
+     */
+    private volatile RetryBudget retryBudget;
+
+    /**
+     * Hedges allowed to the endpoints using this client, created on first use
+     */
+    private volatile RetryBudget hedgeBudget;
+
+    /**
+     * Recent latencies by route, for hedged routes only
+     */
+    private final ConcurrentHashMap<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+
+    /**
+     * Identical GET requests in flight, and the threads sending them, created
+     * on first use
+     */
+    private volatile RequestCoalescer requestCoalescer;
+
+    private volatile ExecutorService coalesceExecutor;
+
+    /**
+     * Adaptive limit of the requests in flight, created on first use
+     */
+    private volatile ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Bulkheads of the BulkheadPolicy groups, by group name
+     */
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    /**
+     * Bulkhead of the routes outside of any group, created on first use
+     */
+    private volatile Bulkhead sharedBulkhead;
+
+    /**
+     * Circuit breakers by route, created on first use
+     */
+    private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * Rate limiters by bucket name, created on first use
+     */
+    private final ConcurrentHashMap<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * Class constructor
+     *
+     * @param settings
+     *            ClientSettings
+     * @param doNotCheckSSLCertificate
+     *            whether to disable ssl verification for API requests
+     */
+    public IdOSHttpClient(ClientSettings settings, boolean doNotCheckSSLCertificate) {
+        this.settings = settings;
+        this.doNotCheckSSLCertificate = doNotCheckSSLCertificate;
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = createSocketFactoryRegistry(
+                doNotCheckSSLCertificate);
+        this.connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        this.connectionManager.setMaxTotal(settings.getMaxTotalConnections());
+        this.connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+        this.httpClient = createHttpClient(this.connectionManager, settings);
+
+        for (BulkheadPolicy.Group group : settings.getBulkheadPolicy().getGroups()) {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                    socketFactoryRegistry);
+            connectionManager.setMaxTotal(group.getMaxConnections());
+            connectionManager.setDefaultMaxPerRoute(group.getMaxConnections());
+            this.bulkheads.put(group.getName(),
+                    new Bulkhead(group.getName(), connectionManager, createHttpClient(connectionManager, settings),
+                            new ConcurrencyLimiter(settings.getConcurrencyLimitPolicy(), group.getMaxConnections())));
+        }
+    }
+
+    /**
+     * Builds an Apache HTTP client leasing connections from the given pool
+     *
+     * @param connectionManager
+     * @param settings
+     * @return CloseableHttpClient
+     */
+    private static CloseableHttpClient createHttpClient(PoolingHttpClientConnectionManager connectionManager,
+            ClientSettings settings) {
+        return HttpClientBuilder.create().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig(settings))
+                .setKeepAliveStrategy(createKeepAliveStrategy(settings.getKeepAliveMillis())).evictExpiredConnections()
+                .evictIdleConnections(settings.getIdleTimeoutMillis(), TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Builds the timeouts of the requests
+     *
+     * @param settings
+     * @return RequestConfig
+     */
+    private static RequestConfig createRequestConfig(ClientSettings settings) {
+        return RequestConfig.custom().setConnectTimeout(settings.getConnectTimeoutMillis())
+                .setConnectionRequestTimeout(settings.getConnectTimeoutMillis())
+                .setSocketTimeout(settings.getReadTimeoutMillis()).build();
+    }
+
+    /**
+     * Returns the process wide client used by endpoints that were not created
+     * by an IdOSAPIFactory
+     *
+     * @param doNotCheckSSLCertificate
+     * @return IdOSHttpClient
+     */
+    public static IdOSHttpClient getDefault(boolean doNotCheckSSLCertificate) {
+        if (doNotCheckSSLCertificate) {
+            if (defaultUncheckedClient == null) {
+                synchronized (IdOSHttpClient.class) {
+                    if (defaultUncheckedClient == null)
+                        defaultUncheckedClient = new IdOSHttpClient(ClientSettings.createDefault(), true);
+                }
+            }
+            return defaultUncheckedClient;
+        }
+        if (defaultClient == null) {
+            synchronized (IdOSHttpClient.class) {
+                if (defaultClient == null)
+                    defaultClient = new IdOSHttpClient(ClientSettings.createDefault(), false);
+            }
+        }
+        return defaultClient;
+    }
+
+    /**
+     * Builds the socket factories, trusting every certificate when ssl
+     * checking is disabled
+     *
+     * @param doNotCheckSSLCertificate
+     * @return Registry<ConnectionSocketFactory>
+     */
+    private static Registry<ConnectionSocketFactory> createSocketFactoryRegistry(boolean doNotCheckSSLCertificate) {
+        SSLConnectionSocketFactory sslSocketFactory = SSLConnectionSocketFactory.getSocketFactory();
+        SSLContext sc = doNotCheckSSLCertificate ? createTrustAllContext() : null;
+        if (sc != null)
+            sslSocketFactory = new SSLConnectionSocketFactory(sc, NoopHostnameVerifier.INSTANCE);
+
+        return RegistryBuilder.<ConnectionSocketFactory> create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory).build();
+    }
+
+    /**
+     * Builds an SSL context trusting every certificate
+     *
+     * @return SSLContext, null if it cannot be built
+     */
+    private static SSLContext createTrustAllContext() {
+        try {
+            SSLContext sc = SSLContext.getInstance("SSL");
+            sc.init(null, trustAllCerts, new SecureRandom());
+            return sc;
+        } catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+        } catch (KeyManagementException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Honors the server Keep-Alive header, falling back to the configured
+     * duration
+     *
+     * @param keepAliveMillis
+     * @return ConnectionKeepAliveStrategy
+     */
+    private static ConnectionKeepAliveStrategy createKeepAliveStrategy(final long keepAliveMillis) {
+        return new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return duration > 0 ? duration : keepAliveMillis;
+            }
+        };
+    }
+
+    /**
+     * Gets the underlying Apache HTTP client
+     *
+     * @return CloseableHttpClient
+     */
+    public CloseableHttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
+    /**
+     * Gets the pooled connection manager
+     *
+     * @return PoolingHttpClientConnectionManager
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return this.connectionManager;
+    }
+
+    /**
+     * Gets the settings used to build this client
+     *
+     * @return ClientSettings
+     */
+    public ClientSettings getSettings() {
+        return this.settings;
+    }
+
+    /**
+     * Gets the executor of the asynchronous requests of the routes outside of
+     * any BulkheadPolicy group
+     *
+     * @return ExecutorService
+     * @see #getAsyncExecutor(String)
+     */
+    public ExecutorService getAsyncExecutor() {
+        return this.getAsyncExecutor(null);
+    }
+
+    /**
+     * Gets the executor parsing the responses of the asynchronous requests of
+     * a route and running their continuations, creating it on first use. Its
+     * threads never wait for the network: the requests are sent and awaited
+     * by the I/O reactor of the non-blocking client. Each bulkhead has its
+     * own, of at most as many threads as its connections, so continuations
+     * blocking one group cannot delay the responses of another.
+     *
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return ExecutorService
+     */
+    public ExecutorService getAsyncExecutor(String route) {
+        Bulkhead bulkhead = this.getBulkhead(route);
+        ExecutorService executor = this.asyncExecutors.get(bulkhead.getName());
+        if (executor == null)
+            executor = this.asyncExecutors.computeIfAbsent(bulkhead.getName(),
+                    name -> Executors.newFixedThreadPool(
+                            Math.max(1, Math.min(this.settings.getAsyncPoolSize(),
+                                    bulkhead.getAsyncMaxConnections())),
+                            createThreadFactory("idos-async-" + name + "-")));
+        return executor;
+    }
+
+    /**
+     * Gets the started non-blocking HTTP client of the bulkhead of a route,
+     * creating it on first use. It takes half of the connection quota of the
+     * bulkhead out of the pool of the blocking client, see
+     * Bulkhead.shareWithAsyncClient(), and waits for all of its responses on
+     * a few I/O reactor threads, so requests in flight do not hold threads.
+     *
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return CloseableHttpAsyncClient
+     */
+    public CloseableHttpAsyncClient getAsyncHttpClient(String route) {
+        Bulkhead bulkhead = this.getBulkhead(route);
+        CloseableHttpAsyncClient client = this.asyncHttpClients.get(bulkhead.getName());
+        if (client == null)
+            client = this.asyncHttpClients.computeIfAbsent(bulkhead.getName(),
+                    name -> this.createAsyncHttpClient(bulkhead));
+        return client;
+    }
+
+    /**
+     * Builds and starts the non-blocking HTTP client of a bulkhead
+     *
+     * @param bulkhead
+     * @return CloseableHttpAsyncClient
+     */
+    private CloseableHttpAsyncClient createAsyncHttpClient(Bulkhead bulkhead) {
+        ThreadFactory threadFactory = createThreadFactory("idos-reactor-" + bulkhead.getName() + "-");
+        PoolingNHttpClientConnectionManager connectionManager = this.createAsyncConnectionManager(threadFactory);
+        bulkhead.shareWithAsyncClient();
+        connectionManager.setMaxTotal(bulkhead.getAsyncMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(bulkhead.getAsyncMaxConnectionsPerRoute());
+        this.asyncConnectionManagers.put(bulkhead.getName(), connectionManager);
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig(this.settings))
+                .setKeepAliveStrategy(createKeepAliveStrategy(this.settings.getKeepAliveMillis()))
+                .setThreadFactory(threadFactory).build();
+        client.start();
+        this.scheduleEviction(connectionManager);
+        return client;
+    }
+
+    /**
+     * Builds the connection pool of a non-blocking client, trusting every
+     * certificate when ssl checking is disabled
+     *
+     * @param threadFactory
+     *            factory of the I/O reactor threads
+     * @return PoolingNHttpClientConnectionManager
+     */
+    private PoolingNHttpClientConnectionManager createAsyncConnectionManager(ThreadFactory threadFactory) {
+        SSLIOSessionStrategy sslStrategy = SSLIOSessionStrategy.getDefaultStrategy();
+        SSLContext sc = this.doNotCheckSSLCertificate ? createTrustAllContext() : null;
+        if (sc != null)
+            sslStrategy = new SSLIOSessionStrategy(sc, NoopHostnameVerifier.INSTANCE);
+
+        try {
+            return new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT, threadFactory),
+                    RegistryBuilder.<SchemeIOSessionStrategy> create().register("http", NoopIOSessionStrategy.INSTANCE)
+                            .register("https", sslStrategy).build());
+        } catch (IOReactorException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Closes the expired connections of a non-blocking pool, and those idle
+     * for longer than the idle timeout, periodically on the deadline
+     * scheduler, as the blocking clients evict theirs
+     *
+     * @param connectionManager
+     */
+    private void scheduleEviction(PoolingNHttpClientConnectionManager connectionManager) {
+        long idleTimeoutMillis = this.settings.getIdleTimeoutMillis();
+        long periodMillis = (idleTimeoutMillis > 0) ? idleTimeoutMillis : 5000;
+        this.getDeadlineScheduler().scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            if (idleTimeoutMillis > 0)
+                connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the connection pool of the non-blocking client of the bulkhead of
+     * a route, for monitoring, creating the client on first use
+     *
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return PoolingNHttpClientConnectionManager
+     */
+    public PoolingNHttpClientConnectionManager getAsyncConnectionManager(String route) {
+        this.getAsyncHttpClient(route);
+        return this.asyncConnectionManagers.get(this.getBulkhead(route).getName());
+    }
+
+    /**
+     * Gets the executor prefetching pages of all-pages listings, creating it
+     * on first use. It is separate from the async executor so a listing
+     * started from an asynchronous call cannot starve itself of threads.
+     *
+     * @return ExecutorService
+     */
+    public ExecutorService getPageExecutor() {
+        if (this.pageExecutor == null) {
+            synchronized (this) {
+                if (this.pageExecutor == null)
+                    this.pageExecutor = Executors.newCachedThreadPool(createThreadFactory("idos-pages-"));
+            }
+        }
+        return this.pageExecutor;
+    }
+
+    /**
+     * Gets the executor running hedged requests, creating it on first use.
+     * Both the request and its hedge run there, so that the caller can wait
+     * for whichever answers first.
+     *
+     * @return ExecutorService
+     */
+    public ExecutorService getHedgeExecutor() {
+        if (this.hedgeExecutor == null) {
+            synchronized (this) {
+                if (this.hedgeExecutor == null)
+                    this.hedgeExecutor = Executors.newCachedThreadPool(createThreadFactory("idos-hedge-"));
+            }
+        }
+        return this.hedgeExecutor;
+    }
+
+    /**
+     * Gets the scheduler aborting requests whose deadline passed, creating it
+     * on first use
+     *
+     * @return ScheduledExecutorService
+     */
+    public ScheduledExecutorService getDeadlineScheduler() {
+        if (this.deadlineScheduler == null) {
+            synchronized (this) {
+                if (this.deadlineScheduler == null) {
+                    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                            createThreadFactory("idos-deadline-"));
+                    scheduler.setRemoveOnCancelPolicy(true);
+                    this.deadlineScheduler = scheduler;
+                }
+            }
+        }
+        return this.deadlineScheduler;
+    }
+
+    /**
+     * Gets the token cache shared by the endpoints using this client, creating
+     * it on first use
+     *
+     * @return TokenCache
+     */
+    public TokenCache getTokenCache() {
+        if (this.tokenCache == null) {
+            synchronized (this) {
+                if (this.tokenCache == null)
+                    this.tokenCache = new TokenCache(this.settings.getTokenLifetimeMillis(),
+                            this.settings.getTokenRefreshMarginMillis());
+            }
+        }
+        return this.tokenCache;
+    }
+
+    /**
+     * Gets the retry budget shared by the endpoints using this client,
+     * creating it on first use
+     *
+     * @return RetryBudget
+     */
+    public RetryBudget getRetryBudget() {
+        if (this.retryBudget == null) {
+            synchronized (this) {
+                if (this.retryBudget == null)
+                    this.retryBudget = new RetryBudget(this.settings.getRetryPolicy().getBudgetRatio(),
+                            this.settings.getRetryPolicy().getBudgetMinRetriesPerSecond());
+            }
+        }
+        return this.retryBudget;
+    }
+
+    /**
+     * Gets the budget of the hedges of the endpoints using this client,
+     * creating it on first use. Every hedged request deposits the
+     * HedgePolicy maximum extra load and every hedge withdraws one.
+     *
+     * @return RetryBudget
+     */
+    public RetryBudget getHedgeBudget() {
+        if (this.hedgeBudget == null) {
+            synchronized (this) {
+                if (this.hedgeBudget == null)
+                    this.hedgeBudget = new RetryBudget(this.settings.getHedgePolicy().getMaxExtraLoad(), 0);
+            }
+        }
+        return this.hedgeBudget;
+    }
+
+    /**
+     * Gets the recent latencies of a route, creating the tracker on first use
+     *
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return LatencyTracker
+     */
+    public LatencyTracker getLatencyTracker(String route) {
+        LatencyTracker tracker = this.latencyTrackers.get(route);
+        if (tracker == null)
+            tracker = this.latencyTrackers.computeIfAbsent(route,
+                    name -> new LatencyTracker(this.settings.getHedgePolicy().getLatencyWindow(),
+                            this.settings.getHedgePolicy().getMinSamples()));
+        return tracker;
+    }
+
+    /**
+     * Gets the single-flight table of the GET requests of the endpoints using
+     * this client
+     *
+     * @return RequestCoalescer
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        if (this.requestCoalescer == null) {
+            synchronized (this) {
+                if (this.requestCoalescer == null) {
+                    this.coalesceExecutor = Executors.newCachedThreadPool(createThreadFactory("idos-coalesce-"));
+                    this.requestCoalescer = new RequestCoalescer(this.coalesceExecutor);
+                }
+            }
+        }
+        return this.requestCoalescer;
+    }
+
+    /**
+     * Gets the adaptive limit of the requests in flight of the endpoints
+     * using this client, creating it on first use
+     *
+     * @return ConcurrencyLimiter
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        if (this.concurrencyLimiter == null) {
+            synchronized (this) {
+                if (this.concurrencyLimiter == null)
+                    this.concurrencyLimiter = new ConcurrencyLimiter(this.settings.getConcurrencyLimitPolicy(),
+                            this.settings.getMaxConnectionsPerRoute());
+            }
+        }
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Gets the bulkhead of a route: the one of its BulkheadPolicy group, or
+     * the shared one made of the client pool and concurrency limiter
+     *
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return Bulkhead
+     */
+    public Bulkhead getBulkhead(String route) {
+        // groups added after the client was built are not isolated
+        BulkheadPolicy.Group group = this.settings.getBulkheadPolicy().groupOf(route);
+        Bulkhead bulkhead = (group == null) ? null : this.bulkheads.get(group.getName());
+        if (bulkhead != null)
+            return bulkhead;
+
+        if (this.sharedBulkhead == null) {
+            synchronized (this) {
+                if (this.sharedBulkhead == null)
+                    this.sharedBulkhead = new Bulkhead("shared", this.connectionManager, this.httpClient,
+                            this.getConcurrencyLimiter());
+            }
+        }
+        return this.sharedBulkhead;
+    }
+
+    /**
+     * Returns the bulkheads of the BulkheadPolicy groups, by group name, for
+     * monitoring
+     *
+     * @return Map<String, Bulkhead>
+     */
+    public Map<String, Bulkhead> getBulkheads() {
+        return Collections.unmodifiableMap(this.bulkheads);
+    }
+
+    /**
+     * Gets the circuit breaker of a route, creating it on first use
+     *
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return CircuitBreaker
+     */
+    public CircuitBreaker getCircuitBreaker(String route) {
+        CircuitBreaker breaker = this.circuitBreakers.get(route);
+        if (breaker == null)
+            breaker = this.circuitBreakers.computeIfAbsent(route,
+                    name -> new CircuitBreaker(name, this.settings.getCircuitBreakerPolicy()));
+        return breaker;
+    }
+
+    /**
+     * Returns the circuit breakers created so far, by route, for monitoring
+     *
+     * @return Map<String, CircuitBreaker>
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(this.circuitBreakers);
+    }
+
+    /**
+     * Gets the rate limiter of the requests of a credential to a route,
+     * creating it on first use. Routes share the limiter of their credential
+     * unless the RateLimitPolicy gives them their own.
+     *
+     * @param credentialPublicKey
+     *            may be null
+     * @param route
+     *            name of the route, e.g. the endpoint class name
+     * @return RateLimiter
+     */
+    public RateLimiter getRateLimiter(String credentialPublicKey, String route) {
+        RateLimitPolicy policy = this.settings.getRateLimitPolicy();
+        String bucket = policy.bucketName(credentialPublicKey, route);
+        RateLimiter limiter = this.rateLimiters.get(bucket);
+        if (limiter == null)
+            limiter = this.rateLimiters.computeIfAbsent(bucket,
+                    name -> new RateLimiter(name, policy.rateOf(credentialPublicKey, route), policy));
+        return limiter;
+    }
+
+    /**
+     * Returns the rate limiters created so far, by bucket name, for
+     * monitoring
+     *
+     * @return Map<String, RateLimiter>
+     */
+    public Map<String, RateLimiter> getRateLimiters() {
+        return Collections.unmodifiableMap(this.rateLimiters);
+    }
+
+    /**
+     * Creates daemon threads so a forgotten factory does not keep the JVM
+     * alive
+     *
+     * @param prefix
+     *            thread name prefix
+     * @return ThreadFactory
+     */
+    private static ThreadFactory createThreadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Releases the pooled connections, the idle connection evictor and the
+     * request threads
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.tokenCache != null)
+            this.tokenCache.close();
+        for (ExecutorService executor : this.asyncExecutors.values())
+            executor.shutdown();
+        if (this.pageExecutor != null)
+            this.pageExecutor.shutdown();
+        if (this.hedgeExecutor != null)
+            this.hedgeExecutor.shutdown();
+        if (this.coalesceExecutor != null)
+            this.coalesceExecutor.shutdown();
+        if (this.deadlineScheduler != null)
+            this.deadlineScheduler.shutdown();
+        for (CloseableHttpAsyncClient client : this.asyncHttpClients.values())
+            client.close();
+        for (Bulkhead bulkhead : this.bulkheads.values())
+            bulkhead.getHttpClient().close();
+        this.httpClient.close();
+    }
+}
@@ -1,9 +1,5 @@
 package com.veridu.idos.utils;
 
-import io.jsonwebtoken.JwtBuilder;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-
 public class IdOSUtils {
 
     /**
@@ -18,12 +14,25 @@ public class IdOSUtils {
      * @return the generated companyToken
      */
     public static String generateToken(String issuerPrivateKey, String issuerPublicKey, String subjectPublicKey) {
-        byte[] apiKeySecretBytes = issuerPrivateKey.getBytes();
-        JwtBuilder jwt = Jwts.builder().setIssuer(issuerPublicKey);
-        if (!subjectPublicKey.isEmpty())
-            jwt.setSubject(subjectPublicKey);
-        String token = jwt.signWith(SignatureAlgorithm.HS256, apiKeySecretBytes).compact();
-        return token;
+        return JwtSigner.forKeys(issuerPrivateKey, issuerPublicKey).sign(subjectPublicKey);
+    }
+
+    /**
+     * Generates a token that expires at the given time
+     * 
+     * @param issuerPrivateKey
+     *            The issuer credential private key
+     * @param issuerPublicKey
+     *            The issuer credential public key
+     * @param subjectPublicKey
+     *            The subject credential public key
+     * @param expiresAtMillis
+     *            The expiration time in epoch milliseconds
+     * @return the generated token
+     */
+    public static String generateToken(String issuerPrivateKey, String issuerPublicKey, String subjectPublicKey,
+            long expiresAtMillis) {
+        return JwtSigner.forKeys(issuerPrivateKey, issuerPublicKey).sign(subjectPublicKey, expiresAtMillis);
     }
 
     /**
@@ -0,0 +1,281 @@
+package com.veridu.idos.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HS256 JWT signer for one issuer key pair. The header segment, the issuer
+ * claim and the HMAC key are computed once; Mac instances are pooled per
+ * signer and tokens are encoded into per-thread buffers, so signing allocates
+ * little more than the resulting String. Produces the same tokens as the jjwt
+ * builder.
+ */
+public final class JwtSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Base64URL encoding of {"alg":"HS256"}
+     */
+    private static final byte[] HEADER = "eyJhbGciOiJIUzI1NiJ9.".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Short JSON escapes for \b \t \n \f \r, indexed by character
+     */
+    private static final byte[] SHORT_ESCAPES = new byte[0x20];
+
+    static {
+        SHORT_ESCAPES['\b'] = 'b';
+        SHORT_ESCAPES['\t'] = 't';
+        SHORT_ESCAPES['\n'] = 'n';
+        SHORT_ESCAPES['\f'] = 'f';
+        SHORT_ESCAPES['\r'] = 'r';
+    }
+
+    /**
+     * Signers are reused across calls with the same keys. The map is cleared
+     * when it grows past this size so rotating tenants cannot exhaust memory.
+     */
+    private static final int MAX_SIGNERS = 1024;
+
+    private static final ConcurrentHashMap<String, JwtSigner> signers = new ConcurrentHashMap<>();
+
+    /**
+     * Per-thread scratch space for the payload and the token
+     */
+    private static final ThreadLocal<Buffers> buffers = new ThreadLocal<Buffers>() {
+        @Override
+        protected Buffers initialValue() {
+            return new Buffers();
+        }
+    };
+
+    private static final class Buffers {
+        private byte[] payload = new byte[256];
+        private byte[] token = new byte[512];
+        private final byte[] signature = new byte[32];
+    }
+
+    private final SecretKeySpec key;
+
+    /**
+     * {"iss":"<issuerPublicKey>" as UTF-8
+     */
+    private final byte[] issuerClaim;
+
+    private final ConcurrentLinkedQueue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Class constructor
+     *
+     * @param issuerPrivateKey
+     *            The issuer credential private key, used as the HMAC secret
+     * @param issuerPublicKey
+     *            The issuer credential public key
+     */
+    public JwtSigner(String issuerPrivateKey, String issuerPublicKey) {
+        this.key = new SecretKeySpec(issuerPrivateKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.issuerClaim = new Writer(new byte[issuerPublicKey.length() * 6 + 16]).raw("{\"iss\":")
+                .string(issuerPublicKey).toByteArray();
+    }
+
+    /**
+     * Returns the signer for the given keys, reusing a previous one when
+     * possible
+     *
+     * @param issuerPrivateKey
+     * @param issuerPublicKey
+     * @return JwtSigner
+     */
+    public static JwtSigner forKeys(String issuerPrivateKey, String issuerPublicKey) {
+        String id = issuerPublicKey + '\n' + issuerPrivateKey;
+        JwtSigner signer = signers.get(id);
+        if (signer == null) {
+            if (signers.size() >= MAX_SIGNERS)
+                signers.clear();
+            signer = new JwtSigner(issuerPrivateKey, issuerPublicKey);
+            JwtSigner existing = signers.putIfAbsent(id, signer);
+            if (existing != null)
+                signer = existing;
+        }
+        return signer;
+    }
+
+    /**
+     * Signs a token without expiration
+     *
+     * @param subjectPublicKey
+     *            The subject credential public key, empty for no subject
+     * @return String token
+     */
+    public String sign(String subjectPublicKey) {
+        return this.sign(subjectPublicKey, 0);
+    }
+
+    /**
+     * Signs a token
+     *
+     * @param subjectPublicKey
+     *            The subject credential public key, empty for no subject
+     * @param expiresAtMillis
+     *            The expiration time in epoch milliseconds, 0 for no
+     *            expiration
+     * @return String token
+     */
+    public String sign(String subjectPublicKey, long expiresAtMillis) {
+        Buffers buffers = JwtSigner.buffers.get();
+
+        Writer payload = new Writer(
+                ensure(buffers.payload, this.issuerClaim.length + subjectPublicKey.length() * 6 + 48));
+        payload.raw(this.issuerClaim);
+        if (expiresAtMillis != 0)
+            payload.raw(",\"exp\":").number(expiresAtMillis / 1000);
+        if (!subjectPublicKey.isEmpty())
+            payload.raw(",\"sub\":").string(subjectPublicKey);
+        payload.raw("}");
+        buffers.payload = payload.bytes;
+
+        byte[] token = ensure(buffers.token, HEADER.length + (payload.length + 2) / 3 * 4 + 45);
+        buffers.token = token;
+        System.arraycopy(HEADER, 0, token, 0, HEADER.length);
+        int length = encode(payload.bytes, payload.length, token, HEADER.length);
+
+        Mac mac = this.acquireMac();
+        try {
+            mac.update(token, 0, length);
+            mac.doFinal(buffers.signature, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            this.macs.offer(mac);
+        }
+
+        token[length++] = '.';
+        length = encode(buffers.signature, buffers.signature.length, token, length);
+
+        return new String(token, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private Mac acquireMac() {
+        Mac mac = this.macs.poll();
+        if (mac != null)
+            return mac;
+        try {
+            mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] ensure(byte[] buffer, int capacity) {
+        return (buffer.length >= capacity) ? buffer : new byte[Math.max(capacity, buffer.length * 2)];
+    }
+
+    /**
+     * Base64URL encodes src[0, length) without padding into dst at offset
+     *
+     * @return int offset after the last written byte
+     */
+    private static int encode(byte[] src, int length, byte[] dst, int offset) {
+        int i = 0;
+        for (int end = length - length % 3; i < end; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[offset++] = BASE64URL[bits >>> 18];
+            dst[offset++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[offset++] = BASE64URL[(bits >>> 6) & 0x3f];
+            dst[offset++] = BASE64URL[bits & 0x3f];
+        }
+        if (length - i == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            dst[offset++] = BASE64URL[bits >>> 18];
+            dst[offset++] = BASE64URL[(bits >>> 12) & 0x3f];
+        } else if (length - i == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[offset++] = BASE64URL[bits >>> 18];
+            dst[offset++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[offset++] = BASE64URL[(bits >>> 6) & 0x3f];
+        }
+        return offset;
+    }
+
+    /**
+     * Minimal JSON writer into a byte array sized by the caller
+     */
+    private static final class Writer {
+        private byte[] bytes;
+        private int length;
+
+        private Writer(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private Writer raw(String ascii) {
+            for (int i = 0; i < ascii.length(); i++)
+                this.bytes[this.length++] = (byte) ascii.charAt(i);
+            return this;
+        }
+
+        private Writer raw(byte[] value) {
+            System.arraycopy(value, 0, this.bytes, this.length, value.length);
+            this.length += value.length;
+            return this;
+        }
+
+        private Writer number(long value) {
+            return this.raw(Long.toString(value));
+        }
+
+        private Writer string(String value) {
+            this.bytes[this.length++] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if ((c == '"') || (c == '\\')) {
+                    this.bytes[this.length++] = '\\';
+                    this.bytes[this.length++] = (byte) c;
+                } else if ((c < 0x20) && (SHORT_ESCAPES[c] != 0)) {
+                    this.bytes[this.length++] = '\\';
+                    this.bytes[this.length++] = SHORT_ESCAPES[c];
+                } else if (c < 0x20) {
+                    this.raw("\\u00");
+                    this.bytes[this.length++] = HEX[c >> 4];
+                    this.bytes[this.length++] = HEX[c & 0xf];
+                } else if (c < 0x80) {
+                    this.bytes[this.length++] = (byte) c;
+                } else if (c < 0x800) {
+                    this.bytes[this.length++] = (byte) (0xc0 | (c >> 6));
+                    this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && (i + 1 < value.length())
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int code = Character.toCodePoint(c, value.charAt(++i));
+                    this.bytes[this.length++] = (byte) (0xf0 | (code >> 18));
+                    this.bytes[this.length++] = (byte) (0x80 | ((code >> 12) & 0x3f));
+                    this.bytes[this.length++] = (byte) (0x80 | ((code >> 6) & 0x3f));
+                    this.bytes[this.length++] = (byte) (0x80 | (code & 0x3f));
+                } else {
+                    this.bytes[this.length++] = (byte) (0xe0 | (c >> 12));
+                    this.bytes[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            this.bytes[this.length++] = '"';
+            return this;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(this.bytes, this.length);
+        }
+    }
+}
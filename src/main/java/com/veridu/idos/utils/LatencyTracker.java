@@ -0,0 +1,76 @@
+package com.veridu.idos.utils;
+
+import java.util.Arrays;
+
+/**
+ * Recent latencies of a route, in a ring of fixed size. Percentiles are
+ * computed from a sorted copy of the ring, refreshed every tenth of the ring
+ * of new samples rather than on every read.
+ */
+public final class LatencyTracker {
+
+    private final long[] latencies;
+
+    private final int minSamples;
+
+    private final int refreshEvery;
+
+    private int next;
+
+    private int samples;
+
+    private int sinceSort;
+
+    private long[] sorted;
+
+    /**
+     * Class constructor
+     *
+     * @param window
+     *            number of recent latencies kept
+     * @param minSamples
+     *            latencies needed before percentiles are given
+     */
+    public LatencyTracker(int window, int minSamples) {
+        this.latencies = new long[window];
+        this.minSamples = minSamples;
+        this.refreshEvery = Math.max(1, window / 10);
+    }
+
+    /**
+     * Records a latency
+     *
+     * @param latencyNanos
+     */
+    public synchronized void record(long latencyNanos) {
+        this.latencies[this.next] = latencyNanos;
+        this.next = (this.next + 1) % this.latencies.length;
+        if (this.samples < this.latencies.length)
+            this.samples++;
+        this.sinceSort++;
+    }
+
+    /**
+     * Returns a percentile of the recent latencies
+     *
+     * @param percentile
+     *            between 0 and 1
+     * @return long nanoseconds, -1 if fewer than minSamples were recorded
+     */
+    public synchronized long percentile(double percentile) {
+        if (this.samples < this.minSamples)
+            return -1;
+
+        if ((this.sorted == null) || (this.sinceSort >= this.refreshEvery)) {
+            this.sorted = Arrays.copyOf(this.latencies, this.samples);
+            Arrays.sort(this.sorted);
+            this.sinceSort = 0;
+        }
+        int index = (int) Math.ceil(percentile * this.sorted.length) - 1;
+        return this.sorted[Math.max(0, Math.min(this.sorted.length - 1, index))];
+    }
+
+    public synchronized int getSamples() {
+        return this.samples;
+    }
+}
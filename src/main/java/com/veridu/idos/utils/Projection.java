@@ -0,0 +1,144 @@
+package com.veridu.idos.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Fields of the response items a caller wants. Items of the response data
+ * keep only the projected fields; everything else is skipped while parsing,
+ * without being allocated. Nested fields are selected with dotted paths, e.g.
+ * "data.email" on raw data. Fields of the response envelope (status,
+ * pagination, ...) are always kept. Requests never modify the projection, so
+ * it can be built once and shared.
+ */
+public class Projection {
+
+    /**
+     * Projected fields, mapped to the projection of their value or to null
+     * when the whole value is wanted
+     */
+    private final Map<String, Projection> fields = new HashMap<>();
+
+    /**
+     * Constructor Class
+     */
+    private Projection() {
+    }
+
+    /**
+     * Factory to create a new, empty Projection object
+     *
+     * @return
+     */
+    public static Projection createProjection() {
+        return new Projection();
+    }
+
+    /**
+     * Factory to create a Projection of the given fields
+     *
+     * @param paths
+     *            field names or dotted paths
+     * @return
+     */
+    public static Projection of(String... paths) {
+        Projection projection = new Projection();
+        for (String path : paths)
+            projection.addField(path);
+
+        return projection;
+    }
+
+    /**
+     * Adds a field, or a nested field with a dotted path. Adding a field
+     * keeps its whole value, even when nested fields of it were added.
+     *
+     * @param path
+     *            field name or dotted path
+     * @return self
+     */
+    public Projection addField(String path) {
+        int dot = path.indexOf('.');
+        if (dot == -1) {
+            this.fields.put(path, null);
+            return this;
+        }
+
+        String name = path.substring(0, dot);
+        if (this.fields.containsKey(name) && (this.fields.get(name) == null))
+            return this;
+
+        Projection nested = this.fields.get(name);
+        if (nested == null) {
+            nested = new Projection();
+            this.fields.put(name, nested);
+        }
+        nested.addField(path.substring(dot + 1));
+
+        return this;
+    }
+
+    /**
+     * Checks if a field is projected
+     *
+     * @param name
+     * @return boolean
+     */
+    public boolean includes(String name) {
+        return this.fields.containsKey(name);
+    }
+
+    /**
+     * Returns the projection of a field value
+     *
+     * @param name
+     * @return Projection projection of the value, null when the whole value
+     *         is wanted or the field is not projected
+     */
+    public Projection nested(String name) {
+        return this.fields.get(name);
+    }
+
+    /**
+     * Projects an already parsed value: objects keep the projected fields,
+     * arrays are projected item by item and other values are returned as is
+     *
+     * @param value
+     * @return JsonElement projected value
+     */
+    public JsonElement apply(JsonElement value) {
+        if (value.isJsonArray()) {
+            JsonArray array = new JsonArray();
+            for (JsonElement item : value.getAsJsonArray())
+                array.add(this.apply(item));
+            return array;
+        }
+        if (!value.isJsonObject())
+            return value;
+
+        JsonObject object = value.getAsJsonObject();
+        JsonObject projected = new JsonObject();
+        for (Map.Entry<String, JsonElement> field : object.entrySet()) {
+            if (!this.fields.containsKey(field.getKey()))
+                continue;
+            Projection nested = this.fields.get(field.getKey());
+            projected.add(field.getKey(), (nested == null) ? field.getValue() : nested.apply(field.getValue()));
+        }
+
+        return projected;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof Projection) && this.fields.equals(((Projection) obj).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.fields.hashCode();
+    }
+}
@@ -0,0 +1,261 @@
+package com.veridu.idos.utils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.utils.DateUtils;
+
+import com.veridu.idos.exceptions.RateLimitedException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.settings.RateLimitPolicy;
+
+/**
+ * Token bucket of one credential or route, adapting its rate to the API
+ * signals as described by RateLimitPolicy. Permits are reserved under the
+ * lock and waited for outside of it, so waiting requests are served in order.
+ */
+public final class RateLimiter {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Epoch seconds from which X-RateLimit-Reset is a time rather than a
+     * delay
+     */
+    private static final long EPOCH_RESET_THRESHOLD = 1000000000L;
+
+    private final String name;
+
+    private final RateLimitPolicy policy;
+
+    /**
+     * Configured permits per nanosecond, 0 for no client side limit
+     */
+    private final double configuredRate;
+
+    private final double burst;
+
+    /**
+     * Current permits per nanosecond
+     */
+    private double rate;
+
+    /**
+     * Available permits, negative when permits are reserved ahead
+     */
+    private double permits;
+
+    private long refilledAt;
+
+    /**
+     * No permit is given before this time (System.nanoTime)
+     */
+    private long pausedUntil;
+
+    /**
+     * Class constructor
+     *
+     * @param name
+     *            name of the bucket, for monitoring
+     * @param requestsPerSecond
+     *            0 for no client side limit
+     * @param policy
+     *            RateLimitPolicy
+     */
+    public RateLimiter(String name, double requestsPerSecond, RateLimitPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        this.configuredRate = requestsPerSecond / 1e9;
+        this.rate = this.configuredRate;
+        this.burst = policy.burstOf(requestsPerSecond);
+        this.permits = this.burst;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = this.refilledAt;
+    }
+
+    /**
+     * Takes a permit, waiting for it up to the policy maximum wait, or up to
+     * the running Deadline if sooner
+     *
+     * @throws SDKException
+     *             RateLimitedException if the permit is further away than
+     *             the maximum wait
+     */
+    public void acquire() throws SDKException {
+        long wait = this.reserve(TimeUnit.MILLISECONDS.toNanos(Deadline.capMillis(this.policy.getMaxWaitMillis())));
+        if (wait <= 0)
+            return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SDKException("Interrupted while waiting for the rate limit of " + this.name);
+        }
+    }
+
+    /**
+     * Takes a permit without waiting for it, for callers that wait without
+     * blocking a thread, e.g. asynchronous requests
+     *
+     * @return long nanoseconds to wait before using the permit
+     * @throws RateLimitedException
+     *             if the permit is further away than the policy maximum
+     *             wait, or than the running Deadline if sooner
+     */
+    public long reserve() throws RateLimitedException {
+        return this.reserve(TimeUnit.MILLISECONDS.toNanos(Deadline.capMillis(this.policy.getMaxWaitMillis())));
+    }
+
+    /**
+     * Takes a permit if one is available right away
+     *
+     * @return boolean
+     */
+    public boolean tryAcquire() {
+        try {
+            return this.reserve(0) <= 0;
+        } catch (RateLimitedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reserves a permit
+     *
+     * @param maxWaitNanos
+     * @return long nanoseconds to wait before using the permit
+     * @throws RateLimitedException
+     *             if the wait would exceed maxWaitNanos; nothing is reserved
+     */
+    private synchronized long reserve(long maxWaitNanos) throws RateLimitedException {
+        if (!this.policy.isEnabled())
+            return 0;
+
+        long now = System.nanoTime();
+        this.refill(now);
+        long wait = Math.max(0, this.pausedUntil - now);
+        if ((this.rate > 0) && (this.permits < 1))
+            wait = Math.max(wait, (long) ((1 - this.permits) / this.rate));
+        if (wait > maxWaitNanos)
+            throw new RateLimitedException(this.name, TimeUnit.NANOSECONDS.toMillis(wait));
+
+        if (this.rate > 0)
+            this.permits -= 1;
+        return wait;
+    }
+
+    private void refill(long now) {
+        if (this.rate > 0)
+            this.permits = Math.min(this.burst, this.permits + (now - this.refilledAt) * this.rate);
+        this.refilledAt = now;
+    }
+
+    /**
+     * Adapts the limiter to the rate limit signals of a response: 429 status,
+     * Retry-After, X-RateLimit-Remaining and X-RateLimit-Reset
+     *
+     * @param response
+     *            HttpResponse
+     */
+    public void observe(HttpResponse response) {
+        if (!this.policy.isEnabled())
+            return;
+
+        StatusLine status = response.getStatusLine();
+        if ((status != null) && (status.getStatusCode() == TOO_MANY_REQUESTS)) {
+            long retryAfter = parseRetryAfter(response.getFirstHeader("Retry-After"));
+            this.onThrottled((retryAfter < 0) ? this.policy.getDefaultRetryAfterMillis() : retryAfter);
+            return;
+        }
+
+        Header remaining = response.getFirstHeader("X-RateLimit-Remaining");
+        if ((remaining != null) && "0".equals(remaining.getValue().trim())) {
+            long reset = parseReset(response.getFirstHeader("X-RateLimit-Reset"));
+            if (reset > 0)
+                this.pause(reset);
+        }
+        if ((status != null) && (status.getStatusCode() < 400))
+            this.onSuccess();
+    }
+
+    /**
+     * Halves the rate and holds requests back after a 429 response
+     *
+     * @param retryAfterMillis
+     */
+    public synchronized void onThrottled(long retryAfterMillis) {
+        this.rate = Math.max(this.configuredRate * this.policy.getMinRateFactor(), this.rate / 2);
+        this.permits = Math.min(this.permits, 0);
+        this.pause(retryAfterMillis);
+    }
+
+    /**
+     * Grows the rate back towards the configured one, by a twentieth of it
+     */
+    public synchronized void onSuccess() {
+        if (this.rate < this.configuredRate)
+            this.rate = Math.min(this.configuredRate, this.rate + this.configuredRate / 20);
+    }
+
+    private synchronized void pause(long millis) {
+        this.pausedUntil = Math.max(this.pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Parses Retry-After, in seconds or as an HTTP date
+     *
+     * @return long milliseconds, -1 if absent or invalid
+     */
+    private static long parseRetryAfter(Header header) {
+        if (header == null)
+            return -1;
+        String value = header.getValue().trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return (date == null) ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Parses X-RateLimit-Reset, as seconds until the reset or as epoch
+     * seconds
+     *
+     * @return long milliseconds, -1 if absent or invalid
+     */
+    private static long parseReset(Header header) {
+        if (header == null)
+            return -1;
+        try {
+            long seconds = Long.parseLong(header.getValue().trim());
+            if (seconds >= EPOCH_RESET_THRESHOLD)
+                return Math.max(0, TimeUnit.SECONDS.toMillis(seconds) - System.currentTimeMillis());
+            return TimeUnit.SECONDS.toMillis(seconds);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the current rate, lower than the configured one after 429
+     * responses
+     *
+     * @return double permits per second, 0 for no client side limit
+     */
+    public synchronized double getRate() {
+        return this.rate * 1e9;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.name + " " + this.getRate() + "/s";
+    }
+}
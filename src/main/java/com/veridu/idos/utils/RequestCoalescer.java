@@ -0,0 +1,134 @@
+package com.veridu.idos.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.veridu.idos.exceptions.DeadlineExceededException;
+import com.veridu.idos.exceptions.SDKException;
+
+/**
+ * Single-flight execution of identical requests: while a request is in
+ * flight, callers of the same key wait for it and receive its result, or its
+ * exception, instead of sending their own. The key leaves the in-flight table
+ * before the result is handed out, so later callers send a fresh request.
+ * The shared request runs on the executor, outside the Deadline of any
+ * caller, so it must bound itself; every caller, the one that started it
+ * included, waits for it only until its own Deadline.
+ */
+public final class RequestCoalescer {
+
+    /**
+     * Sends a request
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws SDKException;
+    }
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the shared requests
+     */
+    private final Executor executor;
+
+    /**
+     * Class constructor
+     *
+     * @param executor
+     *            runs the shared requests
+     */
+    public RequestCoalescer(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sends the request, or waits for the identical one in flight
+     *
+     * @param key
+     *            identifies identical requests, with equals and hashCode
+     * @param call
+     *            sends the request
+     * @return T result, shared by every caller of the key
+     * @throws SDKException
+     *             the exception of the shared request, or
+     *             DeadlineExceededException if the Deadline of this caller
+     *             passes first
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Call<T> call) throws SDKException {
+        CompletableFuture<Object> future = this.inFlight.get(key);
+        if (future == null) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            future = this.inFlight.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                this.send(key, created, call);
+            }
+        }
+
+        return (T) await(future);
+    }
+
+    /**
+     * Runs the shared request on the executor and hands out its outcome
+     *
+     * @param key
+     * @param future
+     * @param call
+     */
+    private void send(Object key, CompletableFuture<Object> future, Call<?> call) {
+        try {
+            this.executor.execute(() -> {
+                try {
+                    Object result = call.call();
+                    this.inFlight.remove(key, future);
+                    future.complete(result);
+                } catch (Throwable e) {
+                    this.inFlight.remove(key, future);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> leader) throws SDKException {
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null)
+                return leader.get();
+            return leader.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Deadline exceeded while waiting for an identical request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SDKException("Interrupted while waiting for an identical request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SDKException)
+                throw (SDKException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new SDKException(String.valueOf(cause));
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight
+     *
+     * @return int
+     */
+    public int getInFlight() {
+        return this.inFlight.size();
+    }
+}
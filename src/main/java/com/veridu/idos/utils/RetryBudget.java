@@ -0,0 +1,61 @@
+package com.veridu.idos.utils;
+
+/**
+ * Bounds the retries of a client to a share of the requests it sends. Every
+ * request deposits ratio tokens, a retry withdraws one, and minRetriesPerSecond
+ * tokens are added every second. The balance is capped at ten seconds of the
+ * minimum rate (at least 10 tokens), so a long healthy period cannot save up
+ * for a retry storm.
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+
+    private final double refillPerNano;
+
+    private final double capacity;
+
+    private double balance;
+
+    private long refilledAt;
+
+    /**
+     * Class constructor
+     *
+     * @param ratio
+     *            tokens deposited per request
+     * @param minRetriesPerSecond
+     *            tokens added every second
+     */
+    public RetryBudget(double ratio, int minRetriesPerSecond) {
+        this.ratio = ratio;
+        this.refillPerNano = minRetriesPerSecond / 1e9;
+        this.capacity = Math.max(10.0 * minRetriesPerSecond, 10);
+        this.balance = minRetriesPerSecond;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Records a request
+     */
+    public synchronized void deposit() {
+        this.balance = Math.min(this.capacity, this.balance + this.ratio);
+    }
+
+    /**
+     * Takes the token of a retry
+     *
+     * @return boolean false if the budget is exhausted and the request must
+     *         not be retried
+     */
+    public synchronized boolean tryWithdraw() {
+        long now = System.nanoTime();
+        this.balance = Math.min(this.capacity, this.balance + (now - this.refilledAt) * this.refillPerNano);
+        this.refilledAt = now;
+        if (this.balance < 1)
+            return false;
+
+        this.balance -= 1;
+        return true;
+    }
+}
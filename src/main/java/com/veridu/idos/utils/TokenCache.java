@@ -0,0 +1,292 @@
+package com.veridu.idos.utils;
+
+import com.veridu.idos.exceptions.InvalidToken;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches authorization tokens per credential set and IdOSAuthType so that
+ * every endpoint sharing the cache signs each token once. Tokens with an
+ * expiration are re-signed in the background before they expire, so request
+ * threads only sign when a token is first needed.
+ */
+public class TokenCache implements Closeable {
+
+    /**
+     * Identifies a token: the auth type and the keys used to sign it
+     */
+    private static final class Key {
+        private final IdOSAuthType authType;
+        private final String privateKey;
+        private final String publicKey;
+        private final String subject;
+
+        private Key(IdOSAuthType authType, String privateKey, String publicKey, String subject) {
+            this.authType = authType;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.subject = subject;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return (this.authType == other.authType) && this.privateKey.equals(other.privateKey)
+                    && this.publicKey.equals(other.publicKey) && this.subject.equals(other.subject);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = this.authType.hashCode();
+            hash = 31 * hash + this.privateKey.hashCode();
+            hash = 31 * hash + this.publicKey.hashCode();
+            return 31 * hash + this.subject.hashCode();
+        }
+    }
+
+    /**
+     * A signed token and its expiration (0 when it never expires)
+     */
+    private static final class Entry {
+        private final String token;
+        private final long expiresAt;
+        private volatile boolean used = true;
+
+        private Entry(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return (this.expiresAt != 0) && (now >= this.expiresAt);
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Entry> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Token lifetime in milliseconds, 0 for tokens without expiration
+     */
+    private final long lifetimeMillis;
+
+    /**
+     * How long before expiration a token is re-signed
+     */
+    private final long refreshMarginMillis;
+
+    /**
+     * Re-signs expiring tokens, created when the first expiring token is
+     * signed
+     */
+    private volatile ScheduledExecutorService refresher;
+
+    /**
+     * Class constructor
+     *
+     * @param lifetimeMillis
+     *            token lifetime in milliseconds, 0 for tokens without
+     *            expiration
+     * @param refreshMarginMillis
+     *            how long before expiration a token is re-signed
+     */
+    public TokenCache(long lifetimeMillis, long refreshMarginMillis) {
+        this.lifetimeMillis = lifetimeMillis;
+        this.refreshMarginMillis = Math.min(refreshMarginMillis, lifetimeMillis / 2);
+    }
+
+    /**
+     * Gets the token for the given auth type and credentials, signing it only
+     * if it is not cached yet or has expired
+     *
+     * @param authType
+     *            IdOSAuthType
+     * @param credentials
+     *            credential keys
+     * @return String token
+     * @throws InvalidToken
+     *             when the credentials needed by the auth type are missing
+     */
+    public String getToken(IdOSAuthType authType, Map<String, String> credentials) throws InvalidToken {
+        if (authType == IdOSAuthType.NONE)
+            return "none";
+
+        Key key = createKey(authType, credentials);
+        Entry entry = this.tokens.get(key);
+        if ((entry == null) || entry.isExpired(System.currentTimeMillis()))
+            entry = this.tokens.compute(key, (k, current) -> ((current == null)
+                    || current.isExpired(System.currentTimeMillis())) ? this.sign(k) : current);
+        entry.used = true;
+
+        return entry.token;
+    }
+
+    /**
+     * Signs a new token for the given auth type and credentials, replacing the
+     * cached one
+     *
+     * @param authType
+     *            IdOSAuthType
+     * @param credentials
+     *            credential keys
+     * @return String token
+     * @throws InvalidToken
+     *             when the credentials needed by the auth type are missing
+     */
+    public String refresh(IdOSAuthType authType, Map<String, String> credentials) throws InvalidToken {
+        if (authType == IdOSAuthType.NONE)
+            return "none";
+
+        Key key = createKey(authType, credentials);
+        Entry entry = this.sign(key);
+        this.tokens.put(key, entry);
+
+        return entry.token;
+    }
+
+    /**
+     * Replaces a token the API rejected. Concurrent callers holding the same
+     * stale token are serialized on its key, so only the first one signs and
+     * the others receive the token it signed.
+     *
+     * @param authType
+     *            IdOSAuthType
+     * @param credentials
+     *            credential keys
+     * @param staleToken
+     *            the rejected token
+     * @return String token
+     * @throws InvalidToken
+     *             when the credentials needed by the auth type are missing
+     */
+    public String refreshStale(IdOSAuthType authType, Map<String, String> credentials, String staleToken)
+            throws InvalidToken {
+        if (authType == IdOSAuthType.NONE)
+            return "none";
+
+        Entry entry = this.tokens.compute(createKey(authType, credentials),
+                (key, current) -> ((current == null) || Objects.equals(current.token, staleToken)) ? this.sign(key)
+                        : current);
+        entry.used = true;
+
+        return entry.token;
+    }
+
+    /**
+     * Stops the background refresh
+     */
+    @Override
+    public void close() {
+        if (this.refresher != null)
+            this.refresher.shutdownNow();
+        this.tokens.clear();
+    }
+
+    /**
+     * Picks the keys used to sign a token of the given auth type
+     *
+     * @param authType
+     * @param credentials
+     * @return Key
+     * @throws InvalidToken
+     */
+    private static Key createKey(IdOSAuthType authType, Map<String, String> credentials) throws InvalidToken {
+        if ((authType == null) || (credentials == null))
+            throw new InvalidToken();
+
+        String privateKey;
+        String publicKey;
+        String subject;
+        switch (authType) {
+        case USER:
+            privateKey = credentials.get("credentialPrivateKey");
+            publicKey = credentials.get("credentialPublicKey");
+            subject = credentials.get("username");
+            break;
+        case IDENTITY:
+            privateKey = credentials.get("companyPrivateKey");
+            publicKey = credentials.get("companyPublicKey");
+            subject = "";
+            break;
+        case HANDLER:
+            privateKey = credentials.get("servicePrivateKey");
+            publicKey = credentials.get("servicePublicKey");
+            subject = credentials.get("credentialPublicKey");
+            break;
+        default:
+            throw new InvalidToken();
+        }
+
+        if ((privateKey == null) || (publicKey == null))
+            throw new InvalidToken();
+
+        return new Key(authType, privateKey, publicKey, (subject == null) ? "" : subject);
+    }
+
+    /**
+     * Signs a token for the given key and schedules its refresh
+     *
+     * @param key
+     * @return Entry
+     */
+    private Entry sign(Key key) {
+        if (this.lifetimeMillis <= 0)
+            return new Entry(IdOSUtils.generateToken(key.privateKey, key.publicKey, key.subject), 0);
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + this.lifetimeMillis;
+        Entry entry = new Entry(IdOSUtils.generateToken(key.privateKey, key.publicKey, key.subject, expiresAt),
+                expiresAt);
+        this.getRefresher().schedule(() -> this.refreshInBackground(key, entry),
+                this.lifetimeMillis - this.refreshMarginMillis, TimeUnit.MILLISECONDS);
+
+        return entry;
+    }
+
+    /**
+     * Re-signs a token about to expire. Tokens nobody used since they were
+     * signed are dropped instead and signed again on demand, and so are tokens
+     * that fail to re-sign, so the next getToken signs on the caller's thread
+     * and the failure reaches the caller.
+     *
+     * @param key
+     * @param expiring
+     */
+    private void refreshInBackground(Key key, Entry expiring) {
+        if (this.tokens.get(key) != expiring)
+            return;
+        if (!expiring.used) {
+            this.tokens.remove(key, expiring);
+            return;
+        }
+
+        try {
+            Entry entry = this.sign(key);
+            entry.used = false;
+            this.tokens.replace(key, expiring, entry);
+        } catch (RuntimeException e) {
+            this.tokens.remove(key, expiring);
+        }
+    }
+
+    private ScheduledExecutorService getRefresher() {
+        if (this.refresher == null) {
+            synchronized (this) {
+                if (this.refresher == null)
+                    this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "idos-token-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            }
+        }
+        return this.refresher;
+    }
+}
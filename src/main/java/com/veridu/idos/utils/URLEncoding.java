@@ -0,0 +1,119 @@
+package com.veridu.idos.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Percent-encoding (RFC 3986) of URL components. Strings that need no
+ * escaping are returned as they are, without allocating.
+ */
+public final class URLEncoding {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * ASCII characters allowed unescaped in a query key or value: unreserved
+     * characters plus the sub-delimiters that do not separate parameters
+     */
+    private static final boolean[] QUERY_SAFE = new boolean[128];
+
+    /**
+     * ASCII characters allowed unescaped in a path segment: unreserved
+     * characters, sub-delimiters, ':' and '@'
+     */
+    private static final boolean[] PATH_SEGMENT_SAFE = new boolean[128];
+
+    static {
+        for (char c : "-._~!$'()*,;:@/?".toCharArray())
+            QUERY_SAFE[c] = true;
+        for (char c : "-._~!$&'()*+,;=:@".toCharArray())
+            PATH_SEGMENT_SAFE[c] = true;
+        for (boolean[] safe : new boolean[][] { QUERY_SAFE, PATH_SEGMENT_SAFE }) {
+            for (char c = 'a'; c <= 'z'; c++)
+                safe[c] = true;
+            for (char c = 'A'; c <= 'Z'; c++)
+                safe[c] = true;
+            for (char c = '0'; c <= '9'; c++)
+                safe[c] = true;
+        }
+    }
+
+    private URLEncoding() {
+    }
+
+    /**
+     * Encodes a query string key or value
+     *
+     * @param value
+     * @return String encoded value
+     */
+    public static String encodeQueryComponent(String value) {
+        return encode(value, QUERY_SAFE);
+    }
+
+    /**
+     * Appends an encoded path segment, escaping '/' so the value stays one
+     * segment
+     *
+     * @param builder
+     * @param value
+     * @return StringBuilder builder
+     */
+    public static StringBuilder appendPathSegment(StringBuilder builder, String value) {
+        return append(builder, value, 0, PATH_SEGMENT_SAFE);
+    }
+
+    /**
+     * Percent-encodes the UTF-8 bytes of every character not marked safe
+     *
+     * @param value
+     * @param safe
+     *            ASCII characters left unescaped
+     * @return String encoded value
+     */
+    private static String encode(String value, boolean[] safe) {
+        int length = value.length();
+        int i = 0;
+        while ((i < length) && isSafe(value.charAt(i), safe))
+            i++;
+        if (i == length)
+            return value;
+
+        StringBuilder builder = new StringBuilder(length + 16);
+        return append(builder.append(value, 0, i), value, i, safe).toString();
+    }
+
+    /**
+     * Appends value from index start, percent-encoding the UTF-8 bytes of
+     * every character not marked safe
+     *
+     * @param builder
+     * @param value
+     * @param start
+     * @param safe
+     *            ASCII characters left unescaped
+     * @return StringBuilder builder
+     */
+    private static StringBuilder append(StringBuilder builder, String value, int start, boolean[] safe) {
+        int length = value.length();
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (isSafe(c, safe)) {
+                builder.append(c);
+                continue;
+            }
+
+            int end = i + 1;
+            if (Character.isHighSurrogate(c) && (end < length) && Character.isLowSurrogate(value.charAt(end)))
+                end++;
+            for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8))
+                builder.append('%').append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+            i = end - 1;
+        }
+
+        return builder;
+    }
+
+    private static boolean isSafe(char c, boolean[] safe) {
+        return (c < 128) && safe[c];
+    }
+}
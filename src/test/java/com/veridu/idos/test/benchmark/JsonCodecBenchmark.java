@@ -0,0 +1,185 @@
+package com.veridu.idos.test.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.veridu.idos.codec.GsonCodec;
+import com.veridu.idos.codec.JacksonCodec;
+import com.veridu.idos.codec.JsonCodec;
+import com.veridu.idos.utils.Projection;
+
+/**
+ * Compares the JSON codecs on idOS shaped payloads: a page of features, a
+ * page of raw source data with nested documents, and a raw data upsert
+ * request body, parsing whole responses and projections of them. Run with:
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * "-Dexec.args=-cp %classpath com.veridu.idos.test.benchmark.JsonCodecBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    @Param({ "gson", "jackson" })
+    private String codecName;
+
+    private JsonCodec codec;
+
+    private byte[] features;
+
+    private byte[] raw;
+
+    private JsonObject upsert;
+
+    private final Projection featureProjection = Projection.of("name", "value");
+
+    private final Projection rawProjection = Projection.of("collection", "data.email");
+
+    /**
+     * Discards the serialized bytes
+     */
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int length) {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        this.codec = this.codecName.equals("jackson") ? JacksonCodec.INSTANCE : GsonCodec.INSTANCE;
+
+        JsonArray data = new JsonArray();
+        for (int i = 0; i < 100; i++) {
+            JsonObject feature = new JsonObject();
+            feature.addProperty("id", 1000 + i);
+            feature.addProperty("source_id", 17);
+            feature.addProperty("name", "feature-name-" + i);
+            JsonObject creator = new JsonObject();
+            creator.addProperty("name", "idOS Scraper");
+            feature.add("creator", creator);
+            feature.addProperty("type", (i % 2 == 0) ? "string" : "double");
+            if (i % 2 == 0)
+                feature.addProperty("value", "Sérgio Ferreira da Conceição " + i);
+            else
+                feature.addProperty("value", i * 0.731);
+            feature.addProperty("created_at", 1474632000 + i);
+            feature.addProperty("updated_at", 1474635600 + i);
+            data.add(feature);
+        }
+        this.features = envelope(data).toString().getBytes(StandardCharsets.UTF_8);
+
+        JsonArray rawData = new JsonArray();
+        for (int i = 0; i < 20; i++)
+            rawData.add(this.rawItem(i));
+        this.raw = envelope(rawData).toString().getBytes(StandardCharsets.UTF_8);
+
+        this.upsert = new JsonObject();
+        this.upsert.addProperty("source_id", 17);
+        this.upsert.addProperty("collection", "profile");
+        this.upsert.add("data", this.rawItem(0).get("data"));
+    }
+
+    private JsonObject rawItem(int index) {
+        JsonObject document = new JsonObject();
+        document.addProperty("id", "10154211592136584" + index);
+        document.addProperty("first_name", "João");
+        document.addProperty("last_name", "Conceição");
+        document.addProperty("email", "joao" + index + "@example.com");
+        document.addProperty("verified", true);
+        JsonArray posts = new JsonArray();
+        for (int i = 0; i < 10; i++) {
+            JsonObject post = new JsonObject();
+            post.addProperty("id", "post-" + i);
+            post.addProperty("message", "Olá! This is a fairly typical status update with some text \"quoted\".");
+            post.addProperty("likes", i * 13);
+            post.addProperty("created_time", "2016-09-23T12:00:0" + i + "+0000");
+            posts.add(post);
+        }
+        document.add("posts", posts);
+
+        JsonObject item = new JsonObject();
+        item.addProperty("source_id", 17);
+        item.addProperty("collection", "profile");
+        item.add("data", document);
+        item.addProperty("created_at", 1474632000 + index);
+        item.addProperty("updated_at", 1474635600 + index);
+        return item;
+    }
+
+    private static JsonObject envelope(JsonArray data) {
+        JsonObject pagination = new JsonObject();
+        pagination.addProperty("current_page", 1);
+        pagination.addProperty("total", 1);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("status", true);
+        response.add("data", data);
+        response.add("pagination", pagination);
+        return response;
+    }
+
+    @Benchmark
+    public JsonObject parseFeatures() throws IOException {
+        return this.codec.read(new ByteArrayInputStream(this.features), StandardCharsets.UTF_8, null);
+    }
+
+    @Benchmark
+    public JsonObject parseRaw() throws IOException {
+        return this.codec.read(new ByteArrayInputStream(this.raw), StandardCharsets.UTF_8, null);
+    }
+
+    @Benchmark
+    public JsonObject parseFeaturesProjected() throws IOException {
+        return this.codec.read(new ByteArrayInputStream(this.features), StandardCharsets.UTF_8,
+                this.featureProjection, null);
+    }
+
+    @Benchmark
+    public JsonObject parseRawProjected() throws IOException {
+        return this.codec.read(new ByteArrayInputStream(this.raw), StandardCharsets.UTF_8, this.rawProjection, null);
+    }
+
+    @Benchmark
+    public JsonObject streamRaw(Blackhole blackhole) throws IOException {
+        return this.codec.read(new ByteArrayInputStream(this.raw), StandardCharsets.UTF_8, blackhole::consume);
+    }
+
+    @Benchmark
+    public void writeUpsert() throws IOException {
+        this.codec.write(this.upsert, this.sink);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCodecBenchmark.class.getSimpleName())
+                .addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.veridu.idos.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.veridu.idos.utils.IdOSUtils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Compares token signing through IdOSUtils against the jjwt builder it
+ * replaced. Run with:
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * "-Dexec.args=-cp %classpath com.veridu.idos.test.benchmark.JwtSignerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtSignerBenchmark {
+
+    private final String privateKey = "4c9184f37cff01bcdc32dc486ec36961";
+    private final String publicKey = "2c17c6393771ee3048ae34d6b380c5ec";
+    private final String subject = "ef970ffad1f1253a2182a88667233991";
+
+    @Benchmark
+    public String jjwt() {
+        return Jwts.builder().setIssuer(this.publicKey).setSubject(this.subject)
+                .signWith(SignatureAlgorithm.HS256, this.privateKey.getBytes()).compact();
+    }
+
+    @Benchmark
+    public String signer() {
+        return IdOSUtils.generateToken(this.privateKey, this.publicKey, this.subject);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtSignerBenchmark.class.getSimpleName())
+                .addProfiler("gc").build()).run();
+    }
+}
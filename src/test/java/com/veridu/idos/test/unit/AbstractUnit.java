@@ -1,9 +1,46 @@
 package com.veridu.idos.test.unit;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.client.fluent.Request;
+import org.apache.http.client.fluent.Response;
+import org.apache.http.impl.client.HttpClients;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.mockito.stubbing.OngoingStubbing;
+import org.powermock.api.mockito.PowerMockito;
+
+import com.veridu.idos.endpoints.AbstractEndpoint;
+import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSUtils;
+
 public abstract class AbstractUnit {
 
+    /**
+     * Mocks of the fluent HTTP layer set up by mockHttp()
+     */
+    public static class HttpFixture {
+        public final Request request = Mockito.mock(Request.class);
+        public final Response response = Mockito.mock(Response.class);
+        public final HttpResponse httpResponse = Mockito.mock(HttpResponse.class);
+        public final StatusLine statusLine = Mockito.mock(StatusLine.class);
+        public final HttpEntity entity = Mockito.mock(HttpEntity.class);
+        public final Executor executor = Mockito.mock(Executor.class);
+    }
+
     public HashMap<String, String> getCredentials() {
         HashMap<String, String> credentials = new HashMap<>();
         credentials.put("credentialPrivateKey", "credentialPrivateKey");
@@ -14,4 +51,78 @@ public abstract class AbstractUnit {
 
         return credentials;
     }
+
+    /**
+     * Answers a fluent Response.handleResponse() call by running the given
+     * handler against httpResponse
+     */
+    public Answer<Object> handledBy(final HttpResponse httpResponse) {
+        return invocation -> ((ResponseHandler<?>) invocation.getArguments()[0]).handleResponse(httpResponse);
+    }
+
+    /**
+     * Answers HttpEntity.getContent() with a fresh stream over body on every
+     * call
+     */
+    public Answer<InputStream> content(final String body) {
+        return invocation -> new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stubs the fluent HTTP layer: requests of every method are executed by
+     * the fixture executor and answered with a 200 response carrying the
+     * given bodies, one per request, the last one repeating. Tokens are
+     * signed as "token". The calling test class must prepare Request,
+     * Response, Executor, HttpClients and IdOSUtils.
+     *
+     * @param bodies
+     *            response bodies, in order
+     * @return HttpFixture
+     */
+    public HttpFixture mockHttp(String... bodies) throws Exception {
+        PowerMockito.mockStatic(IdOSUtils.class);
+        PowerMockito.mockStatic(HttpClients.class);
+        PowerMockito.mockStatic(Request.class);
+        PowerMockito.mockStatic(Response.class);
+        PowerMockito.mockStatic(Executor.class);
+
+        HttpFixture http = new HttpFixture();
+        when(Request.Get(anyString())).thenReturn(http.request);
+        when(Request.Post(anyString())).thenReturn(http.request);
+        when(Request.Put(anyString())).thenReturn(http.request);
+        when(Request.Patch(anyString())).thenReturn(http.request);
+        when(Request.Delete(anyString())).thenReturn(http.request);
+        when(Executor.newInstance(any())).thenReturn(http.executor);
+        doReturn(http.response).when(http.executor).execute(any());
+        when(http.request.setHeader(anyString(), anyString())).thenReturn(http.request);
+        when(http.response.handleResponse(any())).then(this.handledBy(http.httpResponse));
+
+        when(http.statusLine.getStatusCode()).thenReturn(200);
+        when(http.httpResponse.getStatusLine()).thenReturn(http.statusLine);
+        when(http.httpResponse.getEntity()).thenReturn(http.entity);
+        OngoingStubbing<InputStream> content = when(http.entity.getContent());
+        for (String body : bodies)
+            content = content.then(this.content(body));
+        when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn("token");
+        return http;
+    }
+
+    /**
+     * Mocks an endpoint running its real methods, authorized as HANDLER
+     * against https://idos.api.com. Constructors do not run, so the endpoint
+     * uses the default IdOSHttpClient unless one is injected.
+     *
+     * @param endpoint
+     *            endpoint class
+     * @return T endpoint
+     */
+    @SuppressWarnings("deprecation")
+    public <T extends AbstractEndpoint> T mockEndpoint(Class<T> endpoint) throws Exception {
+        T endpointMock = Mockito.mock(endpoint, Mockito.CALLS_REAL_METHODS);
+        endpointMock.setCredentials(this.getCredentials());
+        endpointMock.setAuthType(IdOSAuthType.HANDLER);
+        endpointMock.setBaseURL("https://idos.api.com");
+        return endpointMock;
+    }
 }
@@ -1,9 +1,19 @@
 package com.veridu.idos.test.unit;
 
 import static org.hamcrest.CoreMatchers.isA;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
+import java.io.IOException;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +32,10 @@ import com.veridu.idos.endpoints.ProfileSources;
 import com.veridu.idos.endpoints.ProfileTasks;
 import com.veridu.idos.endpoints.Profiles;
 import com.veridu.idos.endpoints.SSO;
+import com.veridu.idos.exceptions.InvalidToken;
+import com.veridu.idos.settings.ClientSettings;
+import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.TokenCache;
 
 public class IdOSAPIFactoryTest extends AbstractUnit {
 
@@ -62,4 +76,66 @@ public class IdOSAPIFactoryTest extends AbstractUnit {
         assertThat(this.factory.getTask(), isA(ProfileTasks.class));
         assertThat(this.factory.getSSO(), isA(SSO.class));
     }
+
+    @Test
+    public void testEndpointsShareHttpClient() {
+        assertSame(this.factory.getHttpClient(), this.factory.getFeature().getHttpClient());
+        assertSame(this.factory.getHttpClient(), this.factory.getRaw().getHttpClient());
+        assertSame(this.factory.getHttpClient(), this.factory.getSSO().getHttpClient());
+    }
+
+    @Test
+    public void testCloseReleasesHttpClient() throws IOException {
+        ProfileFeatures feature = this.factory.getFeature();
+        this.factory.close();
+        assertNotSame(feature, this.factory.getFeature());
+        assertSame(this.factory.getHttpClient(), this.factory.getFeature().getHttpClient());
+        this.factory.close();
+    }
+
+    @Test
+    public void testEndpointsShareTokens() throws InvalidToken, IOException {
+        IdOSAPIFactory factory = new IdOSAPIFactory(this.credentials, "https://api.idos.io/1.0/", false,
+                ClientSettings.createDefault().setTokenLifetimeMillis(60000));
+        TokenCache cache = factory.getHttpClient().getTokenCache();
+        assertSame(cache, factory.getRaw().getHttpClient().getTokenCache());
+
+        String token = cache.getToken(IdOSAuthType.HANDLER, this.credentials);
+        assertNotNull(token);
+        assertSame(token, cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+        String refreshed = cache.refresh(IdOSAuthType.HANDLER, this.credentials);
+        assertSame(refreshed, factory.getRaw().getHttpClient().getTokenCache().getToken(IdOSAuthType.HANDLER,
+                this.credentials));
+        factory.close();
+    }
+
+    @Test(expected = InvalidToken.class)
+    public void testTokenCacheRejectsMissingKeys() throws InvalidToken {
+        this.factory.getHttpClient().getTokenCache().getToken(IdOSAuthType.IDENTITY, this.credentials);
+    }
+
+    @Test
+    public void testConcurrentFirstAccessCreatesOneEndpoint() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ProfileFeatures>> features = new ArrayList<>();
+            for (int i = 0; i < 64; i++)
+                features.add(executor.submit(() -> this.factory.getFeature()));
+            for (Future<ProfileFeatures> feature : features)
+                assertSame(this.factory.getFeature(), feature.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWarmUpCreatesEndpointsAndTokens() throws InvalidToken {
+        assertSame(this.factory, this.factory.warmUp());
+        ProfileFeatures feature = this.factory.getFeature();
+        this.factory.warmUp();
+        assertSame(feature, this.factory.getFeature());
+        TokenCache cache = this.factory.getHttpClient().getTokenCache();
+        assertSame(cache.getToken(IdOSAuthType.HANDLER, this.credentials),
+                cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+    }
 }
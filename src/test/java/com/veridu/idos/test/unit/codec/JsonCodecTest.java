@@ -0,0 +1,126 @@
+package com.veridu.idos.test.unit.codec;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.veridu.idos.codec.GsonCodec;
+import com.veridu.idos.codec.JacksonCodec;
+import com.veridu.idos.codec.JsonCodec;
+import com.veridu.idos.utils.Projection;
+
+public class JsonCodecTest {
+
+    private static final String RESPONSE = "{\"status\":true,\"data\":[{\"id\":1,\"name\":\"first\\u0000name\","
+            + "\"value\":\"v\\u00e4l\\\"ue \\uD83D\\uDE00\",\"source_id\":null},{\"id\":2,\"value\":12345678901234567890,"
+            + "\"score\":0.25,\"tags\":{\"a\":[true,false,null,-1e3]}}],\"pagination\":{\"current_page\":1,\"total\":1}}";
+
+    private final List<JsonCodec> codecs = Arrays.asList(GsonCodec.INSTANCE, JacksonCodec.INSTANCE);
+
+    @Test
+    public void testCodecsParseTheSameTree() throws IOException {
+        JsonObject expected = new JsonParser().parse(RESPONSE).getAsJsonObject();
+        for (JsonCodec codec : this.codecs) {
+            assertEquals(expected, codec.parse(RESPONSE));
+            assertEquals(expected, codec.read(this.stream(RESPONSE), StandardCharsets.UTF_8, null));
+        }
+    }
+
+    @Test
+    public void testCodecsHandItemsToConsumer() throws IOException {
+        JsonObject expected = new JsonParser().parse(RESPONSE).getAsJsonObject();
+        for (JsonCodec codec : this.codecs) {
+            List<JsonObject> items = new ArrayList<>();
+            JsonObject json = codec.read(this.stream(RESPONSE), StandardCharsets.UTF_8, items::add);
+            assertEquals(2, items.size());
+            assertEquals(expected.get("data").getAsJsonArray().get(1), items.get(1));
+            assertEquals(expected.get("pagination"), json.get("pagination"));
+            assertEquals(false, json.has("data"));
+        }
+    }
+
+    @Test
+    public void testCodecsWriteParsableUtf8() throws IOException {
+        JsonObject expected = new JsonParser().parse(RESPONSE).getAsJsonObject();
+        for (JsonCodec codec : this.codecs) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.write(expected, out);
+            assertEquals(expected, new JsonParser().parse(new String(out.toByteArray(), StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void testGsonCodecWritesLikeToString() throws IOException {
+        JsonObject expected = new JsonParser().parse(RESPONSE).getAsJsonObject();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GsonCodec.INSTANCE.write(expected, out);
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCodecsDecodeDeclaredCharset() throws IOException {
+        for (JsonCodec codec : this.codecs) {
+            JsonObject json = codec.read(new ByteArrayInputStream("{\"name\":\"café\"}".getBytes(
+                    StandardCharsets.ISO_8859_1)), StandardCharsets.ISO_8859_1, null);
+            assertEquals("café", json.get("name").getAsString());
+        }
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testJacksonCodecRaisesJsonSyntaxException() throws IOException {
+        JacksonCodec.INSTANCE.read(this.stream("{\"status\":"), StandardCharsets.UTF_8, null);
+    }
+
+    private ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCodecsSkipFieldsOutsideProjection() throws IOException {
+        Projection projection = Projection.of("id", "tags.a");
+        JsonObject expected = new JsonParser().parse("{\"status\":true,\"data\":[{\"id\":1},{\"id\":2,"
+                + "\"tags\":{\"a\":[true,false,null,-1e3]}}],\"pagination\":{\"current_page\":1,\"total\":1}}")
+                .getAsJsonObject();
+        JsonCodec parseThenProject = new JsonCodec() {
+            @Override
+            public JsonObject read(InputStream in, Charset charset, Consumer<JsonObject> itemConsumer)
+                    throws IOException {
+                return GsonCodec.INSTANCE.read(in, charset, itemConsumer);
+            }
+
+            @Override
+            public JsonObject parse(String json) {
+                return GsonCodec.INSTANCE.parse(json);
+            }
+
+            @Override
+            public void write(JsonElement value, OutputStream out) throws IOException {
+                GsonCodec.INSTANCE.write(value, out);
+            }
+        };
+        for (JsonCodec codec : Arrays.asList(GsonCodec.INSTANCE, JacksonCodec.INSTANCE, parseThenProject)) {
+            assertEquals(expected, codec.read(this.stream(RESPONSE), StandardCharsets.UTF_8, projection, null));
+
+            List<JsonObject> items = new ArrayList<>();
+            codec.read(this.stream(RESPONSE), StandardCharsets.UTF_8, projection, items::add);
+            assertEquals(expected.get("data").getAsJsonArray().get(0), items.get(0));
+            assertEquals(expected.get("data").getAsJsonArray().get(1), items.get(1));
+        }
+    }
+}
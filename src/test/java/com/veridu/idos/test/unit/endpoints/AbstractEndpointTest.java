@@ -1,18 +1,33 @@
 package com.veridu.idos.test.unit.endpoints;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.veridu.idos.IdOSAPIFactory;
 import com.veridu.idos.endpoints.AbstractEndpoint;
 import com.veridu.idos.endpoints.ProfileCandidates;
 import com.veridu.idos.endpoints.ProfileTasks;
+import com.veridu.idos.endpoints.RawResponse;
+import com.veridu.idos.exceptions.CircuitOpenException;
+import com.veridu.idos.exceptions.DeadlineExceededException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.TransportException;
+import com.veridu.idos.settings.CircuitBreakerPolicy;
+import com.veridu.idos.settings.ClientSettings;
+import com.veridu.idos.settings.ConcurrencyLimitPolicy;
 import com.veridu.idos.settings.Config;
+import com.veridu.idos.settings.HedgePolicy;
+import com.veridu.idos.settings.RetryPolicy;
 import com.veridu.idos.test.unit.AbstractUnit;
+import com.veridu.idos.utils.CircuitBreaker;
 import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.Deadline;
+import com.veridu.idos.utils.IdOSHttpClient;
 import com.veridu.idos.utils.IdOSUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.fluent.Content;
 import org.apache.http.client.fluent.Executor;
@@ -23,23 +38,42 @@ import org.apache.http.util.EntityUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 import org.powermock.reflect.internal.WhiteboxImpl;
 
+import java.io.ByteArrayOutputStream;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.net.ssl.*" })
 @PrepareForTest({ AbstractEndpoint.class, Request.class, Response.class, IdOSUtils.class,
         HttpClients.class, Executor.class, EntityUtils.class, HttpClient.class, HttpResponse.class, HttpEntity.class})
 public class AbstractEndpointTest extends AbstractUnit {
@@ -60,6 +94,16 @@ public class AbstractEndpointTest extends AbstractUnit {
         assertSame("HANDLER", tasks.getAuthType().toString());
     }
 
+    @Test
+    public void testWithAuthTypeReturnsView() {
+        ProfileTasks tasks = new ProfileTasks(credentials, Config.BASE_URL, false);
+        ProfileTasks userTasks = tasks.withAuthType(IdOSAuthType.USER);
+        assertSame(IdOSAuthType.HANDLER, tasks.getAuthType());
+        assertSame(IdOSAuthType.USER, userTasks.getAuthType());
+        assertSame(tasks.getHttpClient(), userTasks.getHttpClient());
+        assertSame(tasks, tasks.withAuthType(IdOSAuthType.HANDLER));
+    }
+
     /**
      * Tests the fetch() method with the data parameter empty
      *
@@ -104,8 +148,7 @@ public class AbstractEndpointTest extends AbstractUnit {
      */
     @Test
     public void testFetchWithFilter() throws Exception {
-        Filter filter = Filter.createFilter();
-        filter.addFilterByKeyName("filter", "filter");
+        Filter filter = Filter.createFilter().addFilterByKeyName("filter", "filter");
         AbstractEndpoint abstractMock = Mockito.mock(AbstractEndpoint.class, CALLS_REAL_METHODS);
         abstractMock.setBaseURL("https://idos.io.com");
         JsonObject json = new JsonObject();
@@ -152,8 +195,7 @@ public class AbstractEndpointTest extends AbstractUnit {
         ProfileCandidates attribute = idOSAPIFactory.getCandidate();
         JsonObject data = new JsonObject();
         data.addProperty("response", "response");
-        Filter filter = Filter.createFilter();
-        filter.addFilterByKeyName("filter", "filter");
+        Filter filter = Filter.createFilter().addFilterByKeyName("filter", "filter");
         Object[] params = { "POST", "profiles/attributes", filter };
         assertEquals(Config.BASE_URL + "/profiles/attributes?filter=filter",
                 Whitebox.invokeMethod(attribute, "transformURL", params));
@@ -191,12 +233,11 @@ public class AbstractEndpointTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json,
@@ -228,12 +269,11 @@ public class AbstractEndpointTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         JsonObject data = new JsonObject();
@@ -242,6 +282,28 @@ public class AbstractEndpointTest extends AbstractUnit {
                 WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "POST", "https://idos.api.io/1.0", data));
     }
 
+    @Test
+    public void testSendRequestPostBodyIsUtf8Json() throws Exception {
+        HttpFixture http = this.mockHttp("{\"status\":true}");
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        JsonObject json = new JsonObject();
+        json.addProperty("status", true);
+        JsonObject data = new JsonObject();
+        data.addProperty("key", "välue <€> \uD83D\uDE00");
+        data.add("empty", JsonNull.INSTANCE);
+        data.addProperty("number", 1.5);
+        assertEquals(json,
+                WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "POST", "https://idos.api.io/1.0", data));
+
+        ArgumentCaptor<HttpEntity> body = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(http.request).body(body.capture());
+        assertEquals("application/json; charset=UTF-8", body.getValue().getContentType().getValue());
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        body.getValue().writeTo(written);
+        assertEquals(data.toString(), new String(written.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(written.size(), body.getValue().getContentLength());
+    }
+
     @Test
     public void testSendRequestPutMethod() throws Exception {
         AbstractEndpoint endpointMock = Mockito.mock(AbstractEndpoint.class, Mockito.CALLS_REAL_METHODS);
@@ -267,12 +329,11 @@ public class AbstractEndpointTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         JsonObject data = new JsonObject();
@@ -306,12 +367,11 @@ public class AbstractEndpointTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
 
@@ -345,12 +405,11 @@ public class AbstractEndpointTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         JsonObject data = new JsonObject();
@@ -365,8 +424,7 @@ public class AbstractEndpointTest extends AbstractUnit {
         endpointMock.setCredentials(this.credentials);
         PowerMockito.mockStatic(IdOSUtils.class);
         endpointMock.setAuthType(IdOSAuthType.HANDLER);
-        Filter filter = Filter.createFilter();
-        filter.addFilterByKeyName("key", "value");
+        Filter filter = Filter.createFilter().addFilterByKeyName("key", "value");
         JsonObject json = new JsonObject();
         JsonArray array = new JsonArray();
         JsonObject pagination = new JsonObject();
@@ -388,4 +446,288 @@ public class AbstractEndpointTest extends AbstractUnit {
                 .thenReturn(json2);
         endpointMock.request("GET", "https://idos.api.io/1.0", null, filter);
     }
+
+    @Test
+    public void testSendRequestReplaysAfterAuthFailure() throws Exception {
+        HttpFixture http = this.mockHttp(
+                "{\"status\":false,\"error\":{\"code\":401,\"type\":\"AppException\","
+                        + "\"link\":\"https://docs.idos.io/\",\"message\":\"Invalid Token.\"}}",
+                "{\"status\":true}");
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        JsonObject json = new JsonObject();
+        json.addProperty("status", true);
+        assertEquals(json,
+                WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "GET", "https://idos.api.io/1.0", null));
+        verify(http.executor, times(2)).execute(any());
+    }
+
+    @Test
+    public void testConcurrentAuthFailuresReSignOnce() throws Exception {
+        final int callers = 8;
+        HttpFixture http = this.mockHttp("{\"status\":true}");
+        when(IdOSUtils.generateToken(anyString(), anyString(), anyString())).thenReturn("stale", "fresh");
+        Map<Request, String> tokens = new ConcurrentHashMap<>();
+        when(Request.Get(anyString())).then(invocation -> {
+            Request request = Mockito.mock(Request.class);
+            when(request.setHeader(anyString(), anyString())).then(header -> {
+                tokens.put(request, (String) header.getArguments()[1]);
+                return request;
+            });
+            return request;
+        });
+        Response rejected = this.mockResponse("{\"status\":false,\"error\":{\"code\":401,\"type\":"
+                + "\"AppException\",\"link\":\"https://docs.idos.io/\",\"message\":\"Invalid Token.\"}}");
+        Response accepted = this.mockResponse("{\"status\":true}");
+        // every caller is rejected before any of them replays
+        CountDownLatch rejections = new CountDownLatch(callers);
+        List<String> replays = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            String token = tokens.get(invocation.getArguments()[0]);
+            if (token.endsWith("stale")) {
+                rejections.countDown();
+                rejections.await(5, TimeUnit.SECONDS);
+                return rejected;
+            }
+            replays.add(token);
+            return accepted;
+        }).when(http.executor).execute(any());
+
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault(), false);
+        Whitebox.setInternalState(endpointMock, "httpClient", client);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Future<JsonObject>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            String url = "https://idos.api.io/1.0/gates?page=" + i;
+            results.add(pool.submit(() -> endpointMock.request("GET", url, null, null)));
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("status", true);
+        for (Future<JsonObject> result : results)
+            assertEquals(json, result.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        client.close();
+
+        PowerMockito.verifyStatic(times(2));
+        IdOSUtils.generateToken(anyString(), anyString(), anyString());
+        assertEquals(callers, replays.size());
+        for (String token : replays)
+            assertTrue(token.endsWith("fresh"));
+    }
+
+    /**
+     * Mocks a 200 response carrying the given body
+     */
+    private Response mockResponse(String body) throws Exception {
+        Response response = Mockito.mock(Response.class);
+        HttpResponse httpResponse = Mockito.mock(HttpResponse.class);
+        HttpEntity entity = Mockito.mock(HttpEntity.class);
+        StatusLine statusLine = Mockito.mock(StatusLine.class);
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(httpResponse.getEntity()).thenReturn(entity);
+        when(entity.getContent()).then(this.content(body));
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
+        return response;
+    }
+
+    @Test
+    public void testSendRequestRetriesIdempotentTransportFailure() throws Exception {
+        Executor executor = this.mockFlakyExecutor();
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        JsonObject json = new JsonObject();
+        json.addProperty("status", true);
+        assertEquals(json,
+                WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "GET", "https://idos.api.io/1.0", null));
+        verify(executor, times(2)).execute(any());
+    }
+
+    @Test
+    public void testSendRequestDoesNotRetryPost() throws Exception {
+        Executor executor = this.mockFlakyExecutor();
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        try {
+            WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "POST", "https://idos.api.io/1.0",
+                    new JsonObject());
+            fail("Expected a TransportException");
+        } catch (TransportException e) {
+            assertTrue(e.getCause() instanceof SocketException);
+        }
+        verify(executor, times(1)).execute(any());
+    }
+
+    @Test
+    public void testExpiredDeadlineSendsNothing() throws Exception {
+        Executor executor = this.mockFlakyExecutor();
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        try {
+            Deadline.after(0).call(() -> endpointMock.request("GET", "https://idos.api.io/1.0", null, null));
+            fail("Expected a DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            verify(executor, never()).execute(any());
+        }
+    }
+
+    @Test
+    public void testOpenCircuitFailsFast() throws Exception {
+        Executor executor = this.mockFlakyExecutor();
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        Whitebox.setInternalState(endpointMock, "httpClient", new IdOSHttpClient(ClientSettings.createDefault()
+                .setRetryPolicy(RetryPolicy.disabled())
+                .setCircuitBreakerPolicy(CircuitBreakerPolicy.createDefault().setWindow(1, 1)), false));
+        try {
+            WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "GET", "https://idos.api.io/1.0", null);
+            fail("Expected a TransportException");
+        } catch (TransportException e) {
+            // trips the breaker
+        }
+        try {
+            WhiteboxImpl.invokeMethod(endpointMock, "sendRequest", "GET", "https://idos.api.io/1.0", null);
+            fail("Expected a CircuitOpenException");
+        } catch (CircuitOpenException e) {
+            assertEquals(endpointMock.getRoute(), e.getRoute());
+        }
+        assertEquals(CircuitBreaker.State.OPEN,
+                endpointMock.getHttpClient().getCircuitBreakers().get(endpointMock.getRoute()).getState());
+        verify(executor, times(1)).execute(any());
+    }
+
+    @Test
+    public void testOpenCircuitFailsBeforeWaitingForConcurrency() throws Exception {
+        this.mockFlakyExecutor();
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setRetryPolicy(RetryPolicy.disabled())
+                .setCircuitBreakerPolicy(CircuitBreakerPolicy.createDefault().setWindow(1, 1))
+                .setConcurrencyLimitPolicy(ConcurrencyLimitPolicy.createDefault().setLimits(1, 1, 1)
+                        .setMaxWaitMillis(5000)), false);
+        Whitebox.setInternalState(endpointMock, "httpClient", client);
+        try {
+            endpointMock.request("GET", "https://idos.api.io/1.0", null, null);
+            fail("Expected a TransportException");
+        } catch (TransportException e) {
+            // trips the breaker
+        }
+
+        client.getBulkhead(endpointMock.getRoute()).getConcurrencyLimiter().acquire();
+        long start = System.nanoTime();
+        try {
+            endpointMock.request("GET", "https://idos.api.io/1.0", null, null);
+            fail("Expected a CircuitOpenException");
+        } catch (CircuitOpenException e) {
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        }
+        client.close();
+    }
+
+    @Test
+    public void testErrorsOutsideTheSdkAreNotRecorded() throws Exception {
+        HttpFixture http = this.mockHttp("{\"status\":true}");
+        doThrow(new IllegalStateException("bug")).when(http.executor).execute(any());
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setRetryPolicy(RetryPolicy.disabled())
+                .setCircuitBreakerPolicy(CircuitBreakerPolicy.createDefault().setWindow(1, 1)), false);
+        Whitebox.setInternalState(endpointMock, "httpClient", client);
+        try {
+            endpointMock.request("GET", "https://idos.api.io/1.0", null, null);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("bug", e.getMessage());
+        }
+        CircuitBreaker breaker = client.getCircuitBreakers().get(endpointMock.getRoute());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getBufferedCalls());
+        client.close();
+    }
+
+    @Test
+    public void testClientErrorsDoNotLowerTheLatencyBaseline() throws Exception {
+        HttpFixture http = this.mockHttp("{\"status\":true}");
+        Response notFound = this.mockResponse("{\"status\":false,\"error\":{\"code\":404,\"type\":"
+                + "\"NOT_FOUND\",\"link\":\"link\",\"message\":\"Not Found\"}}");
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.getAndIncrement() == 1)
+                return notFound;
+            Thread.sleep(20);
+            return http.response;
+        }).when(http.executor).execute(any());
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setConcurrencyLimitPolicy(ConcurrencyLimitPolicy.createDefault().setLimits(8, 1, 8)
+                        .setLatencyTolerance(3, 500)), false);
+        Whitebox.setInternalState(endpointMock, "httpClient", client);
+
+        endpointMock.request("GET", "https://idos.api.io/1.0", null, null);
+        try {
+            endpointMock.request("GET", "https://idos.api.io/1.0", null, null);
+            fail("Expected an SDKException");
+        } catch (SDKException e) {
+            assertEquals(404, e.getCode());
+        }
+        for (int i = 0; i < 20; i++)
+            endpointMock.request("GET", "https://idos.api.io/1.0", null, null);
+        assertEquals(8, client.getBulkhead(endpointMock.getRoute()).getConcurrencyLimiter().getLimit());
+        client.close();
+    }
+
+    @Test
+    public void testSlowGetIsHedged() throws Exception {
+        HttpFixture http = this.mockHttp("{\"status\":true}");
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0)
+                Thread.sleep(1000);
+            return http.response;
+        }).when(http.executor).execute(any());
+
+        AbstractEndpoint endpointMock = this.mockEndpoint(AbstractEndpoint.class);
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setHedgePolicy(HedgePolicy.createDefault().setMaxExtraLoad(1)), false);
+        for (int i = 0; i < 20; i++)
+            client.getLatencyTracker(endpointMock.getRoute()).record(TimeUnit.MILLISECONDS.toNanos(10));
+        Whitebox.setInternalState(endpointMock, "httpClient", client);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("status", true);
+        long start = System.nanoTime();
+        assertEquals(json, endpointMock.request("GET", "https://idos.api.io/1.0", null, null));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+        verify(http.executor, times(2)).execute(any());
+        verify(http.request, atLeastOnce()).abort();
+        client.close();
+    }
+
+    /**
+     * Mocks an executor whose first request fails with a connection reset
+     */
+    private Executor mockFlakyExecutor() throws Exception {
+        HttpFixture http = this.mockHttp("{\"status\":true}");
+        doThrow(new SocketException("Connection reset")).doReturn(http.response).when(http.executor).execute(any());
+        return http.executor;
+    }
+
+    @Test
+    public void testRequestRawReturnsUnparsedBody() throws Exception {
+        AbstractEndpoint endpointMock = this.rawEndpoint(200, "{\"status\":true,\"data\":[1,2]}");
+        RawResponse response = endpointMock.requestRaw("POST", "/profiles", null,
+                "{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(200, response.getStatusCode());
+        assertEquals("{\"status\":true,\"data\":[1,2]}", response.getBodyAsString());
+        assertEquals(response.getBodyLength(), response.getBody().remaining());
+    }
+
+    @Test(expected = SDKException.class)
+    public void testRequestRawRaisesErrorStatus() throws Exception {
+        AbstractEndpoint endpointMock = this.rawEndpoint(404,
+                "{\"status\":false,\"error\":{\"code\":404,\"type\":\"NOT_FOUND\",\"link\":\"\",\"message\":\"x\"}}");
+        endpointMock.requestRaw("GET", "/profiles", null, null);
+    }
+
+    private AbstractEndpoint rawEndpoint(int statusCode, String body) throws Exception {
+        HttpFixture http = this.mockHttp(body);
+        when(http.statusLine.getStatusCode()).thenReturn(statusCode);
+        return this.mockEndpoint(AbstractEndpoint.class);
+    }
 }
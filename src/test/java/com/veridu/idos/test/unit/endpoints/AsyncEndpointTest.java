@@ -0,0 +1,300 @@
+package com.veridu.idos.test.unit.endpoints;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.veridu.idos.endpoints.ProfileGates;
+import com.veridu.idos.endpoints.ProfileRaw;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.settings.BulkheadPolicy;
+import com.veridu.idos.settings.ClientSettings;
+import com.veridu.idos.settings.RateLimitPolicy;
+import com.veridu.idos.settings.RetryPolicy;
+import com.veridu.idos.utils.Filter;
+import com.veridu.idos.utils.IdOSHttpClient;
+
+/**
+ * Sends asynchronous requests to a local HTTP server, through the real
+ * non-blocking client
+ */
+public class AsyncEndpointTest {
+
+    private final HashMap<String, String> credentials = new HashMap<>();
+
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+
+    private IdOSHttpClient client;
+
+    public AsyncEndpointTest() {
+        this.credentials.put("credentialPublicKey", "credentialPublicKey");
+        this.credentials.put("servicePrivateKey", "servicePrivateKey");
+        this.credentials.put("servicePublicKey", "servicePublicKey");
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 200);
+        this.server.setExecutor(this.serverThreads);
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.client != null)
+            this.client.close();
+        this.server.stop(0);
+        this.serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void testRequestsInFlightDoNotHoldThreads() throws Exception {
+        int requests = 100;
+        CountDownLatch arrived = new CountDownLatch(requests);
+        this.serve(exchange -> {
+            arrived.countDown();
+            try {
+                // answers only once every request is in flight
+                arrived.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "{\"status\":true}";
+        });
+        // the non-blocking client gets half of the pool
+        ProfileGates gates = this.createEndpoint(ClientSettings.createDefault()
+                .setMaxTotalConnections(2 * requests).setMaxConnectionsPerRoute(2 * requests).setAsyncPoolSize(2));
+
+        List<CompletableFuture<JsonObject>> responses = new ArrayList<>();
+        for (int i = 0; i < requests; i++)
+            responses.add(gates.listAllAsync("user" + i));
+
+        assertTrue(arrived.await(10, TimeUnit.SECONDS));
+        for (CompletableFuture<JsonObject> response : responses)
+            assertTrue(response.get(10, TimeUnit.SECONDS).get("status").getAsBoolean());
+    }
+
+    @Test
+    public void testApiErrorCompletesExceptionally() throws Exception {
+        this.serve(exchange -> "{\"status\":false,\"error\":{\"message\":\"Not Found\",\"type\":\"NOT_FOUND\","
+                + "\"link\":\"link\",\"code\":404}}");
+        ProfileGates gates = this.createEndpoint(ClientSettings.createDefault());
+
+        try {
+            gates.getOneAsync("username", "gate").get(10, TimeUnit.SECONDS);
+            fail("Expected the future to complete exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SDKException);
+            assertEquals(404, ((SDKException) e.getCause()).getCode());
+        }
+    }
+
+    @Test
+    public void testSendsTheBodyAndAuthorization() throws Exception {
+        AtomicInteger authorized = new AtomicInteger();
+        this.serve(exchange -> {
+            if (exchange.getRequestHeaders().getFirst("Authorization").startsWith("CredentialToken "))
+                authorized.incrementAndGet();
+            return "{\"status\":true,\"data\":" + read(exchange) + "}";
+        });
+        ProfileGates gates = this.createEndpoint(ClientSettings.createDefault());
+
+        JsonObject response = gates.createAsync("username", "gate", "high").get(10, TimeUnit.SECONDS);
+        assertEquals("gate", response.get("data").getAsJsonObject().get("name").getAsString());
+        assertEquals("high", response.get("data").getAsJsonObject().get("confidence_level").getAsString());
+        assertEquals(1, authorized.get());
+    }
+
+    @Test
+    public void testRequestsAllPagesInOrder() throws Exception {
+        this.serve(exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            int page = (query == null) ? 1 : Integer.parseInt(query.replaceAll(".*page=(\\d+).*", "$1"));
+            return "{\"status\":true,\"data\":[" + page + "],\"pagination\":{\"current_page\":" + page
+                    + ",\"total\":5}}";
+        });
+        ProfileGates gates = this.createEndpoint(ClientSettings.createDefault());
+
+        JsonObject response = gates.listAllAsync("username", Filter.createFilter().setAllPagesTrue(3)).get(10,
+                TimeUnit.SECONDS);
+        JsonArray data = response.get("data").getAsJsonArray();
+        assertEquals(5, data.size());
+        for (int page = 1; page <= 5; page++)
+            assertEquals(page, data.get(page - 1).getAsInt());
+        assertEquals(5, response.get("pagination").getAsJsonObject().get("current_page").getAsInt());
+    }
+
+    @Test
+    public void testBlockedGroupDoesNotDelayOtherGroups() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        this.serve(exchange -> "{\"status\":true}");
+        ProfileGates gates = this.createEndpoint(ClientSettings.createDefault()
+                .setBulkheadPolicy(BulkheadPolicy.createDefault().addGroup("bulk", 1, "ProfileRaw")));
+        ProfileRaw raw = new ProfileRaw(this.credentials, gates.getBaseURL(), false, this.client);
+
+        // a caller continuation holds the only async thread of the group
+        CompletableFuture<Void> stuck = raw.listAllAsync("username").thenAccept(json -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            CompletableFuture<JsonObject> queued = raw.listAllAsync("username");
+            assertTrue(gates.listAllAsync("username").get(10, TimeUnit.SECONDS).get("status").getAsBoolean());
+            assertFalse(stuck.isDone());
+            assertFalse(queued.isDone());
+        } finally {
+            blocked.countDown();
+        }
+        stuck.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testEvictsIdleConnections() throws Exception {
+        this.serve(exchange -> "{\"status\":true}");
+        ProfileGates gates = this.createEndpoint(ClientSettings.createDefault().setIdleTimeoutMillis(200));
+
+        assertTrue(gates.listAllAsync("username").get(10, TimeUnit.SECONDS).get("status").getAsBoolean());
+        PoolingNHttpClientConnectionManager pool = this.client.getAsyncConnectionManager("ProfileGates");
+        assertEquals(1, pool.getTotalStats().getAvailable());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getTotalStats().getAvailable() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(50);
+        assertEquals(0, pool.getTotalStats().getAvailable());
+    }
+
+    @Test
+    public void testThrottledRouteDoesNotHoldTheBulkheadSlot() throws Exception {
+        ProfileGates gates = this.createThrottledGroup();
+        ProfileRaw raw = new ProfileRaw(this.credentials, gates.getBaseURL(), false, this.client);
+        this.throttle(raw);
+
+        // waits for its rate permit without holding the only slot of the group
+        CompletableFuture<JsonObject> throttled = raw.listAllAsync("username");
+        long start = System.nanoTime();
+        assertTrue(gates.listAllAsync("username").get(10, TimeUnit.SECONDS).get("status").getAsBoolean());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertFalse(throttled.isDone());
+        assertTrue(throttled.get(10, TimeUnit.SECONDS).get("status").getAsBoolean());
+    }
+
+    @Test
+    public void testThrottledRouteDoesNotHoldTheBulkheadSlotSynchronously() throws Exception {
+        ProfileGates gates = this.createThrottledGroup();
+        ProfileRaw raw = new ProfileRaw(this.credentials, gates.getBaseURL(), false, this.client);
+        this.throttle(raw);
+
+        CompletableFuture<JsonObject> throttled = CompletableFuture.supplyAsync(() -> {
+            try {
+                return raw.listAll("username");
+            } catch (SDKException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        assertTrue(gates.listAll("username").get("status").getAsBoolean());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertFalse(throttled.isDone());
+        assertTrue(throttled.get(10, TimeUnit.SECONDS).get("status").getAsBoolean());
+    }
+
+    /**
+     * Creates a bulkhead of one connection shared by ProfileRaw and
+     * ProfileGates, on a server that throttles the first ProfileRaw request
+     * with a Retry-After of two seconds
+     */
+    private ProfileGates createThrottledGroup() {
+        AtomicInteger raw = new AtomicInteger();
+        this.serve(exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/raw") && raw.getAndIncrement() == 0) {
+                exchange.getResponseHeaders().set("Retry-After", "2");
+                return 429;
+            }
+            return 200;
+        }, exchange -> "{\"status\":true}");
+        return this.createEndpoint(ClientSettings.createDefault().setRetryPolicy(RetryPolicy.disabled())
+                .setRateLimitPolicy(RateLimitPolicy.createDefault().setPerRoute(true))
+                .setBulkheadPolicy(BulkheadPolicy.createDefault().addGroup("bulk", 1, "ProfileRaw", "ProfileGates")));
+    }
+
+    /**
+     * Sends the request the server answers with 429, so the rate limiter of
+     * the route pauses for the Retry-After
+     */
+    private void throttle(ProfileRaw raw) throws Exception {
+        raw.listAllAsync("username").handle((json, e) -> null).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Answers every request with the body returned by the handler
+     */
+    private void serve(Function<HttpExchange, String> handler) {
+        this.serve(exchange -> 200, handler);
+    }
+
+    /**
+     * Answers every request with the status and the body returned by the
+     * handlers
+     */
+    private void serve(Function<HttpExchange, Integer> status, Function<HttpExchange, String> handler) {
+        this.server.createContext("/", exchange -> {
+            int code = status.apply(exchange);
+            byte[] body = handler.apply(exchange).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private ProfileGates createEndpoint(ClientSettings settings) {
+        this.client = new IdOSHttpClient(settings, false);
+        return new ProfileGates(this.credentials, "http://127.0.0.1:" + this.server.getAddress().getPort(), false,
+                this.client);
+    }
+
+    private static String read(HttpExchange exchange) {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            StringBuilder body = new StringBuilder();
+            for (int count = in.read(buffer); count != -1; count = in.read(buffer))
+                body.append(new String(buffer, 0, count, StandardCharsets.UTF_8));
+            return body.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
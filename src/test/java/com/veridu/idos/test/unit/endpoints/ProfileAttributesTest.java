@@ -23,6 +23,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
@@ -39,6 +40,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.net.ssl.*" })
 @PrepareForTest({ ProfileAttributes.class, AbstractEndpoint.class, Request.class, Response.class, IdOSUtils.class,
         HttpClients.class, Executor.class, EntityUtils.class, HttpClient.class, HttpResponse.class, HttpEntity.class})
 public class ProfileAttributesTest extends AbstractUnit {
@@ -83,12 +85,11 @@ public class ProfileAttributesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, attributesMock.listAll("username"));
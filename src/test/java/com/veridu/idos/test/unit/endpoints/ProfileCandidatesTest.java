@@ -27,6 +27,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
@@ -40,6 +41,7 @@ import com.veridu.idos.utils.IdOSAuthType;
 import com.veridu.idos.utils.IdOSUtils;
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.net.ssl.*" })
 @PrepareForTest({ ProfileAttributes.class, AbstractEndpoint.class, Request.class, Response.class, IdOSUtils.class,
         HttpClients.class, Executor.class, EntityUtils.class, HttpClient.class, HttpResponse.class, HttpEntity.class})
 public class ProfileCandidatesTest extends AbstractUnit {
@@ -75,12 +77,11 @@ public class ProfileCandidatesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, candidatesMock.listAll("username"));
@@ -111,12 +112,11 @@ public class ProfileCandidatesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, candidatesMock.create("userName", "gender", "male", 0.8));
@@ -146,12 +146,11 @@ public class ProfileCandidatesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
 
@@ -8,7 +8,10 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
 import com.veridu.idos.endpoints.ProfileAttributes;
 import org.apache.http.HttpEntity;
@@ -27,6 +30,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
@@ -35,11 +39,14 @@ import com.veridu.idos.endpoints.AbstractEndpoint;
 import com.veridu.idos.endpoints.ProfileFeatures;
 import com.veridu.idos.exceptions.InvalidToken;
 import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.models.Feature;
 import com.veridu.idos.test.unit.AbstractUnit;
 import com.veridu.idos.utils.IdOSAuthType;
 import com.veridu.idos.utils.IdOSUtils;
+import com.veridu.idos.utils.Projection;
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.net.ssl.*" })
 @PrepareForTest({ ProfileAttributes.class, AbstractEndpoint.class, Request.class, Response.class, IdOSUtils.class,
         HttpClients.class, Executor.class, EntityUtils.class, HttpClient.class, HttpResponse.class, HttpEntity.class})
 public class ProfileFeaturesTest extends AbstractUnit {
@@ -75,12 +82,11 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, featuresMock.listAll("username"));
@@ -112,12 +118,11 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, featuresMock.create("userName", "name-test", 586324519, "value-test"));
@@ -150,12 +155,11 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, featuresMock.getOne("userName", 758632156));
@@ -186,12 +190,11 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
 
@@ -225,12 +228,11 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, featuresMock.delete("userName", 758632156));
@@ -261,12 +263,11 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, featuresMock.upsert("userName", "feature-test", 785642136, "value-test"));
@@ -299,14 +300,66 @@ public class ProfileFeaturesTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, featuresMock.deleteAll("userName"));
     }
+
+    @Test
+    public void testListAllWithItemConsumer() throws Exception {
+        ProfileFeatures featuresMock = this.mockFeatures(
+                "{\"status\":true,\"data\":[{\"name\":\"a\"},{\"name\":\"b\"}]}");
+        JsonObject json = new JsonObject();
+        json.addProperty("status", true);
+        List<String> names = new ArrayList<>();
+        assertEquals(json, featuresMock.listAll("username", null, item -> names.add(item.get("name").getAsString())));
+        assertEquals(Arrays.asList("a", "b"), names);
+
+    }
+
+    @Test
+    public void testListAllTyped() throws Exception {
+        ProfileFeatures featuresMock = this.mockFeatures("{\"status\":true,\"data\":[{\"id\":1,\"name\":\"a\","
+                + "\"value\":\"x\"},{\"id\":2,\"name\":\"b\",\"value\":2.5}],\"pagination\":{\"current_page\":1}}");
+        List<Feature> features = featuresMock.listAllTyped("username");
+        assertEquals(2, features.size());
+        assertEquals("a", features.get(0).getName());
+        assertEquals("x", features.get(0).getValue().getAsString());
+        assertEquals(2, features.get(1).getId());
+        assertEquals(2.5, features.get(1).getValue().getAsDouble());
+    }
+
+    @Test
+    public void testGetOneTyped() throws Exception {
+        ProfileFeatures featuresMock = this.mockFeatures("{\"status\":true,\"data\":{\"id\":5,\"name\":\"a\"}}");
+        Feature feature = featuresMock.getOneTyped("username", 5);
+        assertEquals(5, feature.getId());
+        assertEquals("a", feature.getName());
+    }
+
+    @Test(expected = SDKException.class)
+    public void testGetOneTypedRaisesApiError() throws Exception {
+        ProfileFeatures featuresMock = this.mockFeatures("{\"status\":false,\"error\":{\"code\":404,"
+                + "\"type\":\"NOT_FOUND\",\"link\":\"\",\"message\":\"Feature not found\"}}");
+        featuresMock.getOneTyped("username", 5);
+    }
+
+    @Test
+    public void testListAllWithProjection() throws Exception {
+        ProfileFeatures featuresMock = this.mockFeatures("{\"status\":true,\"data\":[{\"id\":1,\"name\":\"a\","
+                + "\"value\":\"x\",\"creator\":{\"name\":\"c\"}}],\"pagination\":{\"current_page\":1}}");
+        JsonObject json = featuresMock.listAll("username", null, Projection.of("name", "value"));
+        assertEquals("{\"status\":true,\"data\":[{\"name\":\"a\",\"value\":\"x\"}],\"pagination\":{\"current_page\":1}}",
+                json.toString());
+    }
+
+    private ProfileFeatures mockFeatures(String body) throws Exception {
+        this.mockHttp(body);
+        return this.mockEndpoint(ProfileFeatures.class);
+    }
 }
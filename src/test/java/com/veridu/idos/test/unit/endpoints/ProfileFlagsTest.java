@@ -27,6 +27,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
@@ -40,6 +41,7 @@ import com.veridu.idos.utils.IdOSAuthType;
 import com.veridu.idos.utils.IdOSUtils;
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.net.ssl.*" })
 @PrepareForTest({ ProfileAttributes.class, AbstractEndpoint.class, Request.class, Response.class, IdOSUtils.class,
         HttpClients.class, Executor.class, EntityUtils.class, HttpClient.class, HttpResponse.class, HttpEntity.class})
 public class ProfileFlagsTest extends AbstractUnit {
@@ -75,12 +77,11 @@ public class ProfileFlagsTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, flagsMock.listAll("username"));
@@ -112,12 +113,11 @@ public class ProfileFlagsTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, flagsMock.create("userName", "middle-name-mismatch", "middle-name"));
@@ -147,12 +147,11 @@ public class ProfileFlagsTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, flagsMock.getOne("userName", "middle=name-mismatch"));
@@ -182,12 +181,11 @@ public class ProfileFlagsTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, flagsMock.delete("userName", "middle-name-mismatch"));
@@ -217,12 +215,11 @@ public class ProfileFlagsTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, flagsMock.deleteAll("userName"));
@@ -1,14 +1,20 @@
 package com.veridu.idos.test.unit.endpoints;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.veridu.idos.endpoints.ProfileAttributes;
 import org.apache.http.HttpEntity;
@@ -27,19 +33,23 @@ import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.veridu.idos.endpoints.AbstractEndpoint;
 import com.veridu.idos.endpoints.ProfileRaw;
 import com.veridu.idos.exceptions.InvalidToken;
 import com.veridu.idos.exceptions.SDKException;
 import com.veridu.idos.test.unit.AbstractUnit;
+import com.veridu.idos.utils.Filter;
 import com.veridu.idos.utils.IdOSAuthType;
 import com.veridu.idos.utils.IdOSUtils;
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.net.ssl.*" })
 @PrepareForTest({ ProfileRaw.class, AbstractEndpoint.class, Request.class, Response.class, IdOSUtils.class,
         HttpClients.class, Executor.class, EntityUtils.class, HttpClient.class, HttpResponse.class, HttpEntity.class})
 public class ProfileRawTest extends AbstractUnit {
@@ -74,12 +84,11 @@ public class ProfileRawTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, rawMock.listAll("username"));
@@ -111,12 +120,11 @@ public class ProfileRawTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, rawMock.create("userName", 586324519, "collection-test", new HashMap<String, String>()));
@@ -146,14 +154,71 @@ public class ProfileRawTest extends AbstractUnit {
         when(Executor.newInstance(any())).thenReturn(executor);
         doReturn(response).when(executor).execute(any());
         when(request.setHeader(anyString(), anyString())).thenReturn(request);
-        when(response.returnResponse()).thenReturn(httpResponse);
+        when(response.handleResponse(any())).then(this.handledBy(httpResponse));
 
         HttpEntity entity = Mockito.mock(HttpEntity.class);
         when(httpResponse.getEntity()).thenReturn(entity);
-        EntityUtils entityUtils = mock(EntityUtils.class);
-        when(entityUtils.toString(any())).thenReturn("{\"status\":true}");
+        when(entity.getContent()).then(this.content("{\"status\":true}"));
         when(IdOSUtils.generateToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
                 .thenReturn("token");
         assertEquals(json, rawMock.deleteAll("userName"));
     }
+
+    @Test
+    public void testStreamAllFetchesPagesOnDemand() throws SDKException {
+        ProfileRaw rawMock = Mockito.mock(ProfileRaw.class, Mockito.CALLS_REAL_METHODS);
+        rawMock.setBaseURL("https://idos.api.com");
+        String firstPage = "https://idos.api.com/profiles/username/raw?page=1";
+        String secondPage = "https://idos.api.com/profiles/username/raw?page=2";
+        doReturn(this.page(1, 2, "a", "b")).when(rawMock).request("GET", firstPage, null, null);
+        doReturn(this.page(2, 2, "c")).when(rawMock).request("GET", secondPage, null, null);
+
+        Iterator<JsonObject> items = rawMock.streamAll("username").iterator();
+        assertEquals("a", items.next().get("collection").getAsString());
+        assertEquals("b", items.next().get("collection").getAsString());
+        verify(rawMock, never()).request("GET", secondPage, null, null);
+        assertEquals("c", items.next().get("collection").getAsString());
+        assertEquals(false, items.hasNext());
+        verify(rawMock).request("GET", secondPage, null, null);
+    }
+
+    @Test
+    public void testListAllPagesInParallel() throws SDKException {
+        final JsonObject[] pages = { this.page(1, 3, "a"), this.page(2, 3, "b", "c"), this.page(3, 3, "d") };
+        ProfileRaw raw = new ProfileRaw(this.credentials, "https://idos.api.com", false) {
+            @Override
+            protected JsonObject sendRequest(String method, String url, JsonObject data) {
+                assertTrue(url.contains("source:name=email"));
+                Matcher page = Pattern.compile("page=(\\d+)").matcher(url);
+                return pages[page.find() ? Integer.parseInt(page.group(1)) - 1 : 0];
+            }
+        };
+        Filter filter = Filter.createFilter().addRawSourceNameFilter("email").setAllPagesTrue(2);
+
+        JsonArray data = raw.listAll("username", filter).get("data").getAsJsonArray();
+        assertEquals(4, data.size());
+        assertEquals("a", data.get(0).getAsJsonObject().get("collection").getAsString());
+        assertEquals("b", data.get(1).getAsJsonObject().get("collection").getAsString());
+        assertEquals("c", data.get(2).getAsJsonObject().get("collection").getAsString());
+        assertEquals("d", data.get(3).getAsJsonObject().get("collection").getAsString());
+        assertEquals(1, filter.getParams().size());
+    }
+
+    private JsonObject page(int currentPage, int total, String... collections) {
+        JsonArray data = new JsonArray();
+        for (String collection : collections) {
+            JsonObject item = new JsonObject();
+            item.addProperty("collection", collection);
+            data.add(item);
+        }
+        JsonObject pagination = new JsonObject();
+        pagination.addProperty("current_page", currentPage);
+        pagination.addProperty("total", total);
+        JsonObject page = new JsonObject();
+        page.addProperty("status", true);
+        page.add("data", data);
+        page.add("pagination", pagination);
+
+        return page;
+    }
 }
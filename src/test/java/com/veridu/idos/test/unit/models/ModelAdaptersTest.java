@@ -0,0 +1,62 @@
+package com.veridu.idos.test.unit.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.veridu.idos.models.Feature;
+import com.veridu.idos.models.Models;
+import com.veridu.idos.models.Raw;
+import com.veridu.idos.models.Task;
+
+public class ModelAdaptersTest {
+
+    @Test
+    public void testReadSkipsUnknownFieldsAndNulls() throws IOException {
+        Feature feature = Feature.ADAPTER.fromJson("{\"id\":7,\"source_id\":null,\"name\":\"age\",\"type\":\"integer\","
+                + "\"value\":42,\"unknown\":{\"nested\":[1,2]},\"created_at\":1474632000,\"updated_at\":null}");
+        assertEquals(7, feature.getId());
+        assertEquals(0, feature.getSourceId());
+        assertEquals("age", feature.getName());
+        assertEquals("integer", feature.getType());
+        assertEquals(42, feature.getValue().getAsInt());
+        assertEquals(Long.valueOf(1474632000), feature.getCreatedAt());
+        assertNull(feature.getUpdatedAt());
+    }
+
+    @Test
+    public void testReadKeepsFreeFormValues() throws IOException {
+        Raw raw = Raw.ADAPTER.fromJson("{\"source_id\":3,\"collection\":\"profile\",\"data\":{\"a\":[true,\"b\"]}}");
+        assertEquals(3, raw.getSourceId());
+        assertEquals(new JsonParser().parse("{\"a\":[true,\"b\"]}"), raw.getData());
+    }
+
+    @Test
+    public void testWriteRoundTrips() throws IOException {
+        Task task = Task.ADAPTER.fromJson(
+                "{\"id\":1,\"name\":\"n\",\"event\":\"e\",\"running\":true,\"success\":false,\"message\":\"m\"}");
+        Task copy = Task.ADAPTER.fromJson(Task.ADAPTER.toJson(task));
+        assertEquals(1, copy.getId());
+        assertEquals("e", copy.getEvent());
+        assertTrue(copy.isRunning());
+        assertFalse(copy.isSuccess());
+        assertEquals("m", copy.getMessage());
+    }
+
+    @Test
+    public void testFactoryRegistersAdapters() {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(Models.FACTORY).create();
+        assertSame(Feature.ADAPTER, gson.getAdapter(Feature.class));
+        assertSame(Task.ADAPTER, Models.adapterFor(Task.class));
+        assertNull(Models.adapterFor(String.class));
+    }
+}
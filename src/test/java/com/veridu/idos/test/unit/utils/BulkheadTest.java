@@ -0,0 +1,133 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.veridu.idos.settings.BulkheadPolicy;
+import com.veridu.idos.settings.ClientSettings;
+import com.veridu.idos.utils.Bulkhead;
+import com.veridu.idos.utils.IdOSHttpClient;
+
+public class BulkheadTest {
+
+    @Test
+    public void testGroupedRoutesGetTheirOwnPoolAndLimit() throws IOException {
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setBulkheadPolicy(BulkheadPolicy.createDefault().addGroup("bulk", 4, "ProfileRaw")), false);
+        try {
+            Bulkhead bulk = client.getBulkhead("ProfileRaw");
+            Bulkhead shared = client.getBulkhead("ProfileGates");
+            assertEquals("bulk", bulk.getName());
+            assertEquals(4, bulk.getConnectionManager().getMaxTotal());
+            assertEquals(4, bulk.getConcurrencyLimiter().getLimit());
+            assertNotSame(bulk.getHttpClient(), shared.getHttpClient());
+            assertNotSame(bulk.getConcurrencyLimiter(), shared.getConcurrencyLimiter());
+
+            assertSame(client.getHttpClient(), shared.getHttpClient());
+            assertSame(client.getConcurrencyLimiter(), shared.getConcurrencyLimiter());
+            assertSame(shared, client.getBulkhead("Profiles"));
+            assertSame(bulk, client.getBulkheads().get("bulk"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testAsyncClientSharesTheQuotaOfTheGroup() throws IOException {
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault().setMaxTotalConnections(10)
+                .setMaxConnectionsPerRoute(4).setBulkheadPolicy(BulkheadPolicy.createDefault().addGroup("bulk", 5,
+                        "ProfileRaw")), false);
+        try {
+            Bulkhead bulk = client.getBulkhead("ProfileRaw");
+            Bulkhead shared = client.getBulkhead("ProfileGates");
+            client.getAsyncHttpClient("ProfileRaw");
+            assertEquals(2, bulk.getAsyncMaxConnections());
+            assertEquals(3, bulk.getConnectionManager().getMaxTotal());
+            assertEquals(3, bulk.getConnectionManager().getDefaultMaxPerRoute());
+            assertEquals(5, bulk.getConcurrencyLimiter().getLimit());
+            assertEquals(10, shared.getConnectionManager().getMaxTotal());
+
+            client.getAsyncHttpClient("ProfileGates");
+            assertEquals(5, shared.getAsyncMaxConnections());
+            assertEquals(4, shared.getAsyncMaxConnectionsPerRoute());
+            assertEquals(5, shared.getConnectionManager().getMaxTotal());
+            assertEquals(4, shared.getConnectionManager().getDefaultMaxPerRoute());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testSaturatedGroupLeavesOthersFree() throws Exception {
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setBulkheadPolicy(BulkheadPolicy.createDefault().addGroup("bulk", 1, "ProfileRaw")), false);
+        try {
+            Bulkhead bulk = client.getBulkhead("ProfileRaw");
+            bulk.getConcurrencyLimiter().acquire();
+            assertEquals(1, bulk.getConcurrencyLimiter().getInFlight());
+            client.getBulkhead("ProfileGates").getConcurrencyLimiter().acquire();
+            assertEquals(1, client.getConcurrencyLimiter().getInFlight());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testBlockedGroupLeavesOtherAsyncExecutorsFree() throws Exception {
+        IdOSHttpClient client = new IdOSHttpClient(ClientSettings.createDefault()
+                .setBulkheadPolicy(BulkheadPolicy.createDefault().addGroup("bulk", 1, "ProfileRaw")), false);
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            ExecutorService bulk = client.getAsyncExecutor("ProfileRaw");
+            ExecutorService shared = client.getAsyncExecutor("ProfileGates");
+            assertNotSame(bulk, shared);
+            assertSame(shared, client.getAsyncExecutor());
+            assertSame(bulk, client.getAsyncExecutor("ProfileRaw"));
+
+            // the single thread of the group is stuck in a continuation
+            bulk.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> {
+            }, bulk);
+            String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), shared).get(1,
+                    TimeUnit.SECONDS);
+            assertTrue(thread.startsWith("idos-async-shared-"));
+            assertFalse(queued.isDone());
+        } finally {
+            blocked.countDown();
+            client.close();
+        }
+    }
+
+    @Test
+    public void testAddingARouteAgainMovesIt() {
+        BulkheadPolicy policy = BulkheadPolicy.createDefault().addGroup("bulk", 2, "ProfileRaw", "ProfileSources")
+                .addGroup("reads", 8, "ProfileGates", "ProfileSources");
+        assertEquals("reads", policy.groupOf("ProfileSources").getName());
+        assertEquals(1, policy.groupOf("ProfileRaw").getRoutes().size());
+        assertNull(policy.groupOf("Profiles"));
+        assertTrue(policy.getGroups().get(0).getRoutes().contains("ProfileRaw"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGroupNamesAreUnique() {
+        BulkheadPolicy.createDefault().addGroup("bulk", 2, "ProfileRaw").addGroup("bulk", 2, "ProfileSources");
+    }
+}
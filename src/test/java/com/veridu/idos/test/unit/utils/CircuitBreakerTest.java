@@ -0,0 +1,118 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.veridu.idos.exceptions.CircuitOpenException;
+import com.veridu.idos.settings.CircuitBreakerPolicy;
+import com.veridu.idos.utils.CircuitBreaker;
+import com.veridu.idos.utils.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testTripsOnFailureRate() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker("features",
+                CircuitBreakerPolicy.createDefault().setWindow(4, 4).setFailureRateThreshold(0.5));
+        this.call(breaker, false);
+        this.call(breaker, true);
+        this.call(breaker, false);
+        assertEquals(State.CLOSED, breaker.getState());
+        this.call(breaker, true);
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(0.5, breaker.getFailureRate(), 0);
+        this.assertRejected(breaker);
+    }
+
+    @Test
+    public void testTripsOnSlowCallRate() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker("raw",
+                CircuitBreakerPolicy.createDefault().setWindow(2, 2).setSlowCalls(10, 1));
+        breaker.acquire();
+        breaker.record(false, TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(State.CLOSED, breaker.getState());
+        breaker.acquire();
+        breaker.record(false, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getSlowCallRate(), 0);
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker("gates",
+                CircuitBreakerPolicy.createDefault().setWindow(3, 3).setFailureRateThreshold(0.6));
+        this.call(breaker, true);
+        for (int i = 0; i < 5; i++)
+            this.call(breaker, false);
+        this.call(breaker, true);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(3, breaker.getBufferedCalls());
+        assertEquals(1.0 / 3, breaker.getFailureRate(), 1e-9);
+    }
+
+    @Test
+    public void testHalfOpenTrialsCloseOrReopen() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker("scores", CircuitBreakerPolicy.createDefault().setWindow(1, 1)
+                .setOpenMillis(0).setHalfOpenCalls(2));
+        this.call(breaker, true);
+        assertEquals(State.OPEN, breaker.getState());
+
+        breaker.acquire();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        breaker.acquire();
+        this.assertRejected(breaker);
+        breaker.record(false, FAST);
+        breaker.record(true, FAST);
+        assertEquals(State.OPEN, breaker.getState());
+
+        this.call(breaker, false);
+        this.call(breaker, false);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    public void testReleaseGivesTrialPermitBack() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker("sources", CircuitBreakerPolicy.createDefault().setWindow(1, 1)
+                .setOpenMillis(0).setHalfOpenCalls(1));
+        this.call(breaker, true);
+
+        breaker.acquire();
+        this.assertRejected(breaker);
+        breaker.release();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        breaker.acquire();
+        breaker.record(false, FAST);
+        assertEquals(State.CLOSED, breaker.getState());
+        breaker.release();
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    public void testDisabledNeverTrips() throws CircuitOpenException {
+        CircuitBreaker breaker = new CircuitBreaker("flags", CircuitBreakerPolicy.disabled());
+        for (int i = 0; i < 100; i++)
+            this.call(breaker, true);
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    private void call(CircuitBreaker breaker, boolean failed) throws CircuitOpenException {
+        breaker.acquire();
+        breaker.record(failed, FAST);
+    }
+
+    private void assertRejected(CircuitBreaker breaker) {
+        try {
+            breaker.acquire();
+            fail("Expected a CircuitOpenException");
+        } catch (CircuitOpenException e) {
+            assertEquals(breaker.getRoute(), e.getRoute());
+        }
+    }
+}
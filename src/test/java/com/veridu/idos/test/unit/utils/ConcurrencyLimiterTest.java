@@ -0,0 +1,161 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.veridu.idos.exceptions.ConcurrencyLimitException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.settings.ConcurrencyLimitPolicy;
+import com.veridu.idos.utils.ConcurrencyLimiter;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Test
+    public void testGrowsWhileLatencyIsStable() throws SDKException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimitPolicy.createDefault().setLimits(2, 1, 8),
+                20);
+        for (int round = 0; round < 50; round++) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++)
+                limiter.acquire();
+            for (int i = 0; i < limit; i++)
+                limiter.release(false, LATENCY);
+        }
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testShrinksWhenLatencyRises() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimitPolicy.createDefault()
+                .setLimits(10, 1, 0).setBackoffRatio(0.5), 20);
+        long latency = TimeUnit.MILLISECONDS.toNanos(50);
+        limiter.acquire();
+        limiter.release(false, latency);
+        Thread.sleep(60);
+        limiter.acquire();
+        limiter.release(false, latency * 10);
+        assertEquals(5, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.release(false, latency * 10);
+        assertEquals("at most one decrease per round trip", 5, limiter.getLimit());
+    }
+
+    @Test
+    public void testShrinksWhenRequestsAreDropped() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimitPolicy.createDefault()
+                .setLimits(4, 2, 0).setBackoffRatio(0.5), 20);
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(1);
+            limiter.acquire();
+            limiter.release(true, LATENCY);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testFailsFastAtTheLimit() throws SDKException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                ConcurrencyLimitPolicy.createDefault().setLimits(1, 1, 1).setMaxWaitMillis(0), 20);
+        limiter.acquire();
+        try {
+            limiter.acquire();
+            fail("Expected a ConcurrencyLimitException");
+        } catch (ConcurrencyLimitException e) {
+            assertEquals(1, e.getLimit());
+        }
+        limiter.release();
+        limiter.acquire();
+    }
+
+    @Test
+    public void testReleaseWakesWaitingRequests() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimitPolicy.createDefault().setLimits(1, 1, 1),
+                20);
+        limiter.acquire();
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire();
+            } catch (SDKException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(20);
+        assertTrue(!waiting.isDone());
+        limiter.release(false, LATENCY);
+        waiting.get(1, TimeUnit.SECONDS);
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void testReleaseHandsTheSlotToAsyncWaiters() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                    ConcurrencyLimitPolicy.createDefault().setLimits(1, 1, 1), 20);
+            assertTrue(limiter.acquireAsync(scheduler).isDone());
+            CompletableFuture<Void> first = limiter.acquireAsync(scheduler);
+            CompletableFuture<Void> second = limiter.acquireAsync(scheduler);
+            assertTrue(!first.isDone() && !second.isDone());
+
+            limiter.release(false, LATENCY);
+            first.get(1, TimeUnit.SECONDS);
+            assertTrue(!second.isDone());
+            assertEquals(1, limiter.getInFlight());
+            limiter.release();
+            second.get(1, TimeUnit.SECONDS);
+            assertEquals(1, limiter.getInFlight());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncWaitEndsAtTheMaximumWait() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                    ConcurrencyLimitPolicy.createDefault().setLimits(1, 1, 1).setMaxWaitMillis(50), 20);
+            limiter.acquire();
+            CompletableFuture<Void> waiting = limiter.acquireAsync(scheduler);
+            try {
+                waiting.get(1, TimeUnit.SECONDS);
+                fail("Expected a ConcurrencyLimitException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConcurrencyLimitException);
+            }
+            limiter.release();
+            assertEquals(0, limiter.getInFlight());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testStartsAtTheHighestLimitByDefault() {
+        assertEquals(20, new ConcurrencyLimiter(ConcurrencyLimitPolicy.createDefault(), 20).getLimit());
+        assertEquals(8, new ConcurrencyLimiter(ConcurrencyLimitPolicy.createDefault().setLimits(0, 1, 8), 20)
+                .getLimit());
+    }
+
+    @Test
+    public void testDisabledNeverWaits() throws SDKException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimitPolicy.disabled().setLimits(1, 1, 1),
+                20);
+        for (int i = 0; i < 10; i++)
+            limiter.acquire();
+        assertEquals(0, limiter.getInFlight());
+    }
+}
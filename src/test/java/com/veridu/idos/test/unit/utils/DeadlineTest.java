@@ -0,0 +1,85 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.veridu.idos.exceptions.DeadlineExceededException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.utils.Deadline;
+
+public class DeadlineTest {
+
+    @Test
+    public void testDeadlineIsCurrentWhileRunning() throws SDKException {
+        Deadline deadline = Deadline.after(60000);
+        assertSame(deadline, deadline.call(Deadline::current));
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testNestedDeadlineNeverExtends() throws SDKException {
+        Deadline outer = Deadline.after(1000);
+        Deadline inner = Deadline.after(60000);
+        assertSame(outer, outer.call(() -> inner.call(Deadline::current)));
+
+        Deadline sooner = Deadline.after(100);
+        assertSame(sooner, outer.call(() -> sooner.call(Deadline::current)));
+    }
+
+    @Test
+    public void testWithinKeepsTheSoonerDeadline() throws SDKException {
+        Deadline outer = Deadline.after(1000);
+        assertSame(outer, outer.call(() -> Deadline.within(60000)));
+        assertSame(outer, outer.call(() -> Deadline.within(0)));
+        assertTrue(outer.call(() -> Deadline.within(100)).remainingMillis() <= 100);
+        assertNull(Deadline.within(0));
+    }
+
+    @Test
+    public void testNoTimeoutRunsWithoutDeadline() throws SDKException {
+        assertNull(Deadline.callWithin(0, Deadline::current));
+        assertNull(Deadline.callWith(null, Deadline::current));
+        assertEquals(500, Deadline.capMillis(500));
+    }
+
+    @Test
+    public void testWaitsAreCapped() throws SDKException {
+        long capped = Deadline.callWithin(1000, () -> Deadline.capMillis(60000));
+        assertTrue((capped > 0) && (capped <= 1000));
+        assertEquals(10L, (long) Deadline.callWithin(1000, () -> Deadline.capMillis(10)));
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void testCheckFailsOnceExpired() throws SDKException {
+        Deadline deadline = Deadline.after(0);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+        deadline.call(() -> {
+            Deadline.check();
+            return null;
+        });
+    }
+
+    @Test
+    public void testPropagateCarriesDeadlineToAnotherThread() throws Exception {
+        Deadline deadline = Deadline.after(60000);
+        AtomicReference<Deadline> seen = new AtomicReference<>();
+        Runnable task = deadline.call(() -> Deadline.propagate(() -> seen.set(Deadline.current())));
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+        assertSame(deadline, seen.get());
+        assertFalse(deadline.isExpired());
+
+        Runnable plain = () -> {
+        };
+        assertSame(plain, Deadline.propagate(plain));
+    }
+}
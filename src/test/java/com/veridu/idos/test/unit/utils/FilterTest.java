@@ -0,0 +1,63 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.veridu.idos.utils.Filter;
+import com.veridu.idos.utils.SortFilterType;
+
+public class FilterTest {
+
+    @Test
+    public void testQueryIsSortedByKey() {
+        Filter filter = Filter.createFilter().addNameFilter("name").addSortFilter(SortFilterType.ASC)
+                .addCollectionFilter("collection");
+        assertEquals("collection=collection&filter:sort=ASC&name=name", filter.toString());
+    }
+
+    @Test
+    public void testEqualFiltersRenderTheSameQuery() {
+        Filter first = Filter.createFilter().addSlugFilter("slug").addTypeFilter("type");
+        Filter second = Filter.createFilter().addTypeFilter("type").addSlugFilter("slug");
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void testQueryIsEncoded() {
+        Filter filter = Filter.createFilter().addFilterByKeyName("name", "a b&c=d+é");
+        assertEquals("name=a%20b%26c%3Dd%2B%C3%A9", filter.toString());
+    }
+
+    @Test
+    public void testAddReturnsANewFilter() {
+        Filter filter = Filter.createFilter().addNameFilter("name");
+        Filter more = filter.addSlugFilter("slug").setAllPagesTrue(2);
+        assertEquals("name=name", filter.toString());
+        assertFalse(filter.getAllPagesTrue());
+        assertEquals("name=name&slug=slug", more.toString());
+        assertTrue(more.getAllPagesTrue());
+        assertEquals(2, more.getPageParallelism());
+        assertEquals("", Filter.createFilter().toString());
+    }
+
+    @Test
+    public void testParamsCopyLeavesFilterUntouched() {
+        Filter filter = Filter.createFilter().addNameFilter("name");
+        filter.getParams().put("slug", "slug");
+        assertEquals(1, filter.getParams().size());
+        assertEquals("name=name", filter.toString());
+    }
+
+    @Test
+    public void testPageQueryLeavesFilterUntouched() {
+        Filter filter = Filter.createFilter().addNameFilter("name").addLimitPerPage(10).addPageNumber(1);
+        assertEquals("name=name&page=3&perPage=10", filter.toPageQueryString(3));
+        assertEquals("name=name&page=1&perPage=10", filter.toString());
+        assertEquals("page=2", Filter.createFilter().toPageQueryString(2));
+    }
+}
@@ -0,0 +1,52 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.veridu.idos.utils.JwtSigner;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class JwtSignerTest {
+
+    private static String jjwt(String privateKey, String publicKey, String subject, long expiresAtMillis) {
+        JwtBuilder jwt = Jwts.builder().setIssuer(publicKey);
+        if (expiresAtMillis != 0)
+            jwt.setExpiration(new Date(expiresAtMillis));
+        if (!subject.isEmpty())
+            jwt.setSubject(subject);
+        return jwt.signWith(SignatureAlgorithm.HS256, privateKey.getBytes()).compact();
+    }
+
+    @Test
+    public void testMatchesJjwtWithSubject() {
+        JwtSigner signer = new JwtSigner("servicePrivateKey", "servicePublicKey");
+        assertEquals(jjwt("servicePrivateKey", "servicePublicKey", "credentialPublicKey", 0),
+                signer.sign("credentialPublicKey"));
+    }
+
+    @Test
+    public void testMatchesJjwtWithoutSubject() {
+        JwtSigner signer = new JwtSigner("companyPrivateKey", "companyPublicKey");
+        assertEquals(jjwt("companyPrivateKey", "companyPublicKey", "", 0), signer.sign(""));
+    }
+
+    @Test
+    public void testMatchesJjwtWithExpiration() {
+        JwtSigner signer = new JwtSigner("credentialPrivateKey", "credentialPublicKey");
+        for (String subject : new String[] { "u", "us", "use", "user\"name\\", "usér€\n\u0001\t" })
+            assertEquals(jjwt("credentialPrivateKey", "credentialPublicKey", subject, 1500000000000L),
+                    signer.sign(subject, 1500000000000L));
+    }
+
+    @Test
+    public void testForKeysReusesSigner() {
+        assertSame(JwtSigner.forKeys("private", "public"), JwtSigner.forKeys("private", "public"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.veridu.idos.utils.LatencyTracker;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testPercentilesNeedMinimumSamples() {
+        LatencyTracker tracker = new LatencyTracker(100, 10);
+        for (int i = 1; i < 10; i++)
+            tracker.record(i);
+        assertEquals(-1, tracker.percentile(0.5));
+        tracker.record(10);
+        assertEquals(5, tracker.percentile(0.5));
+        assertEquals(10, tracker.percentile(0.95));
+        assertEquals(1, tracker.percentile(0));
+    }
+
+    @Test
+    public void testOldLatenciesLeaveTheWindow() {
+        LatencyTracker tracker = new LatencyTracker(10, 1);
+        for (int i = 0; i < 10; i++)
+            tracker.record(1000);
+        for (int i = 0; i < 10; i++)
+            tracker.record(i + 1);
+        assertEquals(10, tracker.getSamples());
+        assertEquals(10, tracker.percentile(1));
+        assertEquals(9, tracker.percentile(0.9));
+    }
+}
@@ -0,0 +1,39 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+import com.veridu.idos.utils.Projection;
+
+public class ProjectionTest {
+
+    @Test
+    public void testDottedPathsProjectNestedFields() {
+        Projection projection = Projection.of("name", "data.email");
+        assertTrue(projection.includes("name"));
+        assertNull(projection.nested("name"));
+        assertTrue(projection.includes("data"));
+        assertTrue(projection.nested("data").includes("email"));
+        assertFalse(projection.includes("email"));
+    }
+
+    @Test
+    public void testWholeFieldWinsOverNestedFields() {
+        assertNull(Projection.of("data.email", "data").nested("data"));
+        assertNull(Projection.of("data", "data.email").nested("data"));
+        assertEquals(Projection.of("data"), Projection.of("data.email", "data"));
+    }
+
+    @Test
+    public void testApplyKeepsProjectedFields() {
+        JsonParser parser = new JsonParser();
+        assertEquals(parser.parse("[{\"name\":\"a\",\"data\":{\"email\":\"e\"}},{\"name\":\"b\"}]"),
+                Projection.of("name", "data.email").apply(parser.parse(
+                        "[{\"id\":1,\"name\":\"a\",\"data\":{\"email\":\"e\",\"age\":2}},{\"name\":\"b\",\"value\":3}]")));
+    }
+}
@@ -0,0 +1,94 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Test;
+
+import com.veridu.idos.exceptions.RateLimitedException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.settings.RateLimitPolicy;
+import com.veridu.idos.utils.RateLimiter;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testBurstThenFailFast() throws SDKException {
+        RateLimiter limiter = new RateLimiter("features", 10,
+                RateLimitPolicy.createDefault().setRate(10, 2).setMaxWaitMillis(0));
+        assertTrue(limiter.tryAcquire());
+        limiter.acquire();
+        assertFalse(limiter.tryAcquire());
+        try {
+            limiter.acquire();
+            fail("Expected a RateLimitedException");
+        } catch (RateLimitedException e) {
+            assertTrue(e.getWaitMillis() <= 100);
+        }
+    }
+
+    @Test
+    public void testBlockingAcquireSmoothsBursts() throws SDKException {
+        RateLimiter limiter = new RateLimiter("raw", 200, RateLimitPolicy.createDefault().setRate(200, 1));
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++)
+            limiter.acquire();
+        assertTrue(System.nanoTime() - start >= 15000000L);
+    }
+
+    @Test
+    public void testTooManyRequestsHalvesRateAndPauses() {
+        RateLimiter limiter = new RateLimiter("gates", 10, RateLimitPolicy.createDefault().setRate(10, 10));
+        HttpResponse response = response(429);
+        response.addHeader("Retry-After", "2");
+        limiter.observe(response);
+        assertEquals(5, limiter.getRate(), 1e-9);
+        assertFalse(limiter.tryAcquire());
+
+        for (int i = 0; i < 30; i++)
+            limiter.onSuccess();
+        assertEquals(10, limiter.getRate(), 1e-9);
+    }
+
+    @Test
+    public void testExhaustedQuotaPausesUntilReset() {
+        RateLimiter limiter = new RateLimiter("scores", 0, RateLimitPolicy.createDefault());
+        assertTrue(limiter.tryAcquire());
+        HttpResponse response = response(200);
+        response.addHeader("X-RateLimit-Remaining", "0");
+        response.addHeader("X-RateLimit-Reset", "60");
+        limiter.observe(response);
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testDisabledIgnoresSignals() {
+        RateLimiter limiter = new RateLimiter("flags", 1, RateLimitPolicy.disabled().setRate(1, 1));
+        limiter.observe(response(429));
+        for (int i = 0; i < 10; i++)
+            assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testBucketsPerCredentialAndRoute() {
+        RateLimitPolicy policy = RateLimitPolicy.createDefault().setRate(5, 0).setCredentialRate("key", 20)
+                .setRouteRate("ProfileRaw", 2);
+        assertEquals("key", policy.bucketName("key", "ProfileFeatures"));
+        assertEquals("key/ProfileRaw", policy.bucketName("key", "ProfileRaw"));
+        assertEquals(20, policy.rateOf("key", "ProfileFeatures"), 0);
+        assertEquals(2, policy.rateOf("key", "ProfileRaw"), 0);
+        assertEquals(5, policy.rateOf(null, "ProfileFeatures"), 0);
+        assertEquals("other/ProfileFeatures", policy.setPerRoute(true).bucketName("other", "ProfileFeatures"));
+        assertEquals(20, policy.burstOf(20));
+    }
+
+    private static HttpResponse response(int statusCode) {
+        return new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, null));
+    }
+}
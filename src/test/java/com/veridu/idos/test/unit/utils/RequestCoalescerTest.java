@@ -0,0 +1,154 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.veridu.idos.exceptions.DeadlineExceededException;
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.utils.Deadline;
+import com.veridu.idos.utils.RequestCoalescer;
+
+public class RequestCoalescerTest {
+
+    private final ExecutorService senders = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        this.senders.shutdown();
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRequest() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(this.senders);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                callers.add(executor.submit(() -> coalescer.execute("profiles/alice/gates", () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return result;
+                })));
+            while (calls.get() == 0)
+                Thread.sleep(1);
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<Object> caller : callers)
+                assertSame(result, caller.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    public void testWaitersReceiveTheFailure() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(this.senders);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SDKException failure = new SDKException("Not Found", "NotFound", "", 404);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            started.await();
+            Thread waker = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    // released early
+                }
+                release.countDown();
+            });
+            waker.start();
+            try {
+                coalescer.execute("key", () -> "not sent");
+                fail("Expected the leader failure");
+            } catch (SDKException e) {
+                assertSame(failure, e);
+            }
+            try {
+                leader.get();
+                fail("Expected the leader failure");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallersWaitUntilTheirOwnDeadline() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(this.senders);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Deadline> sharedDeadline = new AtomicReference<>();
+        Object result = new Object();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = executor.submit(() -> Deadline.after(50).call(() -> coalescer.execute("key", () -> {
+                sharedDeadline.set(Deadline.current());
+                started.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    throw new SDKException("Interrupted");
+                }
+                return result;
+            })));
+            started.await();
+            assertSame(result, Deadline.after(5000).call(() -> coalescer.<Object> execute("key", () -> "not sent")));
+            try {
+                leader.get();
+                fail("Expected the leader to give up at its deadline");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DeadlineExceededException);
+            }
+            assertNull(sharedDeadline.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLaterCallersSendAgain() throws SDKException {
+        RequestCoalescer coalescer = new RequestCoalescer(this.senders);
+        AtomicInteger calls = new AtomicInteger();
+        coalescer.execute("key", calls::incrementAndGet);
+        coalescer.execute("key", calls::incrementAndGet);
+        coalescer.execute("other", calls::incrementAndGet);
+        assertEquals(3, calls.get());
+    }
+
+    private static void await(CountDownLatch latch) throws SDKException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new SDKException("Interrupted");
+        }
+    }
+}
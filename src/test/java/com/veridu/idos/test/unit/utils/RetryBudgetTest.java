@@ -0,0 +1,72 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.SocketException;
+
+import org.junit.Test;
+
+import com.veridu.idos.exceptions.SDKException;
+import com.veridu.idos.exceptions.TransportException;
+import com.veridu.idos.settings.RetryPolicy;
+import com.veridu.idos.utils.RetryBudget;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testRetriesAreBoundedByRequests() {
+        RetryBudget budget = new RetryBudget(0.5, 0);
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    public void testMinimumRateAllowsRetries() {
+        RetryBudget budget = new RetryBudget(0, 2);
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    public void testPolicyRetriesIdempotentMethodsOnly() {
+        RetryPolicy policy = RetryPolicy.createDefault();
+        assertTrue(policy.allowsRetry("GET"));
+        assertTrue(policy.allowsRetry("PUT"));
+        assertTrue(policy.allowsRetry("DELETE"));
+        assertFalse(policy.allowsRetry("POST"));
+        assertFalse(policy.requiresIdempotencyKey("POST"));
+
+        policy.setIdempotencyKeyHeader("Idempotency-Key");
+        assertTrue(policy.allowsRetry("POST"));
+        assertTrue(policy.requiresIdempotencyKey("PATCH"));
+        assertFalse(policy.requiresIdempotencyKey("GET"));
+        assertFalse(RetryPolicy.disabled().allowsRetry("GET"));
+    }
+
+    @Test
+    public void testPolicyRetryableFailures() {
+        RetryPolicy policy = RetryPolicy.createDefault();
+        assertTrue(policy.isRetryable(new TransportException("reset", new SocketException())));
+        assertTrue(policy.isRetryable(new SDKException("Unavailable", "ServiceUnavailable", "", 503)));
+        assertFalse(policy.isRetryable(new SDKException("Not Found", "NotFound", "", 404)));
+    }
+
+    @Test
+    public void testPolicyBackoffIsJitteredAndCapped() {
+        RetryPolicy policy = RetryPolicy.createDefault().setBackoffMillis(100, 300);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoffMillis(1) <= 100);
+            assertTrue(policy.backoffMillis(2) <= 200);
+            assertTrue(policy.backoffMillis(5) <= 300);
+            assertTrue(policy.backoffMillis(5) >= 0);
+        }
+        assertEquals(0, RetryPolicy.createDefault().setBackoffMillis(0, 0).backoffMillis(3));
+    }
+}
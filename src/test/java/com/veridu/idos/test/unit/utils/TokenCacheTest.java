@@ -0,0 +1,120 @@
+package com.veridu.idos.test.unit.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.veridu.idos.exceptions.InvalidToken;
+import com.veridu.idos.utils.IdOSAuthType;
+import com.veridu.idos.utils.IdOSUtils;
+import com.veridu.idos.utils.TokenCache;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "javax.crypto.*" })
+@PrepareForTest({ IdOSUtils.class })
+public class TokenCacheTest {
+
+    private final HashMap<String, String> credentials = new HashMap<>();
+
+    public TokenCacheTest() {
+        this.credentials.put("credentialPublicKey", "credentialPublicKey");
+        this.credentials.put("servicePrivateKey", "servicePrivateKey");
+        this.credentials.put("servicePublicKey", "servicePublicKey");
+    }
+
+    @Test
+    public void testRefreshesBeforeExpiry() throws InvalidToken, InterruptedException {
+        TokenCache cache = new TokenCache(2000, 1000);
+        long signedAt = System.currentTimeMillis();
+        String token = cache.getToken(IdOSAuthType.HANDLER, this.credentials);
+        assertEquals(token, cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+
+        Thread.sleep(1500);
+        String refreshed = cache.getToken(IdOSAuthType.HANDLER, this.credentials);
+        assertTrue(System.currentTimeMillis() < signedAt + 2000);
+        assertNotEquals(token, refreshed);
+        cache.close();
+    }
+
+    @Test
+    public void testRefreshesOnlyWithinTheMargin() throws InvalidToken, InterruptedException {
+        AtomicInteger signed = this.mockSigning();
+        TokenCache cache = new TokenCache(2000, 500);
+        assertEquals("token-1", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+
+        Thread.sleep(1000);
+        assertEquals("token-1", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+        Thread.sleep(800);
+        assertEquals("token-2", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+        assertEquals(2, signed.get());
+        cache.close();
+    }
+
+    @Test
+    public void testMarginIsCappedAtHalfTheLifetime() throws InvalidToken, InterruptedException {
+        this.mockSigning();
+        TokenCache cache = new TokenCache(2000, 60000);
+        assertEquals("token-1", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+
+        Thread.sleep(500);
+        assertEquals("token-1", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+        Thread.sleep(1000);
+        assertEquals("token-2", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+        cache.close();
+    }
+
+    @Test
+    public void testDropsUnusedTokens() throws InvalidToken, InterruptedException {
+        AtomicInteger signed = this.mockSigning();
+        TokenCache cache = new TokenCache(1000, 500);
+        assertEquals("token-1", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+
+        Thread.sleep(1300);
+        assertEquals(2, signed.get());
+        assertEquals("token-3", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+        cache.close();
+    }
+
+    @Test
+    public void testBackgroundFailureSurfacesOnNextCall() throws InvalidToken, InterruptedException {
+        PowerMockito.mockStatic(IdOSUtils.class);
+        when(IdOSUtils.generateToken(anyString(), anyString(), anyString(), anyLong())).thenReturn("token-1")
+                .thenThrow(new IllegalStateException("signing failed"));
+        TokenCache cache = new TokenCache(2000, 1000);
+        assertEquals("token-1", cache.getToken(IdOSAuthType.HANDLER, this.credentials));
+
+        Thread.sleep(1200);
+        try {
+            cache.getToken(IdOSAuthType.HANDLER, this.credentials);
+            fail("Expected the signing failure");
+        } catch (IllegalStateException e) {
+            assertEquals("signing failed", e.getMessage());
+        }
+        cache.close();
+    }
+
+    /**
+     * Mocks signing to return token-1, token-2, ... in order
+     */
+    private AtomicInteger mockSigning() {
+        AtomicInteger signed = new AtomicInteger();
+        PowerMockito.mockStatic(IdOSUtils.class);
+        when(IdOSUtils.generateToken(anyString(), anyString(), anyString(), anyLong()))
+                .then(invocation -> "token-" + signed.incrementAndGet());
+        return signed;
+    }
+}